@@ -11,6 +11,7 @@ package org.makersoft.shards;
 import java.util.Collection;
 import java.util.Set;
 
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 
@@ -29,6 +30,13 @@ public interface Shard {
 	 */
 	SqlSession establishSqlSession();
 
+	/**
+	 * 以指定的{@link ExecutorType}打开一个新的{@link SqlSession}, 例如批量写入时使用
+	 * {@link ExecutorType#BATCH}. 与{@link #establishSqlSession()}不同, 返回的session在多次调用之间保持打开,
+	 * 由调用者负责flushStatements/commit/close, 异常的转换方式与{@link #establishSqlSession()}相同.
+	 */
+	SqlSession openSqlSession(ExecutorType executorType);
+
 	/**
 	 * @return 与此分区相关联的{@link SqlSession}.
 	 */
@@ -0,0 +1,24 @@
+/*
+ * @(#)ShardFuture.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards;
+
+import java.util.concurrent.Future;
+
+/**
+ * 分区操作的异步结果, 可以注册回调, 在各分区执行完成并合并结果后得到通知, 而不必阻塞等待.
+ * 
+ * @author Feng Kuok
+ */
+public interface ShardFuture<T> extends Future<T> {
+
+	/**
+	 * 注册回调, 已经完成时立即在当前线程执行, 否则在完成操作的线程中执行.
+	 */
+	void addCallback(ShardFutureCallback<? super T> callback);
+}
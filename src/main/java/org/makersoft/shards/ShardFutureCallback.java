@@ -0,0 +1,25 @@
+/*
+ * @(#)ShardFutureCallback.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards;
+
+/**
+ * {@link ShardFuture}完成时的回调.
+ * 
+ * @author Feng Kuok
+ */
+public interface ShardFutureCallback<T> {
+
+	void onSuccess(T result);
+
+	/**
+	 * @param cause
+	 *            执行失败的原因, 被取消时为{@link java.util.concurrent.CancellationException}
+	 */
+	void onFailure(Throwable cause);
+}
@@ -24,6 +24,7 @@ public class ShardId {
 	
 	private final int shardId;
 	
+	// 拼接分隔符之后的prefix/suffix, 每个分区的每次调用都会读取, 在设置时计算一次
 	private String prefix;
 	
 	private String suffix;
@@ -38,29 +39,23 @@ public class ShardId {
 	}
 
 	public String getPrefix() {
-		if(!StringUtil.isEmpty(prefix)){
-			return prefix + SPLIT;
-		}
 		return prefix;
 	}
 
 	public void setPrefix(String prefix) {
 		Assert.notNull(prefix,"can not set prefix with value null.");
 		
-		this.prefix = prefix;
+		this.prefix = StringUtil.isEmpty(prefix) ? prefix : prefix + SPLIT;
 	}
 
 	public String getSuffix() {
-		if(!StringUtil.isEmpty(suffix)){
-			return SPLIT + suffix;
-		}
 		return suffix;
 	}
 
 	public void setSuffix(String suffix) {
 		Assert.notNull(suffix,"can not set suffix with value null.");
 		
-		this.suffix = suffix;
+		this.suffix = StringUtil.isEmpty(suffix) ? suffix : SPLIT + suffix;
 	}
 	
 	public static ShardId findByShardId(List<ShardId> shardIds, int id){
@@ -80,6 +80,15 @@ public class ShardImpl implements Shard {
 		return sqlSessionProxy;
 	}
 
+	@Override
+	public SqlSession openSqlSession(ExecutorType executorType) {
+		final SqlSession sqlSession = sqlSessionFactory.openSession(executorType);
+		return (SqlSession) Proxy.newProxyInstance(
+				SqlSessionFactory.class.getClassLoader(),
+				new Class[] { SqlSession.class },
+				new ExceptionTranslatingInterceptor(sqlSession));
+	}
+
 	@Override
 	public Collection<String> getMappedStatementNames() {
 		return getConfiguration().getMappedStatementNames();
@@ -119,4 +128,35 @@ public class ShardImpl implements Shard {
 	    }
 	  }
 
+	/**
+	 * 仅转换异常, session的生命周期由调用者管理.
+	 */
+	private class ExceptionTranslatingInterceptor implements InvocationHandler {
+
+		private final SqlSession sqlSession;
+
+		ExceptionTranslatingInterceptor(SqlSession sqlSession) {
+			this.sqlSession = sqlSession;
+		}
+
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			try {
+				return method.invoke(sqlSession, args);
+			} catch (Throwable t) {
+				throw translateException(t);
+			}
+		}
+	}
+
+	private Throwable translateException(Throwable t) {
+		Throwable unwrapped = unwrapThrowable(t);
+		if (exceptionTranslator != null && unwrapped instanceof PersistenceException) {
+			Throwable translated = exceptionTranslator.translateExceptionIfPossible((PersistenceException) unwrapped);
+			if (translated != null) {
+				unwrapped = translated;
+			}
+		}
+		return unwrapped;
+	}
+
 }
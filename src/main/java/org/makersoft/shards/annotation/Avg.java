@@ -0,0 +1,30 @@
+/*
+ * @(#)Avg.java 2026-10-19 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标识Mapper查询方法返回单个AVG(...)聚合值. 跨分区执行时每个分区的SQL被改写为SUM(...)和COUNT(...),
+ * 合并后再计算平均值, 而不是对各分区的平均值求平均.
+ * <p>
+ * 例如: <code>@Avg Double getAverageAge();</code> 对应
+ * <code>SELECT AVG(age) FROM user</code>.
+ * </p>
+ * 
+ * @see org.makersoft.shards.plugin.AvgRewriter
+ * @author Feng Kuok
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Avg {
+}
@@ -0,0 +1,35 @@
+/*
+ * @(#)GroupBy.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明Mapper查询方法的分组键和聚合列, 须与SQL中的GROUP BY一致.
+ * 跨分区查询时把各分区分组键相同的行合并, 合并后按{@link OrderBy}排序并截取RowBounds.
+ * <p>
+ * 例如: <code>@GroupBy(value = "gender", aggregates = {"count(cnt)", "max(maxAge)", "avg(avgAge, sumAge, cnt)"})</code>,
+ * 属性名为结果对象的属性(或Map结果的key). HAVING条件通过
+ * {@link org.makersoft.shards.cfg.StatementMetadataRegistry#registerGrouping}注册.
+ * </p>
+ * 
+ * @see org.makersoft.shards.select.Grouping
+ * @author Feng Kuok
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface GroupBy {
+
+	String[] value();
+
+	String[] aggregates() default {};
+}
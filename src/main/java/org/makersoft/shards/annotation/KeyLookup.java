@@ -0,0 +1,36 @@
+/*
+ * @(#)KeyLookup.java 2026-10-18 下午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标识Mapper查询方法为按分区键查询, 查询直接路由到分区键所在的分区, 而不是查询全部分区.
+ * <p>
+ * 分区键作为{@link org.makersoft.shards.strategy.resolution.ShardResolutionStrategyData#getId()}交给分区解析策略定位分区;
+ * 分区键不是生成的主键, 因此即使配置了{@link org.makersoft.shards.id.IdGenerator}也不会通过其解析.
+ * 策略中可以自行调用{@link org.makersoft.shards.id.IdGenerator#extractShardId(java.io.Serializable)}.
+ * 例如: <code>@KeyLookup("orderNo") Order findByOrderNo(Order order)</code>.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface KeyLookup {
+
+	/**
+	 * @return 分区键在参数中的属性路径(例如"orderNo", "order.orderNo"), 为空时参数本身即为分区键
+	 *         (参数类型有{@link ShardKey}字段时为该字段的值)
+	 */
+	String value() default "";
+}
@@ -0,0 +1,30 @@
+/*
+ * @(#)OrderBy.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 声明Mapper查询方法的排序键, 须与SQL中的ORDER BY一致.
+ * 跨分区查询时按此排序键对各分区已排序的结果做归并, 而不是简单拼接.
+ * <p>
+ * 例如: <code>@OrderBy({"age desc", "id"})</code>, 属性名为结果对象的属性(或Map结果的key).
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface OrderBy {
+
+	String[] value();
+}
@@ -0,0 +1,25 @@
+/*
+ * @(#)ShardKey.java 2026-10-19 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注实体的分区键字段. 以实体为参数的{@link KeyLookup}查询没有指定属性路径时, 使用该字段的值作为分区键.
+ * 
+ * @author Feng Kuok
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.FIELD)
+public @interface ShardKey {
+
+}
@@ -0,0 +1,124 @@
+/*
+ * @(#)EntityMetadata.java 2026-10-19 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.cfg;
+
+import java.io.Serializable;
+import java.lang.reflect.Field;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.annotation.PrimaryKey;
+import org.makersoft.shards.annotation.ShardKey;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 实体类的主键({@link PrimaryKey})和分区键({@link ShardKey})字段.
+ * <p>
+ * 每个类只扫描一次完整的类层次(子类的声明优先), 结果保存在{@link ClassValue}中,
+ * 之后的插入, 更新, 删除和按主键查询直接取出; 实体类被卸载时缓存随之释放.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public final class EntityMetadata {
+
+	private static final ClassValue<EntityMetadata> METADATA = new ClassValue<EntityMetadata>() {
+		@Override
+		protected EntityMetadata computeValue(Class<?> type) {
+			return new EntityMetadata(type);
+		}
+	};
+
+	private final Field primaryKey;
+
+	private final Field shardKey;
+
+	private EntityMetadata(Class<?> type) {
+		Field primaryKey = null;
+		Field shardKey = null;
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			for (Field field : c.getDeclaredFields()) {
+				if (primaryKey == null && field.isAnnotationPresent(PrimaryKey.class)) {
+					primaryKey = field;
+				}
+				if (shardKey == null && field.isAnnotationPresent(ShardKey.class)) {
+					shardKey = field;
+				}
+			}
+		}
+		if (primaryKey != null) {
+			primaryKey.setAccessible(true);
+		}
+		if (shardKey != null) {
+			shardKey.setAccessible(true);
+		}
+		this.primaryKey = primaryKey;
+		this.shardKey = shardKey;
+	}
+
+	public static EntityMetadata forClass(Class<?> type) {
+		Assert.notNull(type);
+		return METADATA.get(type);
+	}
+
+	public boolean hasPrimaryKey() {
+		return primaryKey != null;
+	}
+
+	public boolean hasShardKey() {
+		return shardKey != null;
+	}
+
+	/**
+	 * @return 主键值, 没有主键字段或主键为0时返回null
+	 */
+	public Serializable getPrimaryKey(Object entity) {
+		if (primaryKey == null) {
+			return null;
+		}
+		Object result = get(primaryKey, entity);
+		//去除0的情况
+		if (result != null && "0".equals(result.toString())) {
+			return null;
+		}
+		return (Serializable) result;
+	}
+
+	/**
+	 * @return 是否设置了主键(没有主键字段时返回false)
+	 */
+	public boolean setPrimaryKey(Object entity, Serializable id) {
+		if (primaryKey == null) {
+			return false;
+		}
+		try {
+			primaryKey.set(entity, id);
+			return true;
+		} catch (IllegalAccessException e) {
+			throw new MyBatisShardsException(e);
+		} catch (IllegalArgumentException e) {
+			throw new MyBatisShardsException("Can not set primary key " + primaryKey.getName()
+					+ " of " + entity.getClass().getName() + " to " + id, e);
+		}
+	}
+
+	/**
+	 * @return 分区键值, 没有分区键字段时返回null
+	 */
+	public Serializable getShardKey(Object entity) {
+		return shardKey == null ? null : (Serializable) get(shardKey, entity);
+	}
+
+	private static Object get(Field field, Object entity) {
+		try {
+			return field.get(entity);
+		} catch (IllegalAccessException e) {
+			throw new MyBatisShardsException(e);
+		}
+	}
+}
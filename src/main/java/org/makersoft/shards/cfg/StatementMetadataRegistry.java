@@ -0,0 +1,148 @@
+/*
+ * @(#)StatementMetadataRegistry.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.cfg;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.session.Configuration;
+import org.makersoft.shards.annotation.Avg;
+import org.makersoft.shards.annotation.GroupBy;
+import org.makersoft.shards.annotation.KeyLookup;
+import org.makersoft.shards.annotation.OrderBy;
+import org.makersoft.shards.select.Grouping;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * statement --> 分区相关的元数据(例如{@link OrderBy}声明的排序键, {@link KeyLookup}声明的分区键,
+ * {@link Avg}声明的平均值聚合, {@link GroupBy}声明的分组).
+ * <p>
+ * 构建时扫描各分区{@link Configuration}中注册的Mapper接口, 之后的查询只需一次hash查找.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class StatementMetadataRegistry {
+
+	private final Map<String, List<Order>> orders = new ConcurrentHashMap<String, List<Order>>();
+
+	// statement --> 分区键在参数中的属性路径
+	private final Map<String, String> lookupKeys = new ConcurrentHashMap<String, String>();
+
+	private final Map<String, Grouping> groupings = new ConcurrentHashMap<String, Grouping>();
+
+	private final Set<String> avgStatements = Collections
+			.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+	public StatementMetadataRegistry() {
+	}
+
+	public StatementMetadataRegistry(List<Configuration> configurations) {
+		for (Configuration configuration : configurations) {
+			for (Class<?> mapper : configuration.getMapperRegistry().getMappers()) {
+				registerMapper(mapper);
+			}
+		}
+	}
+
+	/**
+	 * 扫描Mapper接口上的注解.
+	 */
+	public void registerMapper(Class<?> mapper) {
+		for (Method method : mapper.getMethods()) {
+			String statement = mapper.getName() + "." + method.getName();
+			OrderBy orderBy = method.getAnnotation(OrderBy.class);
+			if (orderBy != null) {
+				registerOrders(statement, Order.parse(orderBy.value()));
+			}
+			KeyLookup keyLookup = method.getAnnotation(KeyLookup.class);
+			if (keyLookup != null) {
+				registerKeyLookup(statement, keyLookup.value());
+			}
+			GroupBy groupBy = method.getAnnotation(GroupBy.class);
+			if (groupBy != null) {
+				registerGrouping(statement, Grouping.parse(groupBy.value(), groupBy.aggregates()));
+			}
+			if (method.isAnnotationPresent(Avg.class)) {
+				registerAvg(statement);
+			}
+		}
+	}
+
+	public void registerOrders(String statement, List<Order> orders) {
+		Assert.notNull(statement);
+		Assert.notNull(orders);
+		this.orders.put(statement, Collections.unmodifiableList(orders));
+	}
+
+	/**
+	 * @param keyPath
+	 *            分区键在参数中的属性路径, 空字符串表示参数本身
+	 */
+	public void registerKeyLookup(String statement, String keyPath) {
+		Assert.notNull(statement);
+		Assert.notNull(keyPath);
+		this.lookupKeys.put(statement, keyPath);
+	}
+
+	/**
+	 * @return 按分区键查询的statement的分区键路径, 不是按分区键查询则返回null
+	 */
+	public String getLookupKeyPath(String statement) {
+		return lookupKeys.get(statement);
+	}
+
+	/**
+	 * 注册(或覆盖{@link GroupBy}声明的)分组, 例如带有HAVING条件的分组.
+	 */
+	public void registerGrouping(String statement, Grouping grouping) {
+		Assert.notNull(statement);
+		Assert.notNull(grouping);
+		this.groupings.put(statement, grouping);
+	}
+
+	/**
+	 * @return statement声明的分组, 没有声明则返回null
+	 */
+	public Grouping getGrouping(String statement) {
+		return groupings.get(statement);
+	}
+
+	public void registerAvg(String statement) {
+		Assert.notNull(statement);
+		this.avgStatements.add(statement);
+	}
+
+	/**
+	 * @return statement是否为AVG聚合查询
+	 */
+	public boolean isAvg(String statement) {
+		return avgStatements.contains(statement);
+	}
+
+	/**
+	 * @return 所有AVG聚合查询
+	 */
+	public Set<String> getAvgStatements() {
+		return Collections.unmodifiableSet(avgStatements);
+	}
+
+	/**
+	 * @return statement声明的排序键, 没有声明则返回空列表
+	 */
+	public List<Order> getOrders(String statement) {
+		List<Order> result = orders.get(statement);
+		return result == null ? Collections.<Order> emptyList() : result;
+	}
+}
@@ -26,7 +26,7 @@ public class UUIDHexGenerator extends AbstractUUIDGenerator {
 	}
 
 	protected String format(short shortval) {
-		String formatted = Integer.toHexString(shortval);
+		String formatted = Integer.toHexString(shortval & 0xffff);
 		StringBuffer buf = new StringBuffer("0000");
 		buf.replace(4 - formatted.length(), 4, formatted);
 		return buf.toString();
@@ -0,0 +1,172 @@
+/*
+ * @(#)AvgRewriter.java 2026-10-19 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.plugin;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.session.Configuration;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.strategy.reduce.impl.AvgReducer;
+
+/**
+ * 将{@link org.makersoft.shards.annotation.Avg}声明的AVG查询改写为在各分区返回SUM和COUNT的查询.
+ * <p>
+ * 改写后的statement以<code>原statement + "!sumCount"</code>在构建ShardedSqlSessionFactory时注册到分区的
+ * {@link Configuration}, 查询时不再修改Configuration. 结果为包含{@link #SUM_COLUMN}与{@link #COUNT_COLUMN}两列的Map.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public final class AvgRewriter {
+
+	public static final String SUM_COLUMN = "shards_sum";
+
+	public static final String COUNT_COLUMN = "shards_count";
+
+	private static final String STATEMENT_SUFFIX = "!sumCount";
+
+	private static final Pattern AVG = Pattern.compile("(?<![\\w.])avg\\s*\\(",
+			Pattern.CASE_INSENSITIVE);
+
+	// AVG(...)之后的列别名
+	private static final Pattern ALIAS = Pattern.compile(
+			"^\\s+(?:as\\s+)?(?!from\\b)([a-z_][\\w]*|\"[^\"]*\"|`[^`]*`)", Pattern.CASE_INSENSITIVE);
+
+	private AvgRewriter() {
+	}
+
+	/**
+	 * 将SQL中唯一的AVG(expr) [[AS] alias]改写为SUM(expr) AS shards_sum, COUNT(expr) AS shards_count.
+	 * 
+	 * @throws MyBatisShardsException
+	 *             SQL中没有或有多个AVG时
+	 */
+	public static String rewrite(String sql) {
+		Matcher matcher = AVG.matcher(sql);
+		if (!matcher.find()) {
+			throw new MyBatisShardsException("No AVG(...) found in sql: " + sql);
+		}
+		int start = matcher.start();
+		int open = matcher.end() - 1;
+		int close = findClosingParenthesis(sql, open);
+		if (matcher.find(close)) {
+			throw new MyBatisShardsException("Only one AVG(...) is supported in sql: " + sql);
+		}
+
+		String expression = sql.substring(open + 1, close);
+		String rest = sql.substring(close + 1);
+		Matcher alias = ALIAS.matcher(rest);
+		if (alias.find()) {
+			rest = rest.substring(alias.end());
+		}
+
+		return sql.substring(0, start) + "SUM(" + expression + ") AS " + SUM_COLUMN + ", COUNT("
+				+ expression + ") AS " + COUNT_COLUMN + rest;
+	}
+
+	private static int findClosingParenthesis(String sql, int open) {
+		int depth = 0;
+		for (int i = open; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '(') {
+				depth++;
+			} else if (c == ')' && --depth == 0) {
+				return i;
+			}
+		}
+		throw new MyBatisShardsException("Unbalanced parentheses in sql: " + sql);
+	}
+
+	/**
+	 * @return 改写后的statement id
+	 */
+	public static String getSumCountStatement(String statement) {
+		return statement + STATEMENT_SUFFIX;
+	}
+
+	/**
+	 * 为configuration中的AVG statement注册改写后的statement, 在构建ShardedSqlSessionFactory时调用.
+	 * 
+	 * @param avgStatements
+	 *            {@link org.makersoft.shards.cfg.StatementMetadataRegistry#getAvgStatements()}
+	 * @throws MyBatisShardsException
+	 *             statement的结果类型不能表示平均值时
+	 */
+	public static void registerSumCountStatements(Configuration configuration,
+			Collection<String> avgStatements) {
+		for (String statement : avgStatements) {
+			String sumCountStatement = getSumCountStatement(statement);
+			if (!configuration.hasStatement(statement, false)
+					|| configuration.hasStatement(sumCountStatement, false)) {
+				continue;
+			}
+			MappedStatement ms = configuration.getMappedStatement(statement);
+			Class<?> resultType = getResultType(ms);
+			if (!AvgReducer.isSupportedResultType(resultType)) {
+				throw new MyBatisShardsException(String.format(
+						"AVG statement %s must return Double, Float, BigDecimal or Number, not %s",
+						statement, resultType.getName()));
+			}
+			configuration.addMappedStatement(buildSumCountStatement(ms, sumCountStatement));
+		}
+	}
+
+	/**
+	 * @return statement声明的结果类型, 没有声明则返回Object
+	 */
+	public static Class<?> getResultType(MappedStatement ms) {
+		List<ResultMap> resultMaps = ms.getResultMaps();
+		return resultMaps.isEmpty() || resultMaps.get(0).getType() == null ? Object.class
+				: resultMaps.get(0).getType();
+	}
+
+	private static MappedStatement buildSumCountStatement(final MappedStatement ms, String id) {
+		final Configuration configuration = ms.getConfiguration();
+		SqlSource sqlSource = new SqlSource() {
+			public BoundSql getBoundSql(Object parameterObject) {
+				BoundSql boundSql = ms.getBoundSql(parameterObject);
+				BoundSql newBoundSql = new BoundSql(configuration, rewrite(boundSql.getSql()),
+						boundSql.getParameterMappings(), boundSql.getParameterObject());
+				for (ParameterMapping mapping : boundSql.getParameterMappings()) {
+					String prop = mapping.getProperty();
+					if (boundSql.hasAdditionalParameter(prop)) {
+						newBoundSql.setAdditionalParameter(prop, boundSql.getAdditionalParameter(prop));
+					}
+				}
+				return newBoundSql;
+			}
+		};
+
+		ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", HashMap.class,
+				Collections.<ResultMapping> emptyList()).build();
+
+		MappedStatement.Builder builder = new MappedStatement.Builder(configuration, id,
+				sqlSource, ms.getSqlCommandType());
+		builder.resource(ms.getResource());
+		builder.parameterMap(ms.getParameterMap());
+		builder.resultMaps(Collections.singletonList(resultMap));
+		builder.fetchSize(ms.getFetchSize());
+		builder.timeout(ms.getTimeout());
+		builder.statementType(ms.getStatementType());
+		builder.resultSetType(ms.getResultSetType());
+		builder.databaseId(ms.getDatabaseId());
+		return builder.build();
+	}
+}
@@ -0,0 +1,70 @@
+/*
+ * @(#)StatementCancellation.java 2026-10-18 下午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.plugin;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * 一个分区任务正在执行的JDBC语句, 由{@link StatementOptionsInterceptor}在prepare之后登记,
+ * 其他线程可以通过{@link #cancel()}取消正在执行的语句.
+ * <p>
+ * 取消之后再prepare的语句会立即失败, 因此任务不会再向数据库发出新的查询.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class StatementCancellation {
+
+	private static final Log log = LogFactory.getLog(StatementCancellation.class);
+
+	private Statement statement;
+
+	private boolean cancelled;
+
+	/**
+	 * @return 已经取消时返回false
+	 */
+	synchronized boolean register(Statement statement) {
+		if (cancelled) {
+			return false;
+		}
+		this.statement = statement;
+		return true;
+	}
+
+	/**
+	 * 取消正在执行的语句.
+	 * 
+	 * @return 此前尚未取消时返回true
+	 */
+	public synchronized boolean cancel() {
+		if (cancelled) {
+			return false;
+		}
+		cancelled = true;
+		if (statement != null) {
+			try {
+				statement.cancel();
+			} catch (SQLException e) {
+				// 语句可能已经执行完毕并关闭
+				log.debug("Failed to cancel statement", e);
+			}
+			statement = null;
+		}
+		return true;
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * @(#)StatementOptions.java 2026-10-18 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.plugin;
+
+/**
+ * 当前线程上执行语句时使用的JDBC选项, 由{@link StatementOptionsInterceptor}在语句prepare之后应用.
+ * <p>
+ * 分区操作可能在访问策略的工作线程中执行, 因此需要在执行分区操作的线程上设置, 并在finally中清除.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class StatementOptions {
+
+	private static final ThreadLocal<StatementOptions> CURRENT = new ThreadLocal<StatementOptions>();
+
+	// 小于等于0时使用驱动或MappedStatement的默认值
+	private int fetchSize;
+
+	// 查询超时(秒), 小于等于0时使用MappedStatement的默认值
+	private int queryTimeout;
+
+	// 登记正在执行的语句, 以便其他线程取消
+	private StatementCancellation cancellation;
+
+	public StatementOptions() {
+	}
+
+	/**
+	 * 复制已有的选项, 用于在嵌套设置时保留外层的选项
+	 */
+	public StatementOptions(StatementOptions options) {
+		if (options != null) {
+			this.fetchSize = options.fetchSize;
+			this.queryTimeout = options.queryTimeout;
+			this.cancellation = options.cancellation;
+		}
+	}
+
+	public int getFetchSize() {
+		return fetchSize;
+	}
+
+	public StatementOptions setFetchSize(int fetchSize) {
+		this.fetchSize = fetchSize;
+		return this;
+	}
+
+	public int getQueryTimeout() {
+		return queryTimeout;
+	}
+
+	public StatementOptions setQueryTimeout(int queryTimeout) {
+		this.queryTimeout = queryTimeout;
+		return this;
+	}
+
+	public StatementCancellation getCancellation() {
+		return cancellation;
+	}
+
+	public StatementOptions setCancellation(StatementCancellation cancellation) {
+		this.cancellation = cancellation;
+		return this;
+	}
+
+	/**
+	 * @return 当前线程上的选项, 没有则返回null
+	 */
+	public static StatementOptions current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param options
+	 *            为null时清除当前线程上的选项
+	 */
+	public static void set(StatementOptions options) {
+		if (options == null) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(options);
+		}
+	}
+
+	public static void clear() {
+		CURRENT.remove();
+	}
+}
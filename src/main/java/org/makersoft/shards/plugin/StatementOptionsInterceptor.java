@@ -0,0 +1,78 @@
+/*
+ * @(#)StatementOptionsInterceptor.java 2026-10-18 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.plugin;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * 将当前线程上的{@link StatementOptions}应用到新创建的{@link Statement}上.
+ * <p>
+ * 由ShardedSqlSessionFactory自动注册到每个分区的{@link Configuration}, 无需在mybatis配置文件中声明.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+@Intercepts({ @Signature(type = StatementHandler.class, method = "prepare", args = { Connection.class }) })
+public class StatementOptionsInterceptor implements Interceptor {
+
+	@Override
+	public Object intercept(Invocation invocation) throws Throwable {
+		Statement statement = (Statement) invocation.proceed();
+
+		StatementOptions options = StatementOptions.current();
+		if (options != null) {
+			if (options.getFetchSize() > 0) {
+				statement.setFetchSize(options.getFetchSize());
+			}
+			// 只缩短MappedStatement上配置的超时, 不延长
+			int queryTimeout = options.getQueryTimeout();
+			if (queryTimeout > 0
+					&& (statement.getQueryTimeout() == 0 || statement.getQueryTimeout() > queryTimeout)) {
+				statement.setQueryTimeout(queryTimeout);
+			}
+			if (options.getCancellation() != null && !options.getCancellation().register(statement)) {
+				statement.close();
+				throw new SQLException("Shard operation was cancelled");
+			}
+		}
+		return statement;
+	}
+
+	@Override
+	public Object plugin(Object target) {
+		return Plugin.wrap(target, this);
+	}
+
+	@Override
+	public void setProperties(Properties properties) {
+	}
+
+	/**
+	 * 注册到configuration, 重复注册时忽略.
+	 */
+	public static void register(Configuration configuration) {
+		for (Interceptor interceptor : configuration.getInterceptors()) {
+			if (interceptor instanceof StatementOptionsInterceptor) {
+				return;
+			}
+		}
+		configuration.addInterceptor(new StatementOptionsInterceptor());
+	}
+}
@@ -0,0 +1,32 @@
+/*
+ * @(#)DuplicateKeyPolicy.java 2026-10-18 下午5:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select;
+
+/**
+ * 跨分区selectMap合并各分区结果时, 同一个key出现在多个分区中的处理方式.
+ * 
+ * @author Feng Kuok
+ */
+public enum DuplicateKeyPolicy {
+
+	/**
+	 * 后合并的分区覆盖先合并的分区, 与单库selectMap遇到重复key时的行为一致(默认).
+	 */
+	OVERWRITE,
+
+	/**
+	 * 保留先合并的分区中的值.
+	 */
+	KEEP_FIRST,
+
+	/**
+	 * 抛出异常.
+	 */
+	FAIL
+}
@@ -0,0 +1,189 @@
+/*
+ * @(#)Grouping.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 跨分区GROUP BY: 分组键, 各分区返回的部分聚合列及合并后的HAVING条件.
+ * <p>
+ * 各分区按相同的分组键执行GROUP BY, 合并时把分组键相同的行的聚合列再次聚合;
+ * AVG不能由各分区的平均值合并, 须同时返回SUM和COUNT列, 例如<code>avg(avgAge, sumAge, cnt)</code>.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public final class Grouping {
+
+	public enum Function {
+		SUM, COUNT, MIN, MAX, AVG
+	}
+
+	/**
+	 * 合并后的分组过滤条件
+	 */
+	public interface Having {
+
+		boolean accept(Object row);
+	}
+
+	/**
+	 * 聚合列: 结果对象的属性(或Map结果的key)及合并函数.
+	 */
+	public static final class Aggregate {
+
+		private static final Pattern EXPRESSION = Pattern
+				.compile("^\\s*(\\w+)\\s*\\(\\s*([\\w.]+)\\s*(?:,\\s*([\\w.]+)\\s*,\\s*([\\w.]+)\\s*)?\\)\\s*$");
+
+		private final Function function;
+
+		private final String property;
+
+		private final String sumProperty;
+
+		private final String countProperty;
+
+		private Aggregate(Function function, String property, String sumProperty,
+				String countProperty) {
+			Assert.notNull(function);
+			Assert.isTrue(property != null && property.length() > 0,
+					"aggregate property can not be empty");
+			this.function = function;
+			this.property = property;
+			this.sumProperty = sumProperty;
+			this.countProperty = countProperty;
+		}
+
+		public static Aggregate sum(String property) {
+			return new Aggregate(Function.SUM, property, null, null);
+		}
+
+		public static Aggregate count(String property) {
+			return new Aggregate(Function.COUNT, property, null, null);
+		}
+
+		public static Aggregate min(String property) {
+			return new Aggregate(Function.MIN, property, null, null);
+		}
+
+		public static Aggregate max(String property) {
+			return new Aggregate(Function.MAX, property, null, null);
+		}
+
+		/**
+		 * @param sumProperty
+		 *            各分区返回的SUM列
+		 * @param countProperty
+		 *            各分区返回的COUNT列
+		 */
+		public static Aggregate avg(String property, String sumProperty, String countProperty) {
+			Assert.notNull(sumProperty);
+			Assert.notNull(countProperty);
+			return new Aggregate(Function.AVG, property, sumProperty, countProperty);
+		}
+
+		/**
+		 * 解析形如"sum(total)"或"avg(avgAge, sumAge, cnt)"的聚合表达式.
+		 */
+		public static Aggregate parse(String expression) {
+			Assert.notNull(expression);
+			Matcher matcher = EXPRESSION.matcher(expression);
+			Assert.isTrue(matcher.matches(), "illegal aggregate expression: " + expression);
+
+			Function function;
+			try {
+				function = Function.valueOf(matcher.group(1).toUpperCase());
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException("unsupported aggregate function: " + expression);
+			}
+			Assert.isTrue((function == Function.AVG) == (matcher.group(3) != null),
+					"avg requires sum and count properties, other functions accept one property: "
+							+ expression);
+			return new Aggregate(function, matcher.group(2), matcher.group(3), matcher.group(4));
+		}
+
+		public Function getFunction() {
+			return function;
+		}
+
+		public String getProperty() {
+			return property;
+		}
+
+		public String getSumProperty() {
+			return sumProperty;
+		}
+
+		public String getCountProperty() {
+			return countProperty;
+		}
+
+		@Override
+		public String toString() {
+			return function.name().toLowerCase() + "(" + property
+					+ (function == Function.AVG ? ", " + sumProperty + ", " + countProperty : "")
+					+ ")";
+		}
+	}
+
+	private final List<String> keys;
+
+	private final List<Aggregate> aggregates;
+
+	private final Having having;
+
+	public Grouping(List<String> keys, List<Aggregate> aggregates) {
+		this(keys, aggregates, null);
+	}
+
+	/**
+	 * @param having
+	 *            合并后的分组过滤条件, 可以为null
+	 */
+	public Grouping(List<String> keys, List<Aggregate> aggregates, Having having) {
+		Assert.isTrue(keys != null && !keys.isEmpty(), "group keys can not be empty");
+		Assert.notNull(aggregates);
+		this.keys = Collections.unmodifiableList(Lists.newArrayList(keys));
+		this.aggregates = Collections.unmodifiableList(Lists.newArrayList(aggregates));
+		this.having = having;
+	}
+
+	public static Grouping parse(String[] keys, String[] aggregates) {
+		List<Aggregate> parsed = Lists.newArrayListWithCapacity(aggregates.length);
+		for (String aggregate : aggregates) {
+			parsed.add(Aggregate.parse(aggregate));
+		}
+		return new Grouping(Lists.newArrayList(keys), parsed);
+	}
+
+	/**
+	 * @return 带有HAVING条件的新Grouping
+	 */
+	public Grouping having(Having having) {
+		return new Grouping(keys, aggregates, having);
+	}
+
+	public List<String> getKeys() {
+		return keys;
+	}
+
+	public List<Aggregate> getAggregates() {
+		return aggregates;
+	}
+
+	public Having getHaving() {
+		return having;
+	}
+}
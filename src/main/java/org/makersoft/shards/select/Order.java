@@ -0,0 +1,94 @@
+/*
+ * @(#)Order.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select;
+
+import java.util.List;
+
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 排序键: 结果对象的属性及方向.
+ * 
+ * @author Feng Kuok
+ */
+public final class Order {
+
+	private final String property;
+
+	private final boolean ascending;
+
+	private Order(String property, boolean ascending) {
+		Assert.isTrue(property != null && property.length() > 0, "order property can not be empty");
+		this.property = property;
+		this.ascending = ascending;
+	}
+
+	public static Order asc(String property) {
+		return new Order(property, true);
+	}
+
+	public static Order desc(String property) {
+		return new Order(property, false);
+	}
+
+	/**
+	 * 解析形如"age desc"或"id"的排序表达式.
+	 */
+	public static Order parse(String expression) {
+		Assert.notNull(expression);
+		String[] tokens = expression.trim().split("\\s+");
+		Assert.isTrue(tokens.length == 1 || tokens.length == 2, "illegal order expression: "
+				+ expression);
+		if (tokens.length == 1 || "asc".equalsIgnoreCase(tokens[1])) {
+			return asc(tokens[0]);
+		}
+		Assert.isTrue("desc".equalsIgnoreCase(tokens[1]), "illegal order expression: "
+				+ expression);
+		return desc(tokens[0]);
+	}
+
+	public static List<Order> parse(String... expressions) {
+		List<Order> orders = Lists.newArrayListWithCapacity(expressions.length);
+		for (String expression : expressions) {
+			orders.add(parse(expression));
+		}
+		return orders;
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public boolean isAscending() {
+		return ascending;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof Order)) {
+			return false;
+		}
+		Order other = (Order) obj;
+		return ascending == other.ascending && property.equals(other.property);
+	}
+
+	@Override
+	public int hashCode() {
+		return property.hashCode() * 31 + (ascending ? 1 : 0);
+	}
+
+	@Override
+	public String toString() {
+		return property + (ascending ? " asc" : " desc");
+	}
+}
@@ -0,0 +1,46 @@
+/*
+ * @(#)Page.java 2026-10-18 下午7:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select;
+
+import java.util.List;
+
+/**
+ * 游标(keyset)分页查询的一页结果.
+ * 
+ * @author Feng Kuok
+ */
+public class Page<E> {
+
+	private final List<E> content;
+
+	private final String continuationToken;
+
+	public Page(List<E> content, String continuationToken) {
+		this.content = content;
+		this.continuationToken = continuationToken;
+	}
+
+	/**
+	 * @return 本页数据
+	 */
+	public List<E> getContent() {
+		return content;
+	}
+
+	/**
+	 * @return 查询下一页时传入的token, 没有下一页时为null
+	 */
+	public String getContinuationToken() {
+		return continuationToken;
+	}
+
+	public boolean hasNext() {
+		return continuationToken != null;
+	}
+}
@@ -8,6 +8,8 @@
  */
 package org.makersoft.shards.select;
 
+import java.util.List;
+
 import org.apache.ibatis.session.RowBounds;
 
 /**
@@ -22,4 +24,14 @@ public interface SelectFactory {
 	String getMapKey();
 	
 	RowBounds getRowBounds();
+	
+	/**
+	 * @return 排序键, 为空时各分区结果直接拼接
+	 */
+	List<Order> getOrders();
+	
+	/**
+	 * @return 跨分区合并的分组, 没有声明则返回null
+	 */
+	Grouping getGrouping();
 }
@@ -11,6 +11,8 @@ package org.makersoft.shards.select;
 import java.util.List;
 import java.util.Map;
 
+import org.makersoft.shards.ShardFuture;
+
 /**
  * 
  */
@@ -20,5 +22,11 @@ public interface ShardSelect {
 	
 	<K, V> Map<K, V> getResultMap();
 	
+	<K, V> Map<K, V> getResultMap(DuplicateKeyPolicy duplicateKeyPolicy);
+	
 	<T> T getSingleResult(); 
+	
+	<E> ShardFuture<List<E>> getResultListAsync();
+	
+	<T> ShardFuture<T> getSingleResultAsync();
 }
@@ -8,7 +8,12 @@
  */
 package org.makersoft.shards.select.impl;
 
+import java.util.Collections;
+import java.util.List;
+
 import org.apache.ibatis.session.RowBounds;
+import org.makersoft.shards.select.Grouping;
+import org.makersoft.shards.select.Order;
 import org.makersoft.shards.select.SelectFactory;
 
 /**
@@ -20,14 +25,27 @@ public class AdHocSelectFactoryImpl implements SelectFactory {
 	private final Object parameter;
 	private final String mapKey;
 	private final RowBounds rowBounds;
+	private final List<Order> orders;
+	private final Grouping grouping;
 
 	public AdHocSelectFactoryImpl(String statement, Object parameter,
 			String mapKey, RowBounds rowBounds) {
+		this(statement, parameter, mapKey, rowBounds, Collections.<Order> emptyList());
+	}
+
+	public AdHocSelectFactoryImpl(String statement, Object parameter,
+			String mapKey, RowBounds rowBounds, List<Order> orders) {
+		this(statement, parameter, mapKey, rowBounds, orders, null);
+	}
+
+	public AdHocSelectFactoryImpl(String statement, Object parameter,
+			String mapKey, RowBounds rowBounds, List<Order> orders, Grouping grouping) {
 		this.statement = statement;
 		this.parameter = parameter;
 		this.mapKey = mapKey;
 		this.rowBounds = rowBounds;
-
+		this.orders = orders == null ? Collections.<Order> emptyList() : orders;
+		this.grouping = grouping;
 	}
 
 	@Override
@@ -50,4 +68,14 @@ public class AdHocSelectFactoryImpl implements SelectFactory {
 		return rowBounds;
 	}
 
+	@Override
+	public List<Order> getOrders() {
+		return orders;
+	}
+
+	@Override
+	public Grouping getGrouping() {
+		return grouping;
+	}
+
 }
@@ -0,0 +1,241 @@
+/*
+ * @(#)KeysetShardSelect.java 2026-10-18 下午7:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select.impl;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.Page;
+import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+import org.makersoft.shards.utils.ParameterUtil;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * 跨分区游标(keyset)分页.
+ * <p>
+ * 每个虚拟分区记录上一页最后读取的排序键, 以参数{@value #SEEK}(属性名 --> 值的Map, 第一页为null)
+ * 传给SQL, 由SQL跳过该键及之前的行, 并以LIMIT pageSize读取. 各分区结果按排序键归并后取前pageSize行,
+ * 因此每页的代价为O(分区数 × pageSize), 与页的深度无关. 例如:
+ * </p>
+ * 
+ * <pre>
+ * SELECT * FROM ${prefix}user${suffix}
+ * &lt;if test="seek != null"&gt;
+ *   WHERE age &lt; #{seek.age} OR (age = #{seek.age} AND id &gt; #{seek.id})
+ * &lt;/if&gt;
+ * ORDER BY age DESC, id
+ * </pre>
+ * 
+ * 排序键的最后一列必须唯一, 否则相同键的行可能被跳过.
+ * continuation token没有签名, 客户端可以伪造seek位置, 访问控制不能依赖token.
+ * 
+ * @author Feng Kuok
+ */
+public class KeysetShardSelect {
+
+	public static final String SEEK = "seek";
+
+	private final List<Shard> shards;
+
+	private final String statement;
+
+	private final Object parameter;
+
+	private final OrderComparator comparator;
+
+	private final KeysetToken token;
+
+	private final int pageSize;
+
+	private final ShardAccessStrategy shardAccessStrategy;
+
+	public KeysetShardSelect(List<Shard> shards, String statement, Object parameter,
+			List<Order> orders, String continuationToken, int pageSize,
+			ShardAccessStrategy shardAccessStrategy) {
+		Assert.isTrue(pageSize > 0, "page size must be positive");
+		Assert.isTrue(orders != null && !orders.isEmpty(),
+				"keyset pagination requires order keys, declare them with @OrderBy");
+		Assert.isTrue(!(parameter instanceof String || parameter instanceof Number
+				|| parameter instanceof Boolean || parameter instanceof Character),
+				"keyset pagination requires a Map or bean parameter");
+
+		this.shards = shards;
+		this.statement = statement;
+		this.parameter = parameter;
+		this.comparator = new OrderComparator(orders);
+		if (continuationToken == null) {
+			this.token = new KeysetToken(statement);
+		} else {
+			Set<Integer> shardIds = Sets.newHashSet();
+			for (Shard shard : shards) {
+				for (ShardId shardId : shard.getShardIds()) {
+					shardIds.add(shardId.getId());
+				}
+			}
+			this.token = KeysetToken.decode(continuationToken, statement, shardIds, orders.size());
+		}
+		this.pageSize = pageSize;
+		this.shardAccessStrategy = shardAccessStrategy;
+	}
+
+	public <E> Page<E> getPage() {
+		final RowBounds shardRowBounds = new RowBounds(RowBounds.NO_ROW_OFFSET, pageSize);
+		ShardOperation<ShardRows> shardOp = new ShardOperation<ShardRows>() {
+			public ShardRows execute(SqlSession session, ShardId shardId) {
+				if (token.isExhausted(shardId.getId())) {
+					return null;
+				}
+				List<Object> rows = session.selectList(statement,
+						buildParameter(shardId, token.getLastKeys(shardId.getId())), shardRowBounds);
+				return new ShardRows(shardId, rows);
+			}
+
+			public String getOperationName() {
+				return "selectPage()";
+			}
+		};
+
+		ShardRowsExitStrategy exitStrategy = new ShardRowsExitStrategy();
+		shardAccessStrategy.apply(shards, shardOp, exitStrategy, null);
+
+		return this.<E> merge(exitStrategy.results);
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private Map<String, Object> buildParameter(ShardId shardId, Object[] lastKeys) {
+		Map<String, Object> params = Maps.newHashMap();
+		if (parameter instanceof Map) {
+			// 复制一份, 各分区线程不共享调用者的Map
+			params.putAll((Map) parameter);
+			params.put("prefix", shardId.getPrefix());
+			params.put("suffix", shardId.getSuffix());
+		} else if (parameter != null) {
+			params.putAll((Map) ParameterUtil.resolve(parameter, shardId));
+		} else {
+			params.put("prefix", shardId.getPrefix());
+			params.put("suffix", shardId.getSuffix());
+		}
+
+		Map<String, Object> seek = null;
+		if (lastKeys != null) {
+			seek = Maps.newLinkedHashMap();
+			Order[] orders = comparator.getOrders();
+			for (int i = 0; i < orders.length; i++) {
+				seek.put(orders[i].getProperty(), lastKeys[i]);
+			}
+		}
+		params.put(SEEK, seek);
+		return params;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <E> Page<E> merge(List<ShardRows> results) {
+		List<E> content = Lists.newArrayListWithCapacity(pageSize);
+
+		PriorityQueue<ShardRows> heap = new PriorityQueue<ShardRows>(Math.max(1, results.size()));
+		for (ShardRows result : results) {
+			if (result.advance()) {
+				heap.add(result);
+			}
+		}
+		while (content.size() < pageSize && !heap.isEmpty()) {
+			ShardRows result = heap.poll();
+			content.add((E) result.current);
+			result.consumed++;
+			if (result.advance()) {
+				heap.add(result);
+			}
+		}
+
+		for (ShardRows result : results) {
+			int shardId = result.shardId.getId();
+			if (result.consumed == result.rows.size() && result.rows.size() < pageSize) {
+				token.setExhausted(shardId);
+			} else if (result.consumed > 0) {
+				token.setLastKeys(shardId, comparator.extractKeys(result.rows
+						.get(result.consumed - 1)));
+			}
+		}
+
+		boolean hasNext = false;
+		for (Shard shard : shards) {
+			for (ShardId shardId : shard.getShardIds()) {
+				hasNext |= !token.isExhausted(shardId.getId());
+			}
+		}
+		return new Page<E>(content, hasNext ? token.encode() : null);
+	}
+
+	/**
+	 * 单个虚拟分区的查询结果及归并时的游标.
+	 */
+	private final class ShardRows implements Comparable<ShardRows> {
+
+		private final ShardId shardId;
+
+		private final List<Object> rows;
+
+		private int consumed;
+
+		private Object current;
+
+		private Object[] keys;
+
+		ShardRows(ShardId shardId, List<Object> rows) {
+			this.shardId = shardId;
+			this.rows = rows == null ? Collections.emptyList() : rows;
+		}
+
+		boolean advance() {
+			if (consumed >= rows.size()) {
+				return false;
+			}
+			current = rows.get(consumed);
+			keys = comparator.extractKeys(current);
+			return true;
+		}
+
+		@Override
+		public int compareTo(ShardRows other) {
+			return comparator.compareKeys(keys, other.keys);
+		}
+	}
+
+	private static final class ShardRowsExitStrategy implements ExitStrategy<ShardRows> {
+
+		private final List<ShardRows> results = Lists.newArrayList();
+
+		@Override
+		public synchronized boolean addResult(ShardRows result, Shard shard) {
+			if (result != null) {
+				results.add(result);
+			}
+			return false;
+		}
+
+		@Override
+		public ShardRows compileResults(ExitOperationsCollector exitOperationsCollector) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,267 @@
+/*
+ * @(#)KeysetToken.java 2026-10-18 下午7:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.utils.Maps;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * 游标分页的continuation token: 记录每个虚拟分区上最后读取的排序键, 以及已经读完的分区.
+ * <p>
+ * token对调用者不透明, 以十六进制字符串传递. 由于token来自客户端, 这里不使用java序列化,
+ * 只支持常见的排序键类型: String, 数值类型, Boolean, {@link Date}及其java.sql子类.
+ * </p>
+ * <p>
+ * token没有签名, 是不可信的输入: 解码时校验分区id和排序键个数, 但客户端仍然可以伪造任意的seek位置.
+ * seek只决定从哪里继续读取, 数据的访问控制必须由语句本身的条件保证, 不能依赖token.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+class KeysetToken {
+
+	private static final int VERSION = 1;
+
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private static final byte NULL = 0, STRING = 1, INTEGER = 2, LONG = 3, SHORT = 4, BYTE = 5,
+			DOUBLE = 6, FLOAT = 7, BOOLEAN = 8, BIG_DECIMAL = 9, BIG_INTEGER = 10, DATE = 11,
+			SQL_DATE = 12, SQL_TIME = 13, SQL_TIMESTAMP = 14;
+
+	private final String statement;
+
+	// 虚拟分区id --> 最后读取的排序键
+	private final Map<Integer, Object[]> lastKeys = Maps.newHashMap();
+
+	private final Set<Integer> exhausted = Sets.newHashSet();
+
+	KeysetToken(String statement) {
+		this.statement = statement;
+	}
+
+	Object[] getLastKeys(int shardId) {
+		return lastKeys.get(shardId);
+	}
+
+	void setLastKeys(int shardId, Object[] keys) {
+		lastKeys.put(shardId, keys);
+	}
+
+	boolean isExhausted(int shardId) {
+		return exhausted.contains(shardId);
+	}
+
+	void setExhausted(int shardId) {
+		exhausted.add(shardId);
+		lastKeys.remove(shardId);
+	}
+
+	String encode() {
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeByte(VERSION);
+			out.writeUTF(statement);
+			out.writeInt(exhausted.size());
+			for (Integer shardId : exhausted) {
+				out.writeInt(shardId);
+			}
+			out.writeInt(lastKeys.size());
+			for (Map.Entry<Integer, Object[]> entry : lastKeys.entrySet()) {
+				out.writeInt(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				for (Object value : entry.getValue()) {
+					writeValue(out, value);
+				}
+			}
+			out.close();
+
+			byte[] data = bytes.toByteArray();
+			char[] chars = new char[data.length * 2];
+			for (int i = 0; i < data.length; i++) {
+				chars[i * 2] = HEX[(data[i] >> 4) & 0xf];
+				chars[i * 2 + 1] = HEX[data[i] & 0xf];
+			}
+			return new String(chars);
+		} catch (IOException e) {
+			throw new MyBatisShardsException("Can not encode continuation token", e);
+		}
+	}
+
+	/**
+	 * @param shardIds
+	 *            当前所有虚拟分区的id, token中出现其他id时拒绝
+	 * @param keyCount
+	 *            排序键的个数
+	 */
+	static KeysetToken decode(String token, String statement, Set<Integer> shardIds, int keyCount) {
+		try {
+			if (token.length() % 2 != 0) {
+				throw new IllegalArgumentException("odd length");
+			}
+			byte[] data = new byte[token.length() / 2];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (byte) Integer.parseInt(token.substring(i * 2, i * 2 + 2), 16);
+			}
+
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+			if (in.readByte() != VERSION) {
+				throw new IllegalArgumentException("unknown version");
+			}
+			String tokenStatement = in.readUTF();
+			if (!statement.equals(tokenStatement)) {
+				throw new IllegalArgumentException("token was issued for statement "
+						+ tokenStatement);
+			}
+
+			// 计数来自客户端, 先校验再使用, 防止构造超大的循环或数组
+			KeysetToken keysetToken = new KeysetToken(statement);
+			for (int i = readCount(in, shardIds.size(), "exhausted shards"); i > 0; i--) {
+				keysetToken.exhausted.add(readShardId(in, shardIds));
+			}
+			for (int i = readCount(in, shardIds.size(), "shards"); i > 0; i--) {
+				int shardId = readShardId(in, shardIds);
+				int length = in.readInt();
+				if (length != keyCount) {
+					throw new IllegalArgumentException("expected " + keyCount + " order keys but got "
+							+ length);
+				}
+				Object[] keys = new Object[length];
+				for (int j = 0; j < keys.length; j++) {
+					keys[j] = readValue(in);
+				}
+				keysetToken.lastKeys.put(shardId, keys);
+			}
+			return keysetToken;
+		} catch (Exception e) {
+			throw new MyBatisShardsException("Illegal continuation token for statement {"
+					+ statement + "}", e);
+		}
+	}
+
+	private static int readCount(DataInputStream in, int max, String name) throws IOException {
+		int count = in.readInt();
+		if (count < 0 || count > max) {
+			throw new IllegalArgumentException("illegal number of " + name + ": " + count);
+		}
+		return count;
+	}
+
+	private static int readShardId(DataInputStream in, Set<Integer> shardIds) throws IOException {
+		int shardId = in.readInt();
+		if (!shardIds.contains(shardId)) {
+			throw new IllegalArgumentException("unknown shard id " + shardId);
+		}
+		return shardId;
+	}
+
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(NULL);
+		} else if (value instanceof String) {
+			out.writeByte(STRING);
+			out.writeUTF((String) value);
+		} else if (value instanceof Integer) {
+			out.writeByte(INTEGER);
+			out.writeInt((Integer) value);
+		} else if (value instanceof Long) {
+			out.writeByte(LONG);
+			out.writeLong((Long) value);
+		} else if (value instanceof Short) {
+			out.writeByte(SHORT);
+			out.writeShort((Short) value);
+		} else if (value instanceof Byte) {
+			out.writeByte(BYTE);
+			out.writeByte((Byte) value);
+		} else if (value instanceof Double) {
+			out.writeByte(DOUBLE);
+			out.writeDouble((Double) value);
+		} else if (value instanceof Float) {
+			out.writeByte(FLOAT);
+			out.writeFloat((Float) value);
+		} else if (value instanceof Boolean) {
+			out.writeByte(BOOLEAN);
+			out.writeBoolean((Boolean) value);
+		} else if (value instanceof BigDecimal) {
+			out.writeByte(BIG_DECIMAL);
+			out.writeUTF(value.toString());
+		} else if (value instanceof BigInteger) {
+			out.writeByte(BIG_INTEGER);
+			out.writeUTF(value.toString());
+		} else if (value instanceof java.sql.Timestamp) {
+			out.writeByte(SQL_TIMESTAMP);
+			out.writeLong(((java.sql.Timestamp) value).getTime());
+			out.writeInt(((java.sql.Timestamp) value).getNanos());
+		} else if (value instanceof java.sql.Date) {
+			out.writeByte(SQL_DATE);
+			out.writeLong(((Date) value).getTime());
+		} else if (value instanceof java.sql.Time) {
+			out.writeByte(SQL_TIME);
+			out.writeLong(((Date) value).getTime());
+		} else if (value instanceof Date) {
+			out.writeByte(DATE);
+			out.writeLong(((Date) value).getTime());
+		} else {
+			throw new MyBatisShardsException("Order value of type " + value.getClass().getName()
+					+ " is not supported by keyset pagination");
+		}
+	}
+
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+		case NULL:
+			return null;
+		case STRING:
+			return in.readUTF();
+		case INTEGER:
+			return in.readInt();
+		case LONG:
+			return in.readLong();
+		case SHORT:
+			return in.readShort();
+		case BYTE:
+			return in.readByte();
+		case DOUBLE:
+			return in.readDouble();
+		case FLOAT:
+			return in.readFloat();
+		case BOOLEAN:
+			return in.readBoolean();
+		case BIG_DECIMAL:
+			return new BigDecimal(in.readUTF());
+		case BIG_INTEGER:
+			return new BigInteger(in.readUTF());
+		case DATE:
+			return new Date(in.readLong());
+		case SQL_DATE:
+			return new java.sql.Date(in.readLong());
+		case SQL_TIME:
+			return new java.sql.Time(in.readLong());
+		case SQL_TIMESTAMP:
+			java.sql.Timestamp timestamp = new java.sql.Timestamp(in.readLong());
+			timestamp.setNanos(in.readInt());
+			return timestamp;
+		default:
+			throw new IllegalArgumentException("unknown value type " + type);
+		}
+	}
+}
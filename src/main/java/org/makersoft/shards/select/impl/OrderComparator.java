@@ -0,0 +1,94 @@
+/*
+ * @(#)OrderComparator.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.select.impl;
+
+import java.util.Comparator;
+import java.util.List;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.PropertyAccessor;
+
+/**
+ * 按{@link Order}比较结果对象.
+ * <p>
+ * 排序键通过{@link #extractKeys(Object)}一次性取出, 归并时只比较取出的键, 避免每次比较都反射取值;
+ * 取值使用缓存的{@link PropertyAccessor}.
+ * null值视为最小(与MySQL一致).
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class OrderComparator implements Comparator<Object> {
+
+	private final Order[] orders;
+
+	private final PropertyAccessor[] accessors;
+
+	public OrderComparator(List<Order> orders) {
+		Assert.isTrue(orders != null && !orders.isEmpty(), "orders can not be empty");
+		this.orders = orders.toArray(new Order[orders.size()]);
+		this.accessors = new PropertyAccessor[this.orders.length];
+		for (int i = 0; i < this.orders.length; i++) {
+			accessors[i] = PropertyAccessor.forPath(this.orders[i].getProperty());
+		}
+	}
+
+	public Order[] getOrders() {
+		return orders.clone();
+	}
+
+	/**
+	 * @return 结果对象的排序键, 顺序与orders一致
+	 */
+	public Object[] extractKeys(Object row) {
+		Object[] keys = new Object[orders.length];
+		if (row == null) {
+			return keys;
+		}
+		for (int i = 0; i < orders.length; i++) {
+			keys[i] = accessors[i].getValue(row);
+		}
+		return keys;
+	}
+
+	public int compareKeys(Object[] keys1, Object[] keys2) {
+		for (int i = 0; i < orders.length; i++) {
+			int result = compareValue(keys1[i], keys2[i]);
+			if (result != 0) {
+				return orders[i].isAscending() ? result : -result;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public int compare(Object row1, Object row2) {
+		return compareKeys(extractKeys(row1), extractKeys(row2));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	static int compareValue(Object value1, Object value2) {
+		if (value1 == value2) {
+			return 0;
+		}
+		if (value1 == null) {
+			return -1;
+		}
+		if (value2 == null) {
+			return 1;
+		}
+		if (!(value1 instanceof Comparable)) {
+			throw new MyBatisShardsException("Order value of type " + value1.getClass().getName()
+					+ " is not comparable");
+		}
+		return ((Comparable) value1).compareTo(value2);
+	}
+}
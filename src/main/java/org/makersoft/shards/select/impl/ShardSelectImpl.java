@@ -8,21 +8,37 @@
  */
 package org.makersoft.shards.select.impl;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.exceptions.TooManyResultsException;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardFutureCallback;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
 import org.makersoft.shards.select.SelectFactory;
 import org.makersoft.shards.select.ShardSelect;
+import org.makersoft.shards.strategy.access.ShardAccessStrategies;
 import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.SettableShardFuture;
 import org.makersoft.shards.strategy.exit.impl.ConcatenateListsExitStrategy;
 import org.makersoft.shards.strategy.exit.impl.ExitOperationsSelectCollector;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.MergeMapsExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.OrderedMergeExitStrategy;
 import org.makersoft.shards.strategy.exit.impl.SelectOneExitStrategy;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.strategy.reduce.IncrementalShardReduceStrategy;
 import org.makersoft.shards.strategy.reduce.ShardReduceStrategy;
 import org.makersoft.shards.utils.ParameterUtil;
+import org.makersoft.shards.utils.PropertyAccessor;
 
 /**
  * 
@@ -42,65 +58,242 @@ public class ShardSelectImpl implements ShardSelect {
 	 * development.
 	 */
 	private final ExitOperationsSelectCollector selectCollector;
+	
+	private final ShardReduceStrategy shardReduceStrategy;
 
 	public ShardSelectImpl(List<Shard> shards, SelectFactory selectFactory,
 			ShardAccessStrategy shardAccessStrategy, ShardReduceStrategy shardReduceStrategy) {
 		this.shards = shards;
 		this.selectFactory = selectFactory;
 		this.shardAccessStrategy = shardAccessStrategy;
+		this.shardReduceStrategy = shardReduceStrategy;
 		this.selectCollector = new ExitOperationsSelectCollector(selectFactory, shardReduceStrategy);
 	}
 
+	/**
+	 * 分页下推: 只涉及一个虚拟分区时RowBounds原样下推, 合并后不再截取;
+	 * 涉及多个虚拟分区时每个分区只取前offset + limit行(由PaginationInterceptor改写为LIMIT),
+	 * 合并之后再截取请求的窗口.
+	 */
 	@Override
 	@SuppressWarnings("unchecked")
 	public <E> List<E> getResultList() {
-		ShardOperation<List<Object>> shardOp = new ShardOperation<List<Object>>() {
+		RowBounds windowRowBounds = windowRowBounds();
+		return (List<E>) shardAccessStrategy.apply(shards, resultListOperation(),
+				resultListExitStrategy(windowRowBounds), new ExitOperationsSelectCollector(
+						selectFactory, shardReduceStrategy, windowRowBounds));
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <E> ShardFuture<List<E>> getResultListAsync() {
+		RowBounds windowRowBounds = windowRowBounds();
+		return (ShardFuture) ShardAccessStrategies.applyAsync(shardAccessStrategy, shards,
+				resultListOperation(), resultListExitStrategy(windowRowBounds),
+				new ExitOperationsSelectCollector(selectFactory, shardReduceStrategy,
+						windowRowBounds));
+	}
+
+	/**
+	 * @return 每个分区读取的行范围
+	 */
+	private RowBounds shardRowBounds() {
+		RowBounds rowBounds = selectFactory.getRowBounds();
+		if (!isPaged(rowBounds)) {
+			return RowBounds.DEFAULT;
+		}
+		if (isSingleShardId()) {
+			return rowBounds;
+		}
+		// 分组合并之前无法确定前offset + limit个分组
+		return selectFactory.getGrouping() == null ? topRowBounds(rowBounds) : RowBounds.DEFAULT;
+	}
+
+	/**
+	 * @return 合并之后截取的窗口
+	 */
+	private RowBounds windowRowBounds() {
+		RowBounds rowBounds = selectFactory.getRowBounds();
+		if (!isPaged(rowBounds) || isSingleShardId()) {
+			return RowBounds.DEFAULT;
+		}
+		return rowBounds;
+	}
+
+	private ShardOperation<List<Object>> resultListOperation() {
+		final RowBounds shardRowBounds = shardRowBounds();
+		return new ShardOperation<List<Object>>() {
 			public List<Object> execute(SqlSession session, ShardId shardId) {
 
 				return session.selectList(selectFactory.getStatement(),
 						ParameterUtil.resolve(selectFactory.getParameter(), shardId), 
-						selectFactory.getRowBounds());
+						shardRowBounds);
 			}
 
 			public String getOperationName() {
 				return "getResultList()";
 			}
 		};
+	}
 
-		return (List<E>) shardAccessStrategy.apply(shards, shardOp,
-				new ConcatenateListsExitStrategy(), selectCollector);
+	/**
+	 * 归约策略支持增量归约时在各分区返回时归约; 声明了排序键时对各分区已排序的结果做归并, 否则直接拼接.
+	 * 声明了分组时直接拼接, 由ExitOperationsSelectCollector合并分组并排序.
+	 */
+	private ExitStrategy<List<Object>> resultListExitStrategy(RowBounds windowRowBounds) {
+		if (selectFactory.getGrouping() != null) {
+			return new ConcatenateListsExitStrategy();
+		}
+		IncrementalReducer<?> reducer = getIncrementalReducer();
+		if (reducer != null) {
+			return IncrementalReduceExitStrategy.of(reducer, windowRowBounds);
+		}
+		return selectFactory.getOrders().isEmpty() ? new ConcatenateListsExitStrategy()
+				: new OrderedMergeExitStrategy(selectFactory.getOrders(), windowRowBounds);
+	}
+
+	/**
+	 * @return statement的增量归约, 不支持时返回null
+	 */
+	private IncrementalReducer<?> getIncrementalReducer() {
+		if (shardReduceStrategy instanceof IncrementalShardReduceStrategy) {
+			return ((IncrementalShardReduceStrategy) shardReduceStrategy).getIncrementalReducer(
+					selectFactory.getStatement(), selectFactory.getParameter(),
+					selectFactory.getRowBounds());
+		}
+		return null;
+	}
+
+	private boolean isSingleShardId() {
+		return shards.size() == 1 && shards.get(0).getShardIds().size() == 1;
+	}
+
+	private static boolean isPaged(RowBounds rowBounds) {
+		return rowBounds != null
+				&& (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT);
+	}
+
+	/**
+	 * @return 每个分区需要读取的前offset + limit行
+	 */
+	private static RowBounds topRowBounds(RowBounds rowBounds) {
+		if (rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+			return RowBounds.DEFAULT;
+		}
+		long rows = (long) rowBounds.getOffset() + rowBounds.getLimit();
+		return new RowBounds(RowBounds.NO_ROW_OFFSET, rows > Integer.MAX_VALUE ? Integer.MAX_VALUE
+				: (int) rows);
 	}
 
 	@Override
 	public <K, V> Map<K, V> getResultMap() {
-//		ShardOperation<Map<K, V>> shardOp = new ShardOperation<Map<K, V>>() {
-//			public Map<K, V> execute(SqlSession session, ShardId shardId) {
-//
-//				return session.selectMap(selectFactory.getStatement(), 
-//						ParameterUtil.resolve(selectFactory.getParameter(), shardId), 
-//						selectFactory.getMapKey());
-//			}
-//
-//			public String getOperationName() {
-//				return "getResultMap()";
-//			}
-//		};
-		
-		throw new UnsupportedOperationException();
-		
-//		return (T) shardAccessStrategy.apply(
-//				shards,
-//				shardOp,
-//				new SelectOneExitStrategy(),
-//				new ExitOperationsSelectMapCollector(selectFactory
-//						.getStatement()));
+		return this.<K, V> getResultMap(DuplicateKeyPolicy.OVERWRITE);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <K, V> Map<K, V> getResultMap(DuplicateKeyPolicy duplicateKeyPolicy) {
+		RowBounds rowBounds = selectFactory.getRowBounds();
+		// 每个分区只需读取前offset + limit行, 合并之后再截取
+		final RowBounds shardRowBounds = isPaged(rowBounds) ? topRowBounds(rowBounds)
+				: RowBounds.DEFAULT;
+
+		final MergeMapsExitStrategy exitStrategy = new MergeMapsExitStrategy(duplicateKeyPolicy,
+				rowBounds);
+		final PropertyAccessor keyAccessor = PropertyAccessor.forPath(selectFactory.getMapKey());
+		ShardOperation<Map<Object, Object>> shardOp = new ShardOperation<Map<Object, Object>>() {
+			public Map<Object, Object> execute(SqlSession session, ShardId shardId) {
+				// 在工作线程中按行顺序构建分区内的Map; SqlSession.selectMap返回HashMap, 会丢失ORDER BY的顺序
+				List<Object> rows = session.selectList(selectFactory.getStatement(),
+						ParameterUtil.resolve(selectFactory.getParameter(), shardId),
+						shardRowBounds);
+				Map<Object, Object> map = new LinkedHashMap<Object, Object>(rows.size() * 4 / 3 + 1);
+				for (Object row : rows) {
+					map.put(keyAccessor.getValue(row), row);
+				}
+				return exitStrategy.partialMap(shardId, map);
+			}
+
+			public String getOperationName() {
+				return "getResultMap()";
+			}
+		};
+
+		return (Map<K, V>) shardAccessStrategy.apply(shards, shardOp, exitStrategy, null);
 	}
 
 	@Override
 	@SuppressWarnings("unchecked")
 	public <T> T getSingleResult() {
+		IncrementalReducer<?> reducer = getIncrementalReducer();
+		if (reducer != null) {
+			return (T) singleResult(shardAccessStrategy.apply(shards,
+					singleResultAsListOperation(),
+					IncrementalReduceExitStrategy.of(reducer, RowBounds.DEFAULT), null));
+		}
+
+		return (T) shardAccessStrategy.apply(
+				shards,
+				singleResultOperation(),
+				new SelectOneExitStrategy(), selectCollector);
+	}
+
+	@Override
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public <T> ShardFuture<T> getSingleResultAsync() {
+		IncrementalReducer<?> reducer = getIncrementalReducer();
+		if (reducer != null) {
+			final SettableShardFuture<Object> future = new SettableShardFuture<Object>();
+			ShardAccessStrategies.applyAsync(shardAccessStrategy, shards,
+					singleResultAsListOperation(),
+					IncrementalReduceExitStrategy.of(reducer, RowBounds.DEFAULT), null)
+					.addCallback(new ShardFutureCallback<List<Object>>() {
+						public void onSuccess(List<Object> result) {
+							try {
+								future.set(singleResult(result));
+							} catch (RuntimeException e) {
+								future.setException(e);
+							}
+						}
+
+						public void onFailure(Throwable cause) {
+							future.setException(cause);
+						}
+					});
+			return (ShardFuture) future;
+		}
 
-		ShardOperation<Object> shardOp = new ShardOperation<Object>() {
+		return (ShardFuture) ShardAccessStrategies.applyAsync(shardAccessStrategy, shards,
+				singleResultOperation(), new SelectOneExitStrategy(), selectCollector);
+	}
+
+	private static Object singleResult(List<Object> list) {
+		if (list.size() == 1) {
+			return list.get(0);
+		} else if (list.size() > 1) {
+			throw new TooManyResultsException(
+					"Expected one result (or null) to be returned by selectOne(), but found: "
+							+ list.size());
+		}
+		return null;
+	}
+
+	private ShardOperation<List<Object>> singleResultAsListOperation() {
+		final ShardOperation<Object> singleResultOperation = singleResultOperation();
+		return new ShardOperation<List<Object>>() {
+			public List<Object> execute(SqlSession session, ShardId shardId) {
+				Object result = singleResultOperation.execute(session, shardId);
+				return result == null ? Collections.emptyList() : Collections.singletonList(result);
+			}
+
+			public String getOperationName() {
+				return singleResultOperation.getOperationName();
+			}
+		};
+	}
+
+	private ShardOperation<Object> singleResultOperation() {
+		return new ShardOperation<Object>() {
 			public Object execute(SqlSession session, ShardId shardId) {
 				
 				return session.selectOne(selectFactory.getStatement(),
@@ -111,11 +304,6 @@ public class ShardSelectImpl implements ShardSelect {
 				return "getSingleResult()";
 			}
 		};
-
-		return (T) shardAccessStrategy.apply(
-				shards,
-				shardOp,
-				new SelectOneExitStrategy(), selectCollector);
 	}
 
 }
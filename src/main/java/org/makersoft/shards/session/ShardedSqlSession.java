@@ -8,8 +8,20 @@
  */
 package org.makersoft.shards.session;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.makersoft.shards.ShardFuture;
 import org.makersoft.shards.ShardId;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.Page;
 
 /**
  * 
@@ -22,5 +34,116 @@ public interface ShardedSqlSession extends SqlSession{
 	
 	ShardId getShardIdForStatementOrParameter(String statement, Object parameter);
 	
+	/**
+	 * 批量插入: 为每个对象选择分区后按分区分组, 每个分区使用一个BATCH执行器提交.
+	 * 各分区独立提交, 跨分区不是原子的: 某个分区失败时抛出异常, 但其他分区已提交的数据不会回滚.
+	 * 
+	 * @return 各分区的批量执行结果
+	 */
+	List<BatchResult> insertBatch(String statement, Collection<?> parameters);
+	
+	/**
+	 * 批量更新, 分组方式与{@link #update(String, Object)}的路由规则相同.
+	 */
+	List<BatchResult> updateBatch(String statement, Collection<?> parameters);
+	
+	/**
+	 * 批量删除, 分组方式与{@link #delete(String, Object)}的路由规则相同.
+	 */
+	List<BatchResult> deleteBatch(String statement, Collection<?> parameters);
+	
+	/**
+	 * 流式查询: 各分区的结果逐行交给handler, 不在内存中汇总.
+	 * <p>
+	 * handler总是在调用线程中执行. 并行访问时各分区线程通过有界队列把行交给调用线程,
+	 * 队列容量为{@link org.makersoft.shards.strategy.exit.impl.StreamingResultHandlerExitStrategy#DEFAULT_QUEUE_CAPACITY},
+	 * 队列满时分区线程暂停读取.
+	 * rowBounds在全局范围内生效, handler调用{@link ResultContext#stop()}后所有分区停止读取.
+	 * </p>
+	 * 
+	 * @param fetchSize
+	 *            JDBC fetch size, 小于等于0时使用驱动的默认值; 与队列容量无关
+	 */
+	void select(String statement, Object parameter, RowBounds rowBounds, int fetchSize,
+			ResultHandler handler);
+	
+	/**
+	 * 流式查询, 同{@link #select(String, Object, RowBounds, int, ResultHandler)}, 并指定队列容量.
+	 * 
+	 * @param fetchSize
+	 *            JDBC fetch size, 小于等于0时使用驱动的默认值
+	 * @param queueCapacity
+	 *            分区线程与调用线程之间的队列容量(行数), 决定内存中缓冲的行数上限; 小于等于0时使用默认值
+	 */
+	void select(String statement, Object parameter, RowBounds rowBounds, int fetchSize,
+			int queueCapacity, ResultHandler handler);
+	
+	/**
+	 * 跨分区selectMap, 各分区按返回的行顺序构建Map后按虚拟分区id顺序合并, 结果保持这一顺序.
+	 * rowBounds按虚拟分区id、分区内的行顺序截取, 语句没有ORDER BY时返回的窗口不稳定, 且不是全局排序的.
+	 * 
+	 * @param duplicateKeyPolicy
+	 *            同一个key出现在多个分区中时的处理方式, 其他selectMap重载使用{@link DuplicateKeyPolicy#OVERWRITE}
+	 */
+	<K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey,
+			RowBounds rowBounds, DuplicateKeyPolicy duplicateKeyPolicy);
+	
+	/**
+	 * 跨分区有序查询: 各分区按SQL中的ORDER BY返回已排序的结果, 按orders做k路归并.
+	 * 其他selectList重载使用Mapper方法上{@link org.makersoft.shards.annotation.OrderBy}声明的排序键.
+	 * 
+	 * @param orders
+	 *            排序键, 须与SQL中的ORDER BY一致
+	 */
+	<E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds,
+			List<Order> orders);
+	
+	/**
+	 * 跨分区游标(keyset)分页, 排序键取自Mapper方法上的{@link org.makersoft.shards.annotation.OrderBy}.
+	 * 每个分区上一页最后读取的排序键以参数seek传给SQL, 写法见
+	 * {@link org.makersoft.shards.select.impl.KeysetShardSelect}.
+	 * 
+	 * @param continuationToken
+	 *            上一页返回的{@link Page#getContinuationToken()}, 第一页传null.
+	 *            token没有签名, 应视为不可信的客户端输入: 格式错误时抛出异常, 但客户端可以伪造seek位置
+	 */
+	<E> Page<E> selectPage(String statement, Object parameter, String continuationToken,
+			int pageSize);
+	
+	<E> Page<E> selectPage(String statement, Object parameter, List<Order> orders,
+			String continuationToken, int pageSize);
+	
+	/**
+	 * 异步查询: 路由与{@link #selectOne(String, Object)}相同, 各分区任务提交给访问策略后立即返回.
+	 * <p>
+	 * 只有支持异步的访问策略(例如{@link org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy})
+	 * 才会异步执行; 读写事务中连接绑定在调用线程上, 会在调用线程中同步执行并返回已完成的future.
+	 * </p>
+	 */
+	<T> ShardFuture<T> selectOneAsync(String statement, Object parameter);
+	
+	/**
+	 * 异步查询, 路由与合并方式与{@link #selectList(String, Object)}相同.
+	 * 
+	 * @see #selectOneAsync(String, Object)
+	 */
+	<E> ShardFuture<List<E>> selectListAsync(String statement, Object parameter);
+	
+	<E> ShardFuture<List<E>> selectListAsync(String statement, Object parameter, RowBounds rowBounds);
+	
+	/**
+	 * 异步更新, 返回各分区影响行数之和.
+	 * 
+	 * @see #selectOneAsync(String, Object)
+	 */
+	ShardFuture<Integer> updateAsync(String statement, Object parameter);
+	
+	/**
+	 * 异步删除, 返回各分区影响行数之和.
+	 * 
+	 * @see #selectOneAsync(String, Object)
+	 */
+	ShardFuture<Integer> deleteAsync(String statement, Object parameter);
+	
 //	void lockShard();
 }
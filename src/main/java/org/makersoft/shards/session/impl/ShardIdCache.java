@@ -0,0 +1,140 @@
+/*
+ * @(#)ShardIdCache.java 2026-10-18 下午8:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.session.impl;
+
+import java.io.Serializable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 主键 --> 虚拟分区 缓存.
+ * <p>
+ * 以statement的namespace区分不同的表, 插入时和按主键读取命中单个分区时写入, 删除时移除.
+ * 容量有上限, 分段加锁, 每段按LRU淘汰. 数据迁移到其他分区后需重建ShardedSqlSessionFactory.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class ShardIdCache {
+
+	public static final int DEFAULT_CAPACITY = 10000;
+
+	private static final int SEGMENTS = 16;
+
+	private final Segment[] segments;
+
+	public ShardIdCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity
+	 *            最多缓存的主键数, 为0时不缓存
+	 */
+	public ShardIdCache(int capacity) {
+		Assert.isTrue(capacity >= 0, "capacity can not be negative");
+		this.segments = new Segment[capacity == 0 ? 0 : SEGMENTS];
+		for (int i = 0; i < segments.length; i++) {
+			segments[i] = new Segment(Math.max(1, capacity / SEGMENTS));
+		}
+	}
+
+	public ShardId get(String statement, Serializable id) {
+		if (segments.length == 0 || id == null) {
+			return null;
+		}
+		Key key = new Key(namespaceOf(statement), id);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			return segment.get(key);
+		}
+	}
+
+	public void put(String statement, Serializable id, ShardId shardId) {
+		if (segments.length == 0 || id == null || shardId == null) {
+			return;
+		}
+		Key key = new Key(namespaceOf(statement), id);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.put(key, shardId);
+		}
+	}
+
+	public void remove(String statement, Serializable id) {
+		if (segments.length == 0 || id == null) {
+			return;
+		}
+		Key key = new Key(namespaceOf(statement), id);
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.remove(key);
+		}
+	}
+
+	private Segment segmentFor(Key key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (segments.length - 1)];
+	}
+
+	private static String namespaceOf(String statement) {
+		int index = statement.lastIndexOf('.');
+		return index < 0 ? statement : statement.substring(0, index);
+	}
+
+	private static final class Key {
+
+		private final String namespace;
+
+		private final Serializable id;
+
+		Key(String namespace, Serializable id) {
+			this.namespace = namespace;
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+			Key other = (Key) obj;
+			return namespace.equals(other.namespace) && id.equals(other.id);
+		}
+
+		@Override
+		public int hashCode() {
+			return namespace.hashCode() * 31 + id.hashCode();
+		}
+	}
+
+	private static final class Segment extends LinkedHashMap<Key, ShardId> {
+
+		private static final long serialVersionUID = -3187454727374431906L;
+
+		private final int capacity;
+
+		Segment(int capacity) {
+			super(16, 0.75f, true);
+			this.capacity = capacity;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, ShardId> eldest) {
+			return size() > capacity;
+		}
+	}
+}
@@ -0,0 +1,147 @@
+/*
+ * @(#)ShardTopology.java 2026-10-18 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.session.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 虚拟分区 --> 物理分区 拓扑表.
+ * <p>
+ * 虚拟分区id是从0开始的稠密整数, 因此用数组代替HashMap: 虚拟分区id --> 物理分区下标 --> {@link Shard}.
+ * 多个虚拟分区去重时使用位图, 命中单个或全部物理分区时直接返回预先构建好的只读列表, 热点路径上没有额外的对象分配.
+ * </p>
+ *
+ * @author Feng Kuok
+ */
+public class ShardTopology {
+
+	private static final int NOT_MAPPED = -1;
+
+	// 全部物理分区(只读)
+	private final List<Shard> shards;
+
+	private final Shard[] physicalShards;
+
+	// 下标为虚拟分区id, 值为物理分区下标
+	private final int[] virtualToPhysical;
+
+	// 物理分区下标 --> 仅包含该物理分区的只读列表
+	private final List<List<Shard>> singletonShardLists;
+
+	public ShardTopology(List<Shard> shards) {
+		Assert.notNull(shards);
+
+		this.physicalShards = shards.toArray(new Shard[shards.size()]);
+		this.shards = Collections.unmodifiableList(Arrays.asList(physicalShards.clone()));
+
+		int maxShardId = NOT_MAPPED;
+		for (Shard shard : physicalShards) {
+			for (ShardId shardId : shard.getShardIds()) {
+				Assert.isTrue(shardId.getId() >= 0, "shard id can not be negative: " + shardId);
+				maxShardId = Math.max(maxShardId, shardId.getId());
+			}
+		}
+
+		this.virtualToPhysical = new int[maxShardId + 1];
+		Arrays.fill(virtualToPhysical, NOT_MAPPED);
+
+		this.singletonShardLists = Lists.newArrayListWithCapacity(physicalShards.length);
+		for (int i = 0; i < physicalShards.length; i++) {
+			for (ShardId shardId : physicalShards[i].getShardIds()) {
+				virtualToPhysical[shardId.getId()] = i;
+			}
+			singletonShardLists.add(Collections.singletonList(physicalShards[i]));
+		}
+	}
+
+	/**
+	 * @return 全部物理分区, 只读
+	 */
+	public List<Shard> getShards() {
+		return shards;
+	}
+
+	/**
+	 * @return 虚拟分区所在的物理分区
+	 */
+	public Shard getShard(ShardId shardId) {
+		return physicalShards[physicalIndexOf(shardId)];
+	}
+
+	/**
+	 * 将虚拟分区转化为去重后的物理分区.
+	 *
+	 * @return 只读列表; 若命中全部物理分区则返回{@link #getShards()}本身
+	 */
+	public List<Shard> getShards(List<ShardId> shardIds) {
+		if (shardIds == null || shardIds.isEmpty()) {
+			return Collections.emptyList();
+		}
+		if (shardIds.size() == 1) {
+			return physicalShards.length == 1 ? shards : singletonShardLists
+					.get(physicalIndexOf(shardIds.get(0)));
+		}
+
+		if (physicalShards.length <= Long.SIZE) {
+			long bits = 0L;
+			for (int i = 0; i < shardIds.size(); i++) {
+				bits |= 1L << physicalIndexOf(shardIds.get(i));
+			}
+			int count = Long.bitCount(bits);
+			if (count == physicalShards.length) {
+				return shards;
+			}
+			if (count == 1) {
+				return singletonShardLists.get(Long.numberOfTrailingZeros(bits));
+			}
+
+			List<Shard> result = Lists.newArrayListWithCapacity(count);
+			for (int i = 0; i < physicalShards.length; i++) {
+				if ((bits & (1L << i)) != 0) {
+					result.add(physicalShards[i]);
+				}
+			}
+			return Collections.unmodifiableList(result);
+		}
+
+		BitSet bits = new BitSet(physicalShards.length);
+		for (int i = 0; i < shardIds.size(); i++) {
+			bits.set(physicalIndexOf(shardIds.get(i)));
+		}
+		int count = bits.cardinality();
+		if (count == physicalShards.length) {
+			return shards;
+		}
+
+		List<Shard> result = Lists.newArrayListWithCapacity(count);
+		for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+			result.add(physicalShards[i]);
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	private int physicalIndexOf(ShardId shardId) {
+		int id = shardId.getId();
+		int index = (id >= 0 && id < virtualToPhysical.length) ? virtualToPhysical[id] : NOT_MAPPED;
+		if (index == NOT_MAPPED) {
+			throw new MyBatisShardsException("Not found shard id {" + id + "}");
+		}
+		return index;
+	}
+
+}
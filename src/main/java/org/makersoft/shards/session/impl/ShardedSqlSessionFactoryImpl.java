@@ -23,7 +23,10 @@ import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.TransactionIsolationLevel;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.cfg.MyBatisConfigurationsWrapper;
+import org.makersoft.shards.cfg.StatementMetadataRegistry;
 import org.makersoft.shards.id.IdGenerator;
+import org.makersoft.shards.plugin.AvgRewriter;
+import org.makersoft.shards.plugin.StatementOptionsInterceptor;
 import org.makersoft.shards.session.ShardedSqlSession;
 import org.makersoft.shards.session.ShardedSqlSessionFactory;
 import org.makersoft.shards.strategy.ShardStrategy;
@@ -80,6 +83,7 @@ public class ShardedSqlSessionFactoryImpl implements ShardedSqlSessionFactory {
 		for (Map.Entry<SqlSessionFactory, Set<ShardId>> entry : sessionFactoryShardIdMap.entrySet()) {
 			SqlSessionFactory implementor = entry.getKey();
 			Assert.notNull(implementor);
+			StatementOptionsInterceptor.register(implementor.getConfiguration());
 			
 			Set<ShardId> shardIdSet = entry.getValue();
 			Assert.notNull(shardIdSet);
@@ -104,6 +108,17 @@ public class ShardedSqlSessionFactoryImpl implements ShardedSqlSessionFactory {
 	    }
 		
 		this.controlSqlSessionFactory = controlSqlSessionFactoryToSet;
+
+		// @Avg声明的statement在构建时注册改写后的SUM/COUNT statement, 查询时不再修改Configuration
+		List<Configuration> configurations = Lists.newArrayList();
+		for (SqlSessionFactory sqlSessionFactory : sqlSessionFactories) {
+			configurations.add(sqlSessionFactory.getConfiguration());
+		}
+		Set<String> avgStatements = new StatementMetadataRegistry(configurations)
+				.getAvgStatements();
+		for (Configuration configuration : configurations) {
+			AvgRewriter.registerSumCountStatements(configuration, avgStatements);
+		}
 		
 		this.shardStrategy = shardStrategyFactory.newShardStrategy(shardIds);
 		
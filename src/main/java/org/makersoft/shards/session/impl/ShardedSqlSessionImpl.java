@@ -10,6 +10,7 @@ package org.makersoft.shards.session.impl;
 
 import java.io.Serializable;
 import java.sql.Connection;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -23,27 +24,48 @@ import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.apache.ibatis.session.*;
 import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardFutureCallback;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.ShardImpl;
 import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.cfg.EntityMetadata;
+import org.makersoft.shards.cfg.StatementMetadataRegistry;
 import org.makersoft.shards.id.IdGenerator;
+import org.makersoft.shards.plugin.AvgRewriter;
+import org.makersoft.shards.plugin.StatementOptions;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.Page;
+import org.makersoft.shards.select.SelectFactory;
+import org.makersoft.shards.select.ShardSelect;
+import org.makersoft.shards.select.impl.KeysetShardSelect;
 import org.makersoft.shards.select.impl.AdHocSelectFactoryImpl;
 import org.makersoft.shards.select.impl.ShardSelectImpl;
 import org.makersoft.shards.session.ShardIdResolver;
 import org.makersoft.shards.session.ShardedSqlSession;
 import org.makersoft.shards.session.ShardedSqlSessionFactory;
 import org.makersoft.shards.strategy.ShardStrategy;
+import org.makersoft.shards.strategy.access.ShardAccessStrategies;
+import org.makersoft.shards.strategy.access.impl.SettableShardFuture;
+import org.makersoft.shards.strategy.exit.impl.ConcatenateBatchResultsExitStrategy;
 import org.makersoft.shards.strategy.exit.impl.ExitOperationsSelectCollector;
 import org.makersoft.shards.strategy.exit.impl.FirstNonNullResultExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.StreamingResultHandlerExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.SumRowCountsExitStrategy;
+import org.makersoft.shards.strategy.reduce.impl.AvgReducer;
 import org.makersoft.shards.strategy.resolution.ShardResolutionStrategyData;
 import org.makersoft.shards.strategy.resolution.ShardResolutionStrategyDataImpl;
 import org.makersoft.shards.utils.Assert;
 import org.makersoft.shards.utils.Lists;
 import org.makersoft.shards.utils.Maps;
 import org.makersoft.shards.utils.ParameterUtil;
-import org.makersoft.shards.utils.Sets;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * @author Feng Kuok
@@ -58,18 +80,35 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	private final List<Shard> shards;
 
-	private final Map<ShardId, Shard> shardIdsToShards;
+	private final ShardTopology shardTopology;
+
+	private final StatementRoutingIndex statementRoutingIndex;
+
+	private final StatementMetadataRegistry statementMetadataRegistry;
 
 	private final ShardStrategy shardStrategy;
 
+	private final ShardIdCache shardIdCache;
+
 	// constructor
 	public ShardedSqlSessionImpl(ShardedSqlSessionFactory shardedSqlSessionFactory,
 			ShardStrategy shardStrategy) {
+		this(shardedSqlSessionFactory, shardStrategy, new ShardIdCache());
+	}
+
+	public ShardedSqlSessionImpl(ShardedSqlSessionFactory shardedSqlSessionFactory,
+			ShardStrategy shardStrategy, ShardIdCache shardIdCache) {
+		Assert.notNull(shardIdCache);
 		this.shardedSqlSessionFactory = shardedSqlSessionFactory;
-		this.shards = buildShardListFromSqlSessionFactoryShardIdMap(
-				shardedSqlSessionFactory.getSqlSessionFactoryShardIdMap(), this);
-		this.shardIdsToShards = buildShardIdsToShardsMap();
+		this.shardTopology = new ShardTopology(buildShardListFromSqlSessionFactoryShardIdMap(
+				shardedSqlSessionFactory.getSqlSessionFactoryShardIdMap(), this));
+		// 与拓扑表命中全部物理分区时返回的是同一个列表, 路由索引据此走快速路径
+		this.shards = shardTopology.getShards();
+		this.statementRoutingIndex = new StatementRoutingIndex(shards);
+		this.statementMetadataRegistry = new StatementMetadataRegistry(
+				buildConfigurationList(shards));
 		this.shardStrategy = shardStrategy;
+		this.shardIdCache = shardIdCache;
 	}
 
 	static List<Shard> buildShardListFromSqlSessionFactoryShardIdMap(
@@ -86,44 +125,22 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 		return list;
 	}
 
-	private Map<ShardId, Shard> buildShardIdsToShardsMap() {
-		Map<ShardId, Shard> map = Maps.newHashMap();
+	private static List<Configuration> buildConfigurationList(List<Shard> shards) {
+		List<Configuration> configurations = Lists.newArrayListWithCapacity(shards.size());
 		for (Shard shard : shards) {
-			for (ShardId shardId : shard.getShardIds()) {
-				map.put(shardId, shard);
+			if (shard.getSqlSessionFactory() != null) {
+				configurations.add(shard.getSqlSessionFactory().getConfiguration());
 			}
 		}
-		return map;
+		return configurations;
 	}
 
-	/**
-	 * 
-	 */
 	private Shard getShardForStatement(String statement, List<Shard> shardsToConsider) {
-		//TODO(fengkuok) 此处可做本地缓存
-		
-		// 首先查找主分区？如果没有再找其他分区？
-		for (Shard shard : shardsToConsider) {
-			if (shard.getSqlSessionFactory() != null
-					&& shard.getMappedStatementNames().contains(statement)) {
-				return shard;
-			}
-		}
-		return null;
+		return statementRoutingIndex.getShard(statement, shardsToConsider);
 	}
 	
 	private List<Shard> getShardsForStatement(String statement, List<Shard> shardsToConsider) {
-		//TODO(fengkuok) 此处可做本地缓存
-		
-		List<Shard> shards = Lists.newArrayList(); 
-		// 首先查找主分区？如果没有再找其他分区？
-		for (Shard shard : shardsToConsider) {
-			if (shard.getSqlSessionFactory() != null
-					&& shard.getMappedStatementNames().contains(statement)) {
-				shards.add(shard);
-			}
-		}
-		return shards;
+		return statementRoutingIndex.getShards(statement, shardsToConsider);
 	}
 
 	private SqlSession getSqlSessionForStatement(String statement, List<Shard> shardsToConsider) {
@@ -138,21 +155,14 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 	 * 将虚拟分区转化为物理分区
 	 */
 	private List<Shard> shardIdListToShardList(List<ShardId> shardIds) {
-		Set<Shard> shards = Sets.newHashSet();
-		if(shardIds != null && !shardIds.isEmpty()){
-			for (ShardId shardId : shardIds) {
-				shards.add(shardIdsToShards.get(shardId));
-			}
-		}
-		
-		return Lists.newArrayList(shards);
+		return shardTopology.getShards(shardIds);
 	}
 
 	/**
 	 * @return 所有物理分区
 	 */
 	public List<Shard> getShards() {
-		return Collections.unmodifiableList(shards);
+		return shards;
 	}
 
 	@Override
@@ -168,7 +178,6 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 	@Override
 	public ShardId getShardIdForStatementOrParameter(String statement, Object parameter,
 			List<Shard> shardsToConsider) {
-		// TODO(fengkuok) optimize this by keeping an identity map of objects to shardId
 		Shard shard = getShardForStatement(statement, shardsToConsider);
 		if (shard == null) {
 			return null;
@@ -212,62 +221,288 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	List<ShardId> selectShardIdsFromShardResolutionStrategyData(ShardResolutionStrategyData srsd) {
 		IdGenerator idGenerator = shardedSqlSessionFactory.getIdGenerator();
-		if ((idGenerator != null) && (srsd.getId() != null)) {
-			//
+		// 按分区键查询(@KeyLookup)时键值不是生成的主键, 不能由IdGenerator解析, 交给分区解析策略
+		if ((idGenerator != null) && (srsd.getId() != null)
+				&& statementMetadataRegistry.getLookupKeyPath(srsd.getStatement()) == null) {
 			return Collections.singletonList(idGenerator.extractShardId(srsd.getId()));
 		}
+		// 先查主键 --> 分区缓存, 命中时不再执行分区解析策略
+		if (srsd.getId() != null) {
+			ShardId cachedShardId = shardIdCache.get(srsd.getStatement(),
+					this.extractCacheableId(srsd.getStatement(), srsd.getParameter()));
+			if (cachedShardId != null) {
+				return Collections.singletonList(cachedShardId);
+			}
+		}
 		return shardStrategy.getShardResolutionStrategy()
 				.selectShardIdsFromShardResolutionStrategyData(srsd);
 	}
 
-	private <T> T applyGetOperation(ShardOperation<T> shardOp, ShardResolutionStrategyData srsd) {
+	private <T> T applyGetOperation(final ShardOperation<T> shardOp,
+			final ShardResolutionStrategyData srsd) {
 		List<ShardId> shardIds = selectShardIdsFromShardResolutionStrategyData(srsd);
+
 		return shardStrategy.getShardAccessStrategy().<T> apply(
 				this.shardIdListToShardList(shardIds),
-				shardOp,
+				this.cacheShardIdOnResult(shardOp, srsd, shardIds),
 				new FirstNonNullResultExitStrategy<T>(),
-				new ExitOperationsSelectCollector(new AdHocSelectFactoryImpl(
-						srsd.getStatement(), srsd.getParameter(), null, RowBounds.DEFAULT), shardStrategy.getShardReduceStrategy()));
+				this.newGetOperationCollector(srsd));
 	}
 
-	// implements from SqlSession
+	private <T> ShardFuture<T> applyGetOperationAsync(ShardOperation<T> shardOp,
+			ShardResolutionStrategyData srsd) {
+		List<ShardId> shardIds = selectShardIdsFromShardResolutionStrategyData(srsd);
 
-	@Override
-	public <T> T selectOne(String statement) {
-		return this.<T> selectOne(statement, null);
+		return ShardAccessStrategies.applyAsync(shardStrategy.getShardAccessStrategy(),
+				this.shardIdListToShardList(shardIds),
+				this.cacheShardIdOnResult(shardOp, srsd, shardIds),
+				new FirstNonNullResultExitStrategy<T>(),
+				this.newGetOperationCollector(srsd));
 	}
 
-	@Override
-	public <T> T selectOne(final String statement, final Object parameter) {
-		if (parameter != null && (statement.endsWith("getById") || statement.endsWith("findById"))) {
-			ShardOperation<T> shardOp = new ShardOperation<T>() {
+	private ExitOperationsSelectCollector newGetOperationCollector(ShardResolutionStrategyData srsd) {
+		return new ExitOperationsSelectCollector(new AdHocSelectFactoryImpl(srsd.getStatement(),
+				srsd.getParameter(), null, RowBounds.DEFAULT),
+				shardStrategy.getShardReduceStrategy());
+	}
+
+	private <T> ShardOperation<T> cacheShardIdOnResult(final ShardOperation<T> shardOp,
+			final ShardResolutionStrategyData srsd, List<ShardId> shardIds) {
+		ShardOperation<T> operation = shardOp;
+		final Serializable id = this.extractCacheableId(srsd.getStatement(), srsd.getParameter());
+		if (shardIds.size() != 1 && id != null) {
+			// 记录命中的分区, 同一主键的后续操作直接路由
+			operation = new ShardOperation<T>() {
 				public T execute(SqlSession session, ShardId shardId) {
-					return session.<T> selectOne(statement,
-							ParameterUtil.resolve(parameter, shardId));
+					T result = shardOp.execute(session, shardId);
+					if (result != null) {
+						shardIdCache.put(srsd.getStatement(), id, shardId);
+					}
+					return result;
 				}
 
 				public String getOperationName() {
-					return "selectOne(String statement, Object parameter)";
+					return shardOp.getOperationName();
 				}
 			};
+		}
+		return operation;
+	}
+
+	// implements from SqlSession
+
+	@Override
+	public <T> T selectOne(String statement) {
+		return this.<T> selectOne(statement, null);
+	}
+
+	/**
+	 * @return {@link org.makersoft.shards.annotation.KeyLookup}声明的分区键, 不是按分区键查询则返回null
+	 */
+	private Serializable extractLookupKey(String statement, Object parameter) {
+		String keyPath = statementMetadataRegistry.getLookupKeyPath(statement);
+		if (keyPath == null || parameter == null) {
+			return null;
+		}
+		Object key;
+		if (keyPath.length() > 0) {
+			key = SystemMetaObject.forObject(parameter).getValue(keyPath);
+		} else {
+			EntityMetadata metadata = EntityMetadata.forClass(parameter.getClass());
+			key = metadata.hasShardKey() ? metadata.getShardKey(parameter) : parameter;
+		}
+		return key instanceof Serializable ? (Serializable) key : null;
+	}
+
+	private static boolean isGetByIdStatement(String statement) {
+		return statement.endsWith("getById") || statement.endsWith("findById");
+	}
+
+	/**
+	 * 主键 --> 分区缓存只用于按主键定位的操作: 按主键查询(getById, findById), 以及参数为带
+	 * {@link org.makersoft.shards.annotation.PrimaryKey}实体的写操作. 其他statement的String/Number参数
+	 * 不一定是主键, 按分区键查询的键值也不是主键, 都不能使用缓存.
+	 * 
+	 * @return 可用于缓存的主键, 其他操作返回null
+	 */
+	private Serializable extractCacheableId(String statement, Object parameter) {
+		if (parameter == null || statementMetadataRegistry.getLookupKeyPath(statement) != null) {
+			return null;
+		}
+		if (isGetByIdStatement(statement)) {
+			return this.extractId(parameter);
+		}
+		return ParameterUtil.extractPrimaryKey(parameter);
+	}
+
+	/**
+	 * 写入成功后记录主键所在分区; 在事务中则等到事务提交后再记录, 回滚的写入不会留在缓存中.
+	 */
+	private void cacheShardIdsAfterCommit(final String statement,
+			final Map<Serializable, ShardId> shardIds) {
+		if (shardIds.isEmpty()) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager
+					.registerSynchronization(new TransactionSynchronizationAdapter() {
+						@Override
+						public void afterCommit() {
+							putShardIds(statement, shardIds);
+						}
+					});
+		} else {
+			putShardIds(statement, shardIds);
+		}
+	}
+
+	private void putShardIds(String statement, Map<Serializable, ShardId> shardIds) {
+		for (Map.Entry<Serializable, ShardId> entry : shardIds.entrySet()) {
+			shardIdCache.put(statement, entry.getKey(), entry.getValue());
+		}
+	}
+
+	/**
+	 * @return 按分区键或主键查询单个对象时的路由数据, 其他查询返回null
+	 */
+	private ShardResolutionStrategyData getPointLookupData(String statement, Object parameter) {
+		Serializable lookupKey = this.extractLookupKey(statement, parameter);
+		if (lookupKey != null) {
+			return new ShardResolutionStrategyDataImpl(statement, parameter, lookupKey);
+		}
+
+		if (parameter != null && isGetByIdStatement(statement)) {
 			Serializable id = this.extractId(parameter);
 
 			Assert.notNull(id, "When get entity by Id, Id can not be null");
 
-			return this.<T> applyGetOperation(shardOp, new ShardResolutionStrategyDataImpl(
-					statement, parameter, id));
+			return new ShardResolutionStrategyDataImpl(statement, parameter, id);
 		}
+		return null;
+	}
+
+	private <T> ShardOperation<T> selectOneOperation(final String statement, final Object parameter) {
+		return new ShardOperation<T>() {
+			public T execute(SqlSession session, ShardId shardId) {
+				return session.<T> selectOne(statement,
+						ParameterUtil.resolve(parameter, shardId));
+			}
 
-		// 从Resolution策略获取
+			public String getOperationName() {
+				return "selectOne(String statement, Object parameter)";
+			}
+		};
+	}
+
+	/**
+	 * {@link org.makersoft.shards.annotation.Avg}声明的statement: 各分区执行改写后的SUM/COUNT查询
+	 */
+	private ShardOperation<List<Object>> sumCountOperation(final String statement,
+			final Object parameter) {
+		return new ShardOperation<List<Object>>() {
+			public List<Object> execute(SqlSession session, ShardId shardId) {
+				return Collections.singletonList(session.selectOne(
+						AvgRewriter.getSumCountStatement(statement),
+						ParameterUtil.resolve(parameter, shardId)));
+			}
+
+			public String getOperationName() {
+				return "selectAvg(String statement, Object parameter)";
+			}
+		};
+	}
+
+	/**
+	 * @return 按statement声明的结果类型返回平均值的reducer
+	 */
+	private AvgReducer newAvgReducer(String statement) {
+		Shard shard = getShardForStatement(statement, shards);
+		Assert.notNull(shard, "No shard contains statement " + statement);
+		return new AvgReducer(AvgRewriter.getResultType(shard.getSqlSessionFactory()
+				.getConfiguration().getMappedStatement(statement)));
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> T selectAvg(String statement, Object parameter) {
 		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
 				statement, parameter);
 
 		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
 
-		return new ShardSelectImpl(potentialShards, new AdHocSelectFactoryImpl(statement,
-				parameter, null, null), shardStrategy.getShardAccessStrategy(),
-				shardStrategy.getShardReduceStrategy()).<T> getSingleResult();
+		return (T) shardStrategy.getShardAccessStrategy()
+				.apply(potentialShards, this.sumCountOperation(statement, parameter),
+						IncrementalReduceExitStrategy.of(this.newAvgReducer(statement),
+								RowBounds.DEFAULT), null).get(0);
+	}
+
+	private <T> ShardFuture<T> selectAvgAsync(String statement, Object parameter) {
+		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
+				statement, parameter);
+
+		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
+
+		final SettableShardFuture<T> future = new SettableShardFuture<T>();
+		ShardAccessStrategies.applyAsync(shardStrategy.getShardAccessStrategy(),
+				potentialShards, this.sumCountOperation(statement, parameter),
+				IncrementalReduceExitStrategy.of(this.newAvgReducer(statement), RowBounds.DEFAULT),
+				null)
+				.addCallback(new ShardFutureCallback<List<Object>>() {
+					@SuppressWarnings("unchecked")
+					public void onSuccess(List<Object> result) {
+						future.set((T) result.get(0));
+					}
+
+					public void onFailure(Throwable cause) {
+						future.setException(cause);
+					}
+				});
+		return future;
+	}
+
+	@Override
+	public <T> T selectOne(final String statement, final Object parameter) {
+		if (statementMetadataRegistry.isAvg(statement)) {
+			return this.<T> selectAvg(statement, parameter);
+		}
 
+		ShardResolutionStrategyData srsd = this.getPointLookupData(statement, parameter);
+		if (srsd != null) {
+			return this.<T> applyGetOperation(this.<T> selectOneOperation(statement, parameter),
+					srsd);
+		}
+
+		return this.newShardSelect(statement, parameter, null, null).<T> getSingleResult();
+	}
+
+	@Override
+	public <T> ShardFuture<T> selectOneAsync(String statement, Object parameter) {
+		if (statementMetadataRegistry.isAvg(statement)) {
+			return this.<T> selectAvgAsync(statement, parameter);
+		}
+
+		ShardResolutionStrategyData srsd = this.getPointLookupData(statement, parameter);
+		if (srsd != null) {
+			return this.<T> applyGetOperationAsync(
+					this.<T> selectOneOperation(statement, parameter), srsd);
+		}
+
+		return this.newShardSelect(statement, parameter, null, null).<T> getSingleResultAsync();
+	}
+
+	/**
+	 * 从Resolution策略获取分区
+	 */
+	private ShardSelect newShardSelect(String statement, Object parameter, RowBounds rowBounds,
+			List<Order> orders) {
+		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
+				statement, parameter);
+
+		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
+
+		SelectFactory selectFactory = new AdHocSelectFactoryImpl(statement, parameter, null,
+				rowBounds, orders, statementMetadataRegistry.getGrouping(statement));
+		return new ShardSelectImpl(potentialShards, selectFactory,
+				shardStrategy.getShardAccessStrategy(), shardStrategy.getShardReduceStrategy());
 	}
 
 	@Override
@@ -282,15 +517,45 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	@Override
 	public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds) {
-		
+		return this.<E> selectList(statement, parameter, rowBounds,
+				statementMetadataRegistry.getOrders(statement));
+	}
+
+	@Override
+	public <E> List<E> selectList(String statement, Object parameter, RowBounds rowBounds,
+			List<Order> orders) {
+		return this.newShardSelect(statement, parameter, rowBounds, orders).<E> getResultList();
+	}
+
+	@Override
+	public <E> ShardFuture<List<E>> selectListAsync(String statement, Object parameter) {
+		return this.<E> selectListAsync(statement, parameter, RowBounds.DEFAULT);
+	}
+
+	@Override
+	public <E> ShardFuture<List<E>> selectListAsync(String statement, Object parameter,
+			RowBounds rowBounds) {
+		return this.newShardSelect(statement, parameter, rowBounds,
+				statementMetadataRegistry.getOrders(statement)).<E> getResultListAsync();
+	}
+
+	@Override
+	public <E> Page<E> selectPage(String statement, Object parameter, String continuationToken,
+			int pageSize) {
+		return this.<E> selectPage(statement, parameter,
+				statementMetadataRegistry.getOrders(statement), continuationToken, pageSize);
+	}
+
+	@Override
+	public <E> Page<E> selectPage(String statement, Object parameter, List<Order> orders,
+			String continuationToken, int pageSize) {
 		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
 				statement, parameter);
-		
+
 		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
 
-		return new ShardSelectImpl(potentialShards, new AdHocSelectFactoryImpl(statement,
-				parameter, null, rowBounds), shardStrategy.getShardAccessStrategy(),
-				shardStrategy.getShardReduceStrategy()).<E> getResultList();
+		return new KeysetShardSelect(potentialShards, statement, parameter, orders,
+				continuationToken, pageSize, shardStrategy.getShardAccessStrategy()).<E> getPage();
 	}
 
 	@Override
@@ -306,9 +571,21 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 	@Override
 	public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey,
 			RowBounds rowBounds) {
-		return new ShardSelectImpl(shards, new AdHocSelectFactoryImpl(statement, parameter, mapKey,
-				rowBounds), shardStrategy.getShardAccessStrategy(),
-				shardStrategy.getShardReduceStrategy()).getResultMap();
+		return this.<K, V> selectMap(statement, parameter, mapKey, rowBounds,
+				DuplicateKeyPolicy.OVERWRITE);
+	}
+
+	@Override
+	public <K, V> Map<K, V> selectMap(String statement, Object parameter, String mapKey,
+			RowBounds rowBounds, DuplicateKeyPolicy duplicateKeyPolicy) {
+		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
+				statement, parameter);
+
+		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
+
+		return new ShardSelectImpl(potentialShards, new AdHocSelectFactoryImpl(statement,
+				parameter, mapKey, rowBounds), shardStrategy.getShardAccessStrategy(),
+				shardStrategy.getShardReduceStrategy()).<K, V> getResultMap(duplicateKeyPolicy);
 	}
 
 	@Override
@@ -331,7 +608,7 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 		log.debug(String.format("Inserting object of type %s to shard %s", parameter.getClass(),
 				shardId));
 
-		SqlSession session = shardIdsToShards.get(shardId).establishSqlSession();
+		SqlSession session = shardTopology.getShard(shardId).establishSqlSession();
 
 		IdGenerator idGenerator = shardedSqlSessionFactory.getIdGenerator();
 		if (idGenerator != null) {
@@ -349,10 +626,24 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 		final int rows = session.insert(statement, params);
 
-        //fixed set keys
-		if(params instanceof Map) {
+		setGeneratedKey(session.getConfiguration(), statement, parameter, params);
+
+		Serializable id = this.extractCacheableId(statement, parameter);
+		if (id != null) {
+			this.cacheShardIdsAfterCommit(statement, Collections.singletonMap(id, shardId));
+		}
+
+		return rows;
+	}
+
+	/**
+	 * fixed set keys: 将数据库生成的主键从解析后的参数回写到原始参数中
+	 */
+	@SuppressWarnings("rawtypes")
+	private static void setGeneratedKey(Configuration configuration, String statement,
+			Object parameter, Object params) {
+		if (params instanceof Map) {
 			Map map = (Map) params;
-			Configuration configuration = session.getConfiguration();
 			MappedStatement ms = configuration.getMappedStatement(statement);
 
 			if (parameter != null && ms != null && ms.getKeyProperties() != null) {
@@ -363,8 +654,179 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 				}
 			}
 		}
+	}
 
-		return rows;
+	@Override
+	public List<BatchResult> insertBatch(String statement, Collection<?> parameters) {
+		Assert.notNull(parameters);
+
+		IdGenerator idGenerator = shardedSqlSessionFactory.getIdGenerator();
+		Map<ShardId, List<Object>> groups = Maps.newLinkedHashMap();
+		Map<Serializable, ShardId> shardIds = Maps.newHashMap();
+		for (Object parameter : parameters) {
+			ShardId shardId = this.selectShardIdForNewObject(statement, parameter);
+			if (shardId == null) {
+				shardId = this.getShardIdForStatementOrParameter(statement, parameter);
+			}
+
+			Assert.notNull(shardId);
+
+			if (idGenerator != null) {
+				// 设置当前分区id, 分区相关的主键生成器依赖于此
+				setCurrentSubgraphShardId(shardId);
+				Serializable id = idGenerator.generate(shardTopology.getShard(shardId)
+						.establishSqlSession(), parameter);
+				ParameterUtil.generatePrimaryKey(parameter, id);
+			}
+			Serializable id = this.extractCacheableId(statement, parameter);
+			if (id != null) {
+				shardIds.put(id, shardId);
+			}
+
+			addToGroup(groups, shardId, parameter);
+		}
+
+		List<BatchResult> results = applyBatchOperation(groups, new BatchOperation(statement,
+				"insertBatch") {
+			void execute(SqlSession session, Object parameter, Object params) {
+				session.insert(statement, params);
+			}
+		});
+		this.cacheShardIdsAfterCommit(statement, shardIds);
+		return results;
+	}
+
+	@Override
+	public List<BatchResult> updateBatch(String statement, Collection<?> parameters) {
+		return applyBatchOperation(groupByShardIdsWithWriteOperation(statement, parameters),
+				new BatchOperation(statement, "updateBatch") {
+					void execute(SqlSession session, Object parameter, Object params) {
+						session.update(statement, params);
+					}
+				});
+	}
+
+	@Override
+	public List<BatchResult> deleteBatch(String statement, Collection<?> parameters) {
+		List<BatchResult> results = applyBatchOperation(
+				groupByShardIdsWithWriteOperation(statement, parameters), new BatchOperation(
+						statement, "deleteBatch") {
+					void execute(SqlSession session, Object parameter, Object params) {
+						session.delete(statement, params);
+					}
+				});
+		for (Object parameter : parameters) {
+			shardIdCache.remove(statement, this.extractCacheableId(statement, parameter));
+		}
+		return results;
+	}
+
+	/**
+	 * 按写操作的路由规则将参数分组, 一个参数可能被路由到多个分区
+	 */
+	private Map<ShardId, List<Object>> groupByShardIdsWithWriteOperation(String statement,
+			Collection<?> parameters) {
+		Assert.notNull(parameters);
+
+		Map<ShardId, List<Object>> groups = Maps.newLinkedHashMap();
+		for (Object parameter : parameters) {
+			List<Shard> potentialShards = determineShardsViaResolutionStrategyWithWriteOperation(
+					statement, parameter);
+			if (potentialShards != null && potentialShards.size() > 0) {
+				for (Shard shard : potentialShards) {
+					for (ShardId shardId : shard.getShardIds()) {
+						addToGroup(groups, shardId, parameter);
+					}
+				}
+			} else {
+				ShardId shardId = this.getShardIdForStatementOrParameter(statement, parameter);
+				Assert.notNull(shardId);
+				addToGroup(groups, shardId, parameter);
+			}
+		}
+		return groups;
+	}
+
+	private static void addToGroup(Map<ShardId, List<Object>> groups, ShardId shardId,
+			Object parameter) {
+		List<Object> group = groups.get(shardId);
+		if (group == null) {
+			group = Lists.newArrayList();
+			groups.put(shardId, group);
+		}
+		group.add(parameter);
+	}
+
+	/**
+	 * 每个物理分区使用一个{@link ExecutorType#BATCH}的session执行分到该分区的全部参数,
+	 * 各分区之间按{@link ShardStrategy#getShardAccessStrategy()}并行或顺序执行.
+	 */
+	private List<BatchResult> applyBatchOperation(final Map<ShardId, List<Object>> groups,
+			final BatchOperation batchOperation) {
+		if (groups.isEmpty()) {
+			return Collections.emptyList();
+		}
+
+		ShardOperation<List<BatchResult>> shardOp = new ShardOperation<List<BatchResult>>() {
+			public List<BatchResult> execute(SqlSession session, ShardId shardId) {
+				List<Object> group = groups.get(shardId);
+				if (group == null) {
+					return Collections.emptyList();
+				}
+
+				log.debug(String.format("Executing %s with %d parameters against shard %s",
+						batchOperation.operationName, group.size(), shardId));
+
+				SqlSession batchSession = shardTopology.getShard(shardId).openSqlSession(
+						ExecutorType.BATCH);
+				try {
+					Object[] resolved = new Object[group.size()];
+					for (int i = 0; i < resolved.length; i++) {
+						resolved[i] = ParameterUtil.resolve(group.get(i), shardId);
+						batchOperation.execute(batchSession, group.get(i), resolved[i]);
+					}
+
+					List<BatchResult> results = batchSession.flushStatements();
+
+					Configuration configuration = batchSession.getConfiguration();
+					for (int i = 0; i < resolved.length; i++) {
+						setGeneratedKey(configuration, batchOperation.statement, group.get(i),
+								resolved[i]);
+					}
+
+					batchSession.commit();
+					return results;
+				} finally {
+					batchSession.close();
+				}
+			}
+
+			public String getOperationName() {
+				return batchOperation.operationName
+						+ "(String statement, Collection<?> parameters)";
+			}
+		};
+
+		return shardStrategy.getShardAccessStrategy().apply(
+				shardTopology.getShards(Lists.newArrayList(groups.keySet())), shardOp,
+				new ConcatenateBatchResultsExitStrategy(), null);
+	}
+
+	/**
+	 * 批量操作中对单个参数执行的语句
+	 */
+	private static abstract class BatchOperation {
+
+		final String statement;
+
+		final String operationName;
+
+		BatchOperation(String statement, String operationName) {
+			this.statement = statement;
+			this.operationName = operationName;
+		}
+
+		abstract void execute(SqlSession session, Object parameter, Object params);
 	}
 
 	@Override
@@ -374,32 +836,69 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	@Override
 	public int update(String statement, Object parameter) {
-		List<ShardId> shardIds = Lists.newArrayList();
+		return applyWriteOperation(this.updateOperation(statement, parameter), statement, parameter);
+	}
 
+	@Override
+	public ShardFuture<Integer> updateAsync(String statement, Object parameter) {
+		return applyWriteOperationAsync(this.updateOperation(statement, parameter), statement,
+				parameter);
+	}
+
+	private ShardOperation<Integer> updateOperation(final String statement, final Object parameter) {
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				log.debug(String.format("Updateing object of type %s to shard %s",
+						parameter == null ? parameter : parameter.getClass(), shardId));
+				return session.update(statement, ParameterUtil.resolve(parameter, shardId));
+			}
+
+			public String getOperationName() {
+				return "update(String statement, Object parameter)";
+			}
+		};
+	}
+
+	/**
+	 * 写操作: 单个分区直接在当前线程执行, 多个分区通过{@link ShardStrategy#getShardAccessStrategy()}
+	 * 分发(事务外并行, 事务内顺序), 返回各分区影响行数之和.
+	 */
+	private int applyWriteOperation(ShardOperation<Integer> shardOp, String statement,
+			Object parameter) {
 		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithWriteOperation(
 				statement, parameter);
 
-		if (potentialShards != null && potentialShards.size() > 0) {
-			for (Shard shard : potentialShards) {
-				shardIds.addAll(shard.getShardIds());
-			}
-		} else {
-			//
+		if (potentialShards == null || potentialShards.isEmpty()) {
+			// 此种情况下按先从主分区查询statement如果不存在则查询全部分区来定位
 			ShardId shardId = this.getShardIdForStatementOrParameter(statement, parameter);
-			shardIds = Lists.newArrayList(shardId);
+			Assert.notNull(shardId);
+			return shardOp.execute(shardTopology.getShard(shardId).establishSqlSession(), shardId);
 		}
 
-		Assert.isTrue(!shardIds.isEmpty());
+		if (potentialShards.size() == 1 && potentialShards.get(0).getShardIds().size() == 1) {
+			Shard shard = potentialShards.get(0);
+			return shardOp.execute(shard.establishSqlSession(), shard.getShardIds().iterator()
+					.next());
+		}
+
+		return shardStrategy.getShardAccessStrategy().apply(potentialShards, shardOp,
+				new SumRowCountsExitStrategy(), null);
+	}
 
-		int rows = 0;
-		for (ShardId shardId : shardIds) {
-			rows += shardIdsToShards.get(shardId).establishSqlSession()
-					.update(statement, ParameterUtil.resolve(parameter, shardId));
-			log.debug(String.format("Updateing object of type %s to shard %s",
-					parameter == null ? parameter : parameter.getClass(), shardId));
+	private ShardFuture<Integer> applyWriteOperationAsync(ShardOperation<Integer> shardOp,
+			String statement, Object parameter) {
+		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithWriteOperation(
+				statement, parameter);
+
+		if (potentialShards == null || potentialShards.isEmpty()) {
+			ShardId shardId = this.getShardIdForStatementOrParameter(statement, parameter);
+			Assert.notNull(shardId);
+			return ShardAccessStrategies.applyAsync(shardStrategy.getShardAccessStrategy(),
+					shardTopology.getShard(shardId), shardId, shardOp);
 		}
 
-		return rows;
+		return ShardAccessStrategies.applyAsync(shardStrategy.getShardAccessStrategy(),
+				potentialShards, shardOp, new SumRowCountsExitStrategy(), null);
 	}
 
 	/**
@@ -416,7 +915,9 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 	 */
 	List<Shard> determineShardsViaResolutionStrategyWithReadOperation(String statement,
 			Object parameter) {
-		List<Shard> potentialShards = this.determineShardsObjectsViaResolutionStrategy(statement, parameter, null);
+		// 按分区键查询时以分区键定位分区
+		Serializable lookupKey = this.extractLookupKey(statement, parameter);
+		List<Shard> potentialShards = this.determineShardsObjectsViaResolutionStrategy(statement, parameter, lookupKey);
 		
 		//策略返回为空集合则采用全部分片
 		potentialShards = potentialShards.isEmpty() ? shards : potentialShards;
@@ -457,29 +958,39 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	@Override
 	public int delete(String statement, Object parameter) {
-		List<ShardId> shardIds = Lists.newArrayList();
+		int rows = applyWriteOperation(this.deleteOperation(statement, parameter), statement,
+				parameter);
+		shardIdCache.remove(statement, this.extractCacheableId(statement, parameter));
+		return rows;
+	}
 
-		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithWriteOperation(
-				statement, parameter);
-		if (potentialShards != null && potentialShards.size() > 0) {
-			for (Shard shard : potentialShards) {
-				shardIds.addAll(shard.getShardIds());
+	@Override
+	public ShardFuture<Integer> deleteAsync(final String statement, Object parameter) {
+		ShardFuture<Integer> future = applyWriteOperationAsync(
+				this.deleteOperation(statement, parameter), statement, parameter);
+		final Serializable id = this.extractCacheableId(statement, parameter);
+		future.addCallback(new ShardFutureCallback<Integer>() {
+			public void onSuccess(Integer rows) {
+				shardIdCache.remove(statement, id);
 			}
-		} else {
-			// 此种情况下按先从主分区查询statement如果不存在则查询全部分区来定位
-			ShardId shardId = this.getShardIdForStatementOrParameter(statement, parameter);
-			shardIds = Lists.newArrayList(shardId);
-		}
 
-		Assert.isTrue(!shardIds.isEmpty());
+			public void onFailure(Throwable cause) {
+			}
+		});
+		return future;
+	}
 
-		int rows = 0;
-		for (ShardId shardId : shardIds) {
-			rows += shardIdsToShards.get(shardId).establishSqlSession()
-					.delete(statement, ParameterUtil.resolve(parameter, shardId));
-			log.debug(String.format("Deleting object of type %s to shard %s", parameter, shardId));
-		}
-		return rows;
+	private ShardOperation<Integer> deleteOperation(final String statement, final Object parameter) {
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				log.debug(String.format("Deleting object of type %s to shard %s", parameter, shardId));
+				return session.delete(statement, ParameterUtil.resolve(parameter, shardId));
+			}
+
+			public String getOperationName() {
+				return "delete(String statement, Object parameter)";
+			}
+		};
 	}
 
 	@Override
@@ -552,21 +1063,67 @@ public class ShardedSqlSessionImpl implements ShardedSqlSession, ShardIdResolver
 
 	@Override
 	public void select(String statement, ResultHandler handler) {
-		throw new UnsupportedOperationException(
-				"opration select is not allowed over a ShardedSqlSession");
+		this.select(statement, null, handler);
 	}
 
 	@Override
 	public void select(String statement, Object parameter, ResultHandler handler) {
-		throw new UnsupportedOperationException(
-				"opration select is not allowed over a ShardedSqlSession");
+		this.select(statement, parameter, RowBounds.DEFAULT, handler);
 	}
 
 	@Override
 	public void select(String statement, Object parameter, RowBounds rowBounds,
 			ResultHandler handler) {
-		throw new UnsupportedOperationException(
-				"opration select is not allowed over a ShardedSqlSession");
+		this.select(statement, parameter, rowBounds, 0, handler);
+	}
+
+	@Override
+	public void select(String statement, Object parameter, RowBounds rowBounds, int fetchSize,
+			ResultHandler handler) {
+		this.select(statement, parameter, rowBounds, fetchSize, 0, handler);
+	}
+
+	@Override
+	public void select(final String statement, final Object parameter, RowBounds rowBounds,
+			final int fetchSize, int queueCapacity, ResultHandler handler) {
+		List<Shard> potentialShards = determineShardsViaResolutionStrategyWithReadOperation(
+				statement, parameter);
+
+		Assert.notNull(potentialShards, "ShardResolutionStrategy returnd value cann't be null");
+
+		final StreamingResultHandlerExitStrategy exitStrategy = new StreamingResultHandlerExitStrategy(
+				handler, rowBounds, queueCapacity > 0 ? queueCapacity
+						: StreamingResultHandlerExitStrategy.DEFAULT_QUEUE_CAPACITY);
+		if (exitStrategy.isStopped()) {
+			return;
+		}
+		final RowBounds shardRowBounds = exitStrategy.getShardRowBounds();
+
+		ShardOperation<Void> shardOp = new ShardOperation<Void>() {
+			public Void execute(SqlSession session, ShardId shardId) {
+				if (exitStrategy.isStopped()) {
+					return null;
+				}
+				// 分区操作可能在工作线程中执行, 因此在此处设置, 并保留访问策略设置的查询超时
+				StatementOptions previous = StatementOptions.current();
+				StatementOptions.set(new StatementOptions(previous).setFetchSize(fetchSize));
+				try {
+					session.select(statement, ParameterUtil.resolve(parameter, shardId),
+							shardRowBounds, exitStrategy.newShardResultHandler());
+				} finally {
+					StatementOptions.set(previous);
+				}
+				return null;
+			}
+
+			public String getOperationName() {
+				return "select(String statement, Object parameter, RowBounds rowBounds, int fetchSize, int queueCapacity, ResultHandler handler)";
+			}
+		};
+
+		// 分区在工作线程中执行时, 调用线程负责把队列中的行交给handler
+		exitStrategy.drain(ShardAccessStrategies.applyAsync(shardStrategy.getShardAccessStrategy(),
+				potentialShards, shardOp, exitStrategy, null));
 	}
 
 	@Override
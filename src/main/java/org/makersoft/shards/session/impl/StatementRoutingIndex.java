@@ -0,0 +1,191 @@
+/*
+ * @(#)StatementRoutingIndex.java 2026-10-18 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.session.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+
+/**
+ * statement --> 物理分区 路由索引.
+ * <p>
+ * 在分区拓扑建立时一次性计算每个statement被映射到哪些物理分区, 之后只读.
+ * 路由时只需一次hash查找, 不再逐个分区调用{@link Shard#getMappedStatementNames()}.
+ * 拓扑变化时(即创建新的{@link ShardedSqlSessionImpl})需重新构建.
+ * </p>
+ *
+ * @author Feng Kuok
+ */
+public class StatementRoutingIndex {
+
+	private final List<Shard> shards;
+
+	// 物理分区在shards中的下标
+	private final Map<Shard, Integer> shardPositions;
+
+	private final Map<String, Route> routes;
+
+	public StatementRoutingIndex(List<Shard> shards) {
+		this.shards = shards;
+		this.shardPositions = new IdentityHashMap<Shard, Integer>(shards.size() * 2);
+		for (int i = 0; i < shards.size(); i++) {
+			shardPositions.put(shards.get(i), i);
+		}
+
+		Map<String, BitSet> bitsByStatement = Maps.newHashMap();
+		for (int i = 0; i < shards.size(); i++) {
+			Shard shard = shards.get(i);
+			if (shard.getSqlSessionFactory() == null) {
+				continue;
+			}
+			for (String statement : shard.getMappedStatementNames()) {
+				BitSet bits = bitsByStatement.get(statement);
+				if (bits == null) {
+					bits = new BitSet(shards.size());
+					bitsByStatement.put(statement, bits);
+				}
+				bits.set(i);
+			}
+		}
+
+		Map<String, Route> routes = Maps.newHashMap();
+		for (Map.Entry<String, BitSet> entry : bitsByStatement.entrySet()) {
+			routes.put(entry.getKey(), new Route(entry.getValue(), shards));
+		}
+		this.routes = routes;
+	}
+
+	/**
+	 * @return 映射了此statement的第一个物理分区, 没有则返回null
+	 */
+	public Shard getShard(String statement) {
+		Route route = routes.get(statement);
+		if (route == null) {
+			return scanForShard(statement, shards);
+		}
+		return route.shards.length == 0 ? null : route.shards[0];
+	}
+
+	/**
+	 * @return 在shardsToConsider中映射了此statement的第一个物理分区, 没有则返回null
+	 */
+	public Shard getShard(String statement, List<Shard> shardsToConsider) {
+		if (shardsToConsider == shards) {
+			return getShard(statement);
+		}
+
+		Route route = routes.get(statement);
+		if (route == null) {
+			return scanForShard(statement, shardsToConsider);
+		}
+		for (Shard shard : shardsToConsider) {
+			if (route.contains(positionOf(shard))) {
+				return shard;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return 映射了此statement的全部物理分区(只读)
+	 */
+	public List<Shard> getShards(String statement) {
+		Route route = routes.get(statement);
+		if (route == null) {
+			return scanForShards(statement, shards);
+		}
+		return route.shardList;
+	}
+
+	/**
+	 * @return 在shardsToConsider中映射了此statement的物理分区
+	 */
+	public List<Shard> getShards(String statement, List<Shard> shardsToConsider) {
+		if (shardsToConsider == shards) {
+			return getShards(statement);
+		}
+
+		Route route = routes.get(statement);
+		if (route == null) {
+			return scanForShards(statement, shardsToConsider);
+		}
+		if (shardsToConsider.size() == 1) {
+			Shard shard = shardsToConsider.get(0);
+			return route.contains(positionOf(shard)) ? shardsToConsider : Collections
+					.<Shard> emptyList();
+		}
+
+		List<Shard> result = Lists.newArrayListWithCapacity(shardsToConsider.size());
+		for (Shard shard : shardsToConsider) {
+			if (route.contains(positionOf(shard))) {
+				result.add(shard);
+			}
+		}
+		return result;
+	}
+
+	private int positionOf(Shard shard) {
+		Integer position = shardPositions.get(shard);
+		return position == null ? -1 : position;
+	}
+
+	/**
+	 * 索引建立之后才注册的statement, 退回到逐个分区查找.
+	 */
+	private static Shard scanForShard(String statement, List<Shard> shardsToConsider) {
+		for (Shard shard : shardsToConsider) {
+			if (shard.getSqlSessionFactory() != null
+					&& shard.getMappedStatementNames().contains(statement)) {
+				return shard;
+			}
+		}
+		return null;
+	}
+
+	private static List<Shard> scanForShards(String statement, List<Shard> shardsToConsider) {
+		List<Shard> result = Lists.newArrayList();
+		for (Shard shard : shardsToConsider) {
+			if (shard.getSqlSessionFactory() != null
+					&& shard.getMappedStatementNames().contains(statement)) {
+				result.add(shard);
+			}
+		}
+		return result;
+	}
+
+	private static final class Route {
+
+		private final BitSet bits;
+
+		private final Shard[] shards;
+
+		private final List<Shard> shardList;
+
+		Route(BitSet bits, List<Shard> allShards) {
+			this.bits = bits;
+			this.shards = new Shard[bits.cardinality()];
+			int j = 0;
+			for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+				shards[j++] = allShards.get(i);
+			}
+			this.shardList = Collections.unmodifiableList(Arrays.asList(shards));
+		}
+
+		boolean contains(int position) {
+			return position >= 0 && bits.get(position);
+		}
+	}
+}
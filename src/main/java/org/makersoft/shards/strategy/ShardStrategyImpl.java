@@ -8,8 +8,11 @@
  */
 package org.makersoft.shards.strategy;
 
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
 import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy;
 import org.makersoft.shards.strategy.access.impl.SequentialShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.ThreadPerTaskShardAccessStrategy;
 import org.makersoft.shards.strategy.reduce.ShardReduceStrategy;
 import org.makersoft.shards.strategy.resolution.ShardResolutionStrategy;
 import org.makersoft.shards.strategy.selection.ShardSelectionStrategy;
@@ -29,7 +32,8 @@ public class ShardStrategyImpl implements ShardStrategy {
 
 	private ShardReduceStrategy shardReduceStrategy;
 	
-	private final ShardAccessStrategy transactionShardReduceStrategy = new SequentialShardAccessStrategy(); 
+	// 读写事务中使用, 沿用所配置访问策略的默认超时
+	private final ShardAccessStrategy transactionShardReduceStrategy;
 
 	public ShardStrategyImpl(ShardSelectionStrategy shardSelectionStrategy,
 			ShardResolutionStrategy shardResolutionStrategy,
@@ -44,6 +48,21 @@ public class ShardStrategyImpl implements ShardStrategy {
 		this.shardResolutionStrategy = shardResolutionStrategy;
 		this.shardAccessStrategy = shardAccessStrategy;
 		this.shardReduceStrategy = shardReduceStrategy;
+		this.transactionShardReduceStrategy = new SequentialShardAccessStrategy(
+				getDefaultDeadline(shardAccessStrategy));
+	}
+
+	private static ShardAccessDeadline getDefaultDeadline(ShardAccessStrategy shardAccessStrategy) {
+		if (shardAccessStrategy instanceof ParallelShardAccessStrategy) {
+			return ((ParallelShardAccessStrategy) shardAccessStrategy).getDefaultDeadline();
+		}
+		if (shardAccessStrategy instanceof ThreadPerTaskShardAccessStrategy) {
+			return ((ThreadPerTaskShardAccessStrategy) shardAccessStrategy).getDefaultDeadline();
+		}
+		if (shardAccessStrategy instanceof SequentialShardAccessStrategy) {
+			return ((SequentialShardAccessStrategy) shardAccessStrategy).getDefaultDeadline();
+		}
+		return null;
 	}
 
 	@Override
@@ -56,10 +75,20 @@ public class ShardStrategyImpl implements ShardStrategy {
 		return shardResolutionStrategy;
 	}
 
+	/**
+	 * 事务中的连接绑定在当前线程上, 因此读写事务中只能在当前线程顺序访问各分区;
+	 * 没有事务或只读事务时使用用户配置的访问策略(例如并行访问).
+	 * <p>
+	 * 注意: 没有事务时各分区的写操作分别在各自的连接上提交, 跨分区的写操作不是原子的,
+	 * 某个分区失败时其他分区已提交的修改不会回滚.
+	 */
 	@Override
 	public ShardAccessStrategy getShardAccessStrategy() {
-		
-		return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? shardAccessStrategy : transactionShardReduceStrategy;
+		if (!TransactionSynchronizationManager.isActualTransactionActive()
+				|| TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return shardAccessStrategy;
+		}
+		return transactionShardReduceStrategy;
 	}
 
 	@Override
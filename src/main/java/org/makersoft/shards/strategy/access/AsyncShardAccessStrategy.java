@@ -0,0 +1,37 @@
+/*
+ * @(#)AsyncShardAccessStrategy.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access;
+
+import java.util.List;
+
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+
+/**
+ * 支持异步执行的分区访问策略, 调用线程提交任务后立即返回.
+ * 
+ * @author Feng Kuok
+ */
+public interface AsyncShardAccessStrategy extends ShardAccessStrategy {
+
+	/**
+	 * 在各分区的全部虚拟分区上执行操作, 最后一个完成的任务合并结果并完成返回的{@link ShardFuture}.
+	 */
+	<T> ShardFuture<T> applyAsync(List<Shard> shards, ShardOperation<T> operation,
+			ExitStrategy<T> exitStrategy, ExitOperationsCollector exitOperationsCollector);
+
+	/**
+	 * 只在指定的虚拟分区上执行操作.
+	 */
+	<T> ShardFuture<T> applyAsync(Shard shard, ShardId shardId, ShardOperation<T> operation);
+}
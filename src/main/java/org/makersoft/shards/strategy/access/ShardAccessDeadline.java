@@ -0,0 +1,84 @@
+/*
+ * @(#)ShardAccessDeadline.java 2026-10-18 下午10:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 跨分区操作的超时时间, 从访问策略开始分发时计算, 剩余时间同时作为各分区语句的JDBC查询超时.
+ * <p>
+ * 可以在访问策略上配置默认值, 也可以在调用线程上为单次操作设置:
+ * 
+ * <pre>
+ * ShardAccessDeadline.set(new ShardAccessDeadline(200, TimeUnit.MILLISECONDS, TimeoutPolicy.PARTIAL));
+ * try {
+ * 	users = session.selectList(&quot;findAll&quot;);
+ * 	if (!ShardCompletionReport.last().isComplete()) {
+ * 		// 只包含按时完成的分区的结果
+ * 	}
+ * } finally {
+ * 	ShardAccessDeadline.clear();
+ * }
+ * </pre>
+ * 
+ * </p>
+ * <p>
+ * 所有访问策略都遵守超时:
+ * <ul>
+ * <li>并行访问的同步调用最多等待到截止时间, 之后取消正在执行的语句;</li>
+ * <li>顺序访问(包括读写事务中使用的顺序访问, 沿用所配置访问策略的默认超时)在截止时间之后不再访问剩余的分区;</li>
+ * <li>异步调用(applyAsync)的future在各分区结束后才完成, 截止时间之后开始的分区不再执行,
+ * 正在执行的语句由JDBC查询超时(精度为秒)终止, 之后按超时策略失败或返回部分结果.</li>
+ * </ul>
+ * 超时只作用于通过访问策略分发的操作, 路由到单个分区的写操作直接在调用线程中执行, 不受影响.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class ShardAccessDeadline {
+
+	private static final ThreadLocal<ShardAccessDeadline> CURRENT = new ThreadLocal<ShardAccessDeadline>();
+
+	private final long timeoutNanos;
+
+	private final TimeoutPolicy timeoutPolicy;
+
+	public ShardAccessDeadline(long timeout, TimeUnit unit, TimeoutPolicy timeoutPolicy) {
+		Assert.isTrue(timeout > 0, "timeout must be positive");
+		Assert.notNull(unit);
+		Assert.notNull(timeoutPolicy);
+		this.timeoutNanos = unit.toNanos(timeout);
+		this.timeoutPolicy = timeoutPolicy;
+	}
+
+	public long getTimeoutNanos() {
+		return timeoutNanos;
+	}
+
+	public TimeoutPolicy getTimeoutPolicy() {
+		return timeoutPolicy;
+	}
+
+	/**
+	 * @return 当前线程上设置的超时, 没有则返回null
+	 */
+	public static ShardAccessDeadline current() {
+		return CURRENT.get();
+	}
+
+	public static void set(ShardAccessDeadline deadline) {
+		CURRENT.set(deadline);
+	}
+
+	public static void clear() {
+		CURRENT.remove();
+	}
+}
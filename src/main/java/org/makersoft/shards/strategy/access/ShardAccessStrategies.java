@@ -0,0 +1,65 @@
+/*
+ * @(#)ShardAccessStrategies.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access;
+
+import java.util.List;
+
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.impl.SettableShardFuture;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+
+/**
+ * 异步访问的辅助方法: 访问策略不支持异步(例如读写事务中连接绑定在调用线程上, 只能顺序访问)时,
+ * 在调用线程中同步执行并返回已完成的{@link ShardFuture}.
+ * 
+ * @author Feng Kuok
+ */
+public final class ShardAccessStrategies {
+
+	private ShardAccessStrategies() {
+	}
+
+	public static <T> ShardFuture<T> applyAsync(ShardAccessStrategy shardAccessStrategy,
+			List<Shard> shards, ShardOperation<T> operation, ExitStrategy<T> exitStrategy,
+			ExitOperationsCollector exitOperationsCollector) {
+		if (shardAccessStrategy instanceof AsyncShardAccessStrategy) {
+			return ((AsyncShardAccessStrategy) shardAccessStrategy).applyAsync(shards, operation,
+					exitStrategy, exitOperationsCollector);
+		}
+
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		try {
+			future.set(shardAccessStrategy.apply(shards, operation, exitStrategy,
+					exitOperationsCollector));
+		} catch (RuntimeException e) {
+			future.setException(e);
+		}
+		return future;
+	}
+
+	public static <T> ShardFuture<T> applyAsync(ShardAccessStrategy shardAccessStrategy,
+			Shard shard, ShardId shardId, ShardOperation<T> operation) {
+		if (shardAccessStrategy instanceof AsyncShardAccessStrategy) {
+			return ((AsyncShardAccessStrategy) shardAccessStrategy).applyAsync(shard, shardId,
+					operation);
+		}
+
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		try {
+			future.set(operation.execute(shard.establishSqlSession(), shardId));
+		} catch (RuntimeException e) {
+			future.setException(e);
+		}
+		return future;
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * @(#)ShardCompletionReport.java 2026-10-18 下午10:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * 设置了{@link ShardAccessDeadline}的跨分区操作中各虚拟分区的完成情况.
+ * <p>
+ * 超时之后报告被关闭, 之后完成的分区不再计入结果, 也不再计入报告.
+ * 各分区可以并发调用{@link #markCompleted(ShardId)}; 与{@link #close()}之间的互斥由访问策略保证.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class ShardCompletionReport {
+
+	private static final ThreadLocal<ShardCompletionReport> LAST = new ThreadLocal<ShardCompletionReport>();
+
+	private final Set<ShardId> shardIds;
+
+	private final Set<ShardId> completedShardIds = Collections
+			.newSetFromMap(new ConcurrentHashMap<ShardId, Boolean>());
+
+	private volatile boolean closed;
+
+	public ShardCompletionReport(Collection<ShardId> shardIds) {
+		this.shardIds = Collections.unmodifiableSet(Sets.newHashSet(shardIds));
+	}
+
+	/**
+	 * @return 报告已关闭时返回false
+	 */
+	public boolean markCompleted(ShardId shardId) {
+		if (closed) {
+			return false;
+		}
+		completedShardIds.add(shardId);
+		return true;
+	}
+
+	public void close() {
+		closed = true;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	public boolean isComplete() {
+		return completedShardIds.size() == shardIds.size();
+	}
+
+	public Set<ShardId> getCompletedShardIds() {
+		return Collections.unmodifiableSet(Sets.newHashSet(completedShardIds));
+	}
+
+	public Set<ShardId> getIncompleteShardIds() {
+		Set<ShardId> incomplete = Sets.newHashSet(shardIds);
+		incomplete.removeAll(completedShardIds);
+		return Collections.unmodifiableSet(incomplete);
+	}
+
+	@Override
+	public String toString() {
+		return "ShardCompletionReport[completed=" + completedShardIds + ", incomplete="
+				+ getIncompleteShardIds() + "]";
+	}
+
+	/**
+	 * @return 当前线程上一次设置了超时的跨分区操作的报告, 没有则返回null
+	 */
+	public static ShardCompletionReport last() {
+		return LAST.get();
+	}
+
+	public static void setLast(ShardCompletionReport report) {
+		if (report == null) {
+			LAST.remove();
+		} else {
+			LAST.set(report);
+		}
+	}
+}
@@ -0,0 +1,27 @@
+/*
+ * @(#)TimeoutPolicy.java 2026-10-18 下午10:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access;
+
+/**
+ * 分区操作超过{@link ShardAccessDeadline}时的处理方式.
+ * 
+ * @author Feng Kuok
+ */
+public enum TimeoutPolicy {
+
+	/**
+	 * 抛出{@link org.makersoft.shards.MyBatisShardsException}
+	 */
+	FAIL,
+
+	/**
+	 * 返回已完成分区的结果, 未完成的分区见{@link ShardCompletionReport#last()}
+	 */
+	PARTIAL
+}
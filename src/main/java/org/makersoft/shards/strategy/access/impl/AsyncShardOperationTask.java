@@ -0,0 +1,114 @@
+/*
+ * @(#)AsyncShardOperationTask.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access.impl;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+
+/**
+ * 异步执行一个虚拟分区上的操作. 同一次调用的各任务共享剩余任务计数, 最后一个完成的任务合并结果,
+ * 因此不需要任何线程阻塞等待.
+ * 
+ * @author Feng Kuok
+ */
+class AsyncShardOperationTask<T> implements Runnable {
+
+	private final Log log = LogFactory.getLog(getClass());
+
+	private final SettableShardFuture<T> future;
+
+	private final AtomicInteger remaining;
+
+	private final AtomicBoolean halted;
+
+	private final ExitStrategy<T> exitStrategy;
+
+	private final ExitOperationsCollector exitOperationsCollector;
+
+	private final ShardOperation<T> operation;
+
+	private final Shard shard;
+
+	private final ShardId shardId;
+
+	private final DeadlineContext deadline;
+
+	/**
+	 * @param deadline
+	 *            本次调用的超时, 为null表示不限制
+	 */
+	AsyncShardOperationTask(SettableShardFuture<T> future, AtomicInteger remaining,
+			AtomicBoolean halted, ExitStrategy<T> exitStrategy,
+			ExitOperationsCollector exitOperationsCollector, ShardOperation<T> operation,
+			Shard shard, ShardId shardId, DeadlineContext deadline) {
+		this.future = future;
+		this.remaining = remaining;
+		this.halted = halted;
+		this.exitStrategy = deadline == null ? exitStrategy : deadline.wrap(exitStrategy, shardId);
+		this.exitOperationsCollector = exitOperationsCollector;
+		this.operation = deadline == null ? operation : deadline.wrap(operation);
+		this.shard = shard;
+		this.shardId = shardId;
+		this.deadline = deadline;
+	}
+
+	@Override
+	public void run() {
+		try {
+			// 已经失败、被取消或其他分区已经得到结果时不再执行
+			if (!future.isDone() && !halted.get()) {
+				log.debug(String.format("Starting async execution of %s against shard %s",
+						operation.getOperationName(), shardId));
+				if (exitStrategy.addResult(operation.execute(shard.establishSqlSession(), shardId),
+						shard)) {
+					halted.set(true);
+				}
+			}
+		} catch (Throwable t) {
+			if (deadline != null && deadline.remainingNanos() <= 0) {
+				// 超过截止时间的语句被JDBC查询超时取消, 按超时处理
+				log.debug(String.format("%s against shard %s failed after deadline",
+						operation.getOperationName(), shardId), t);
+				deadline.expire();
+			} else {
+				future.setException(t);
+			}
+		} finally {
+			if (remaining.decrementAndGet() == 0) {
+				complete(future, exitStrategy, exitOperationsCollector, deadline);
+			}
+		}
+	}
+
+	/**
+	 * 合并结果并完成future; 已经超时时按超时策略失败或返回部分结果.
+	 */
+	static <T> void complete(SettableShardFuture<T> future, ExitStrategy<T> exitStrategy,
+			ExitOperationsCollector exitOperationsCollector, DeadlineContext deadline) {
+		if (future.isDone() || (deadline != null && !deadline.tryFinish())) {
+			return;
+		}
+		try {
+			if (deadline != null) {
+				deadline.checkTimeout();
+			}
+			future.set(exitStrategy.compileResults(exitOperationsCollector));
+		} catch (Throwable t) {
+			future.setException(t);
+		}
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * @(#)DeadlineContext.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access.impl;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.ibatis.session.SqlSession;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.plugin.StatementOptions;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
+import org.makersoft.shards.strategy.access.ShardCompletionReport;
+import org.makersoft.shards.strategy.access.TimeoutPolicy;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 一次跨分区操作的超时状态: 截止时间与各虚拟分区的完成报告, 由各访问策略共用.
+ *
+ * @author Feng Kuok
+ */
+final class DeadlineContext {
+
+	private static final Log log = LogFactory.getLog(DeadlineContext.class);
+
+	private final ShardAccessDeadline deadline;
+
+	private final String operationName;
+
+	private final long deadlineNanos;
+
+	private final ShardCompletionReport report;
+
+	// 结果只合并一次: 调用线程等待超时后可能与最后完成的任务同时合并
+	private final AtomicBoolean finished = new AtomicBoolean(false);
+
+	// 各分区合并结果时持有读锁, 可以并发执行; 关闭报告时持有写锁, 等待正在合并的结果完成
+	private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+
+	private DeadlineContext(ShardAccessDeadline deadline, String operationName,
+			Collection<ShardId> shardIds) {
+		this.deadline = deadline;
+		this.operationName = operationName;
+		this.deadlineNanos = System.nanoTime() + deadline.getTimeoutNanos();
+		this.report = new ShardCompletionReport(shardIds);
+	}
+
+	/**
+	 * 以调用线程上设置的超时或默认超时开始一次跨分区操作, 并设置{@link ShardCompletionReport#last()}.
+	 *
+	 * @return 没有超时时返回null
+	 */
+	static DeadlineContext start(ShardAccessDeadline defaultDeadline, List<Shard> shards,
+			String operationName) {
+		List<ShardId> shardIds = Lists.newArrayList();
+		for (Shard shard : shards) {
+			shardIds.addAll(shard.getShardIds());
+		}
+		return start(defaultDeadline, shardIds, operationName);
+	}
+
+	static DeadlineContext start(ShardAccessDeadline defaultDeadline, ShardId shardId,
+			String operationName) {
+		return start(defaultDeadline, Collections.singletonList(shardId), operationName);
+	}
+
+	private static DeadlineContext start(ShardAccessDeadline defaultDeadline,
+			Collection<ShardId> shardIds, String operationName) {
+		ShardAccessDeadline deadline = ShardAccessDeadline.current() != null ? ShardAccessDeadline
+				.current() : defaultDeadline;
+		if (deadline == null) {
+			ShardCompletionReport.setLast(null);
+			return null;
+		}
+		DeadlineContext context = new DeadlineContext(deadline, operationName, shardIds);
+		ShardCompletionReport.setLast(context.report);
+		return context;
+	}
+
+	long remainingNanos() {
+		return deadlineNanos - System.nanoTime();
+	}
+
+	ShardCompletionReport getReport() {
+		return report;
+	}
+
+	/**
+	 * 截止时间已到: 关闭报告, 之后到达的结果不再计入.
+	 */
+	void expire() {
+		Lock lock = closeLock.writeLock();
+		lock.lock();
+		try {
+			report.close();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return 是否已经超时
+	 */
+	boolean isExpired() {
+		return report.isClosed();
+	}
+
+	/**
+	 * 已经超时时按超时策略处理: FAIL抛出异常, PARTIAL记录日志后返回.
+	 */
+	void checkTimeout() {
+		if (!report.isClosed()) {
+			return;
+		}
+		log.warn(String.format("%s timed out, %s", operationName, report));
+		if (deadline.getTimeoutPolicy() == TimeoutPolicy.FAIL) {
+			throw new MyBatisShardsException(String.format(
+					"%s timed out after %d ms, incomplete shards: %s", operationName,
+					TimeUnit.NANOSECONDS.toMillis(deadline.getTimeoutNanos()),
+					report.getIncompleteShardIds()));
+		}
+	}
+
+	/**
+	 * @return 第一次调用时返回true, 由调用者合并结果
+	 */
+	boolean tryFinish() {
+		return finished.compareAndSet(false, true);
+	}
+
+	<T> ShardOperation<T> wrap(ShardOperation<T> operation) {
+		return new DeadlineShardOperation<T>(operation);
+	}
+
+	<T> ExitStrategy<T> wrap(ExitStrategy<T> exitStrategy, ShardId shardId) {
+		return new ReportingExitStrategy<T>(exitStrategy, shardId);
+	}
+
+	/**
+	 * 以剩余时间作为JDBC查询超时.
+	 */
+	private class DeadlineShardOperation<T> implements ShardOperation<T> {
+
+		private final ShardOperation<T> delegate;
+
+		DeadlineShardOperation(ShardOperation<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public T execute(SqlSession session, ShardId shardId) {
+			long remainingNanos = remainingNanos();
+			if (remainingNanos <= 0) {
+				// 已经超时, 不再执行; 关闭报告后此结果不会被计入
+				expire();
+				return null;
+			}
+			// JDBC超时以秒为单位, 向上取整
+			long seconds = (remainingNanos + TimeUnit.SECONDS.toNanos(1) - 1)
+					/ TimeUnit.SECONDS.toNanos(1);
+			StatementOptions previous = StatementOptions.current();
+			StatementOptions.set(new StatementOptions(previous).setQueryTimeout((int) Math.min(
+					seconds, Integer.MAX_VALUE)));
+			try {
+				return delegate.execute(session, shardId);
+			} finally {
+				StatementOptions.set(previous);
+			}
+		}
+
+		@Override
+		public String getOperationName() {
+			return delegate.getOperationName();
+		}
+	}
+
+	/**
+	 * 记录各虚拟分区的完成情况, 报告关闭(超时)之后到达的结果被丢弃.
+	 */
+	private class ReportingExitStrategy<T> implements ExitStrategy<T> {
+
+		private final ExitStrategy<T> delegate;
+
+		private final ShardId shardId;
+
+		ReportingExitStrategy(ExitStrategy<T> delegate, ShardId shardId) {
+			this.delegate = delegate;
+			this.shardId = shardId;
+		}
+
+		@Override
+		public boolean addResult(T result, Shard shard) {
+			// 各分区之间不互斥(delegate本身是线程安全的), 只与关闭报告互斥:
+			// 关闭之后delegate不再被修改, 可以安全地合并结果
+			Lock lock = closeLock.readLock();
+			lock.lock();
+			try {
+				if (report.isClosed()) {
+					return false;
+				}
+				boolean halt = delegate.addResult(result, shard);
+				report.markCompleted(shardId);
+				return halt;
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		@Override
+		public T compileResults(ExitOperationsCollector exitOperationsCollector) {
+			return delegate.compileResults(exitOperationsCollector);
+		}
+	}
+}
@@ -10,31 +10,64 @@ package org.makersoft.shards.strategy.access.impl;
 
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.makersoft.shards.MyBatisShardsException;
 import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.ShardOperation;
-import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.plugin.StatementCancellation;
+import org.makersoft.shards.strategy.access.AsyncShardAccessStrategy;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
 import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
 import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.FirstNonNullResultExitStrategy;
 import org.makersoft.shards.utils.Assert;
 import org.makersoft.shards.utils.Lists;
 
 /**
  * 并行访问策略
  */
-public class ParallelShardAccessStrategy implements ShardAccessStrategy{
+public class ParallelShardAccessStrategy implements AsyncShardAccessStrategy{
 	
 	private final Log log = LogFactory.getLog(getClass());
 	
 	private final ThreadPoolExecutor executor;
+	
+	// 没有在调用线程上设置超时时使用, 为null表示一直等待
+	private final ShardAccessDeadline defaultDeadline;
+	
+	// 短路或超时之后未执行或被取消的分区操作数
+	private final AtomicLong avoidedExecutions = new AtomicLong();
 	  
 	public ParallelShardAccessStrategy(ThreadPoolExecutor executor) {
+		this(executor, null);
+	}
+	
+	/**
+	 * @param defaultDeadline
+	 *            默认超时, 调用线程上的{@link ShardAccessDeadline#current()}优先
+	 */
+	public ParallelShardAccessStrategy(ThreadPoolExecutor executor, ShardAccessDeadline defaultDeadline) {
 		Assert.notNull(executor);
 		this.executor = executor;
+		this.defaultDeadline = defaultDeadline;
+	}
+
+	/**
+	 * @return 默认超时, 没有则返回null
+	 */
+	public ShardAccessDeadline getDefaultDeadline() {
+		return defaultDeadline;
 	}
 	
 	@Override
@@ -42,7 +75,15 @@ public class ParallelShardAccessStrategy implements ShardAccessStrategy{
 			ExitStrategy<T> exitStrategy,
 			ExitOperationsCollector exitOperationsCollector) {
 
-		List<StartAwareFutureTask> tasks = Lists.newArrayListWithCapacity(shards.size());
+		int taskCount = 0;
+		for (Shard shard : shards) {
+			taskCount += shard.getShardIds().size();
+		}
+
+		DeadlineContext deadline = DeadlineContext.start(defaultDeadline, shards,
+				operation.getOperationName());
+
+		List<StartAwareFutureTask> tasks = Lists.newArrayListWithCapacity(taskCount);
 		
 		int taskId = 0;
 
@@ -55,22 +96,25 @@ public class ParallelShardAccessStrategy implements ShardAccessStrategy{
 	    /**
 	     * Used to signal this thread that all processing is complete
 	     */
-	    CountDownLatch doneSignal = new CountDownLatch(shards.size());
+	    CountDownLatch doneSignal = new CountDownLatch(taskCount);
 	    
 	    for(final Shard shard : shards) {
 	        // create a task for each shard
 	    	for(final ShardId shardId : shard.getShardIds()) {
+	    		StatementCancellation statementCancellation = new StatementCancellation();
 	    		ParallelShardOperationCallable<T> callable =
 	    	            new ParallelShardOperationCallable<T>(
 	    	                startSignal,
 	    	                doneSignal,
-	    	                exitStrategy,
-	    	                operation,
+	    	                deadline == null ? exitStrategy : deadline.wrap(exitStrategy, shardId),
+	    	                deadline == null ? operation : deadline.wrap(operation),
 	    	                shard,
 	    	                shardId,
-	    	                tasks);
+	    	                tasks,
+	    	                statementCancellation,
+	    	                avoidedExecutions);
 	    	        // wrap the task in a StartAwareFutureTask so that the task can be cancelled
-	    	        StartAwareFutureTask ft = new StartAwareFutureTask(callable, taskId++);
+	    	        StartAwareFutureTask ft = new StartAwareFutureTask(callable, taskId++, statementCancellation);
 	    	        tasks.add(ft);
 	    	        // hand the task off to the executor for execution
 	    	        executor.execute(ft);
@@ -79,25 +123,123 @@ public class ParallelShardAccessStrategy implements ShardAccessStrategy{
 	      }
 	      // the tasks List is populated, release the threads!
 	      startSignal.countDown();
+	      boolean timedOut = false;
 	      try {
 	        log.debug("Waiting for threads to complete processing before proceeding.");
-	        //TODO(maxr) let users customize timeout behavior
-	        /*
-	        if(!doneSignal.await(10, TimeUnit.SECONDS)) {
-	          final String msg = "Parallel operations timed out.";
-	          log.error(msg);
-	          throw new HibernateException(msg);
+	        if (deadline == null) {
+	          // now we wait until all threads finish
+	          doneSignal.await();
+	        } else {
+	          timedOut = !doneSignal.await(deadline.remainingNanos(), TimeUnit.NANOSECONDS)
+	              || deadline.isExpired();
 	        }
-	        */
-	        // now we wait until all threads finish
-	        doneSignal.await();
 	      } catch (InterruptedException e) {
 	        // not sure why this would happen or what we should do if it does
 	        log.error("Received unexpected exception while waiting for done signal.", e);
 	      }
+	      if (timedOut) {
+	        // 尚未开始的任务不再执行, 正在执行的语句被取消, 其结果不再计入
+	        for (StartAwareFutureTask ft : tasks) {
+	          if (ft.cancel(false) || ft.cancelRunningStatement()) {
+	            avoidedExecutions.incrementAndGet();
+	          }
+	        }
+	        deadline.expire();
+	      }
+	      rethrowFailure(tasks);
+	      if (timedOut) {
+	        deadline.checkTimeout();
+	      }
 	      log.debug("Compiling results.");
 	    
 		return exitStrategy.compileResults(exitOperationsCollector);
 	}
 
+	@Override
+	public <T> ShardFuture<T> applyAsync(List<Shard> shards, ShardOperation<T> operation,
+			ExitStrategy<T> exitStrategy, ExitOperationsCollector exitOperationsCollector) {
+		int taskCount = 0;
+		for (Shard shard : shards) {
+			taskCount += shard.getShardIds().size();
+		}
+
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		DeadlineContext deadline = DeadlineContext.start(defaultDeadline, shards,
+				operation.getOperationName());
+		if (taskCount == 0) {
+			AsyncShardOperationTask.complete(future, exitStrategy, exitOperationsCollector, deadline);
+			return future;
+		}
+
+		AtomicInteger remaining = new AtomicInteger(taskCount);
+		AtomicBoolean halted = new AtomicBoolean(false);
+		for (Shard shard : shards) {
+			for (ShardId shardId : shard.getShardIds()) {
+				if (!submit(new AsyncShardOperationTask<T>(future, remaining, halted,
+						exitStrategy, exitOperationsCollector, operation, shard, shardId,
+						deadline), future)) {
+					return future;
+				}
+			}
+		}
+		return future;
+	}
+
+	@Override
+	public <T> ShardFuture<T> applyAsync(Shard shard, ShardId shardId, ShardOperation<T> operation) {
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		submit(new AsyncShardOperationTask<T>(future, new AtomicInteger(1), new AtomicBoolean(
+				false), new FirstNonNullResultExitStrategy<T>(), null, operation, shard, shardId,
+				DeadlineContext.start(defaultDeadline, shardId, operation.getOperationName())),
+				future);
+		return future;
+	}
+
+	/**
+	 * @return 线程池拒绝任务时以异常完成future并返回false
+	 */
+	private boolean submit(Runnable task, SettableShardFuture<?> future) {
+		try {
+			executor.execute(task);
+			return true;
+		} catch (RejectedExecutionException e) {
+			future.setException(e);
+			return false;
+		}
+	}
+
+	/**
+	 * @return 由于短路(例如{@link FirstNonNullResultExitStrategy}已经得到结果)或超时,
+	 *         没有执行或执行中被取消的分区操作数
+	 */
+	public long getAvoidedExecutionCount() {
+		return avoidedExecutions.get();
+	}
+
+	/**
+	 * 任一分区执行失败时将异常抛给调用者, 而不是静默地返回部分结果.
+	 */
+	private void rethrowFailure(List<StartAwareFutureTask> tasks) {
+		for (StartAwareFutureTask ft : tasks) {
+			if (ft.isCancelled() || !ft.isDone()) {
+				continue;
+			}
+			try {
+				ft.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MyBatisShardsException("Interrupted while collecting shard results", e);
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw new MyBatisShardsException(cause.getMessage(), cause);
+			}
+		}
+	}
+
 }
@@ -11,12 +11,15 @@ package org.makersoft.shards.strategy.access.impl;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.makersoft.shards.Shard;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.plugin.StatementCancellation;
+import org.makersoft.shards.plugin.StatementOptions;
 import org.makersoft.shards.strategy.exit.ExitStrategy;
 
 /**
@@ -47,6 +50,10 @@ class ParallelShardOperationCallable<T> implements Callable<Void> {
 
   private final List<StartAwareFutureTask> futureTasks;
 
+  private final StatementCancellation statementCancellation;
+
+  private final AtomicLong avoidedExecutions;
+
   public ParallelShardOperationCallable(
       CountDownLatch startSignal,
       CountDownLatch doneSignal,
@@ -54,7 +61,9 @@ class ParallelShardOperationCallable<T> implements Callable<Void> {
       ShardOperation<T> operation,
       Shard shard,
       ShardId shardId,
-      List<StartAwareFutureTask> futureTasks) {
+      List<StartAwareFutureTask> futureTasks,
+      StatementCancellation statementCancellation,
+      AtomicLong avoidedExecutions) {
     this.startSignal = startSignal;
     this.doneSignal = doneSignal;
     this.exitStrategy = exitStrategy;
@@ -62,17 +71,30 @@ class ParallelShardOperationCallable<T> implements Callable<Void> {
     this.shard = shard;
     this.shardId = shardId;
     this.futureTasks = futureTasks;
+    this.statementCancellation = statementCancellation;
+    this.avoidedExecutions = avoidedExecutions;
   }
 
   public Void call() throws Exception {
     try {
       waitForStartSignal();
       log.debug(String.format("Starting execution of %s against shard %s",  operation.getOperationName(), shard));
+      T result;
+      try {
+        result = execute();
+      } catch (RuntimeException e) {
+        if (statementCancellation.isCancelled()) {
+          // another task already has the answer, the failure is caused by the cancellation
+          log.debug(String.format("Execution of %s against shard %s was cancelled", operation.getOperationName(), shardId));
+          return null;
+        }
+        throw e;
+      }
       /**
        * If addResult() returns true it means there is no more work to be
        * performed.  Cancel all the outstanding tasks.
        */
-      if(exitStrategy.addResult(operation.execute(shard.establishSqlSession(), shardId), shard)) {
+      if(exitStrategy.addResult(result, shard)) {
         log.debug(
             String.format(
                 "Short-circuiting execution of %s on other threads after execution against shard %s",
@@ -96,6 +118,15 @@ class ParallelShardOperationCallable<T> implements Callable<Void> {
           if(ft.cancel(INTERRUPT_IF_RUNNING)) {
             log.debug("Task cancel returned true, decrementing counter on its behalf.");
             doneSignal.countDown();
+            avoidedExecutions.incrementAndGet();
+          } else if (ft.getStatementCancellation() != statementCancellation
+              && ft.cancelRunningStatement()) {
+            /**
+             * The task is already running, interrupting the thread isn't
+             * honored by JDBC drivers, so cancel its statement instead.
+             */
+            log.debug("Task cancel returned false, cancelled its running statement.");
+            avoidedExecutions.incrementAndGet();
           } else {
             log.debug("Task cancel returned false, not decrementing counter on its behalf.");
           }
@@ -115,6 +146,19 @@ class ParallelShardOperationCallable<T> implements Callable<Void> {
     return null;
   }
 
+  /**
+   * Registers the statements of the operation so that other tasks can cancel them.
+   */
+  private T execute() {
+    StatementOptions previous = StatementOptions.current();
+    StatementOptions.set(new StatementOptions(previous).setCancellation(statementCancellation));
+    try {
+      return operation.execute(shard.establishSqlSession(), shardId);
+    } finally {
+      StatementOptions.set(previous);
+    }
+  }
+
   private void waitForStartSignal() {
     try {
       startSignal.await();
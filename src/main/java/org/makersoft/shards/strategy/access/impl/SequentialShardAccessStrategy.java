@@ -15,33 +15,71 @@ import org.apache.ibatis.logging.LogFactory;
 import org.makersoft.shards.Shard;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
 import org.makersoft.shards.strategy.access.ShardAccessStrategy;
 import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
 import org.makersoft.shards.strategy.exit.ExitStrategy;
 
 /**
  * 顺序访问策略
+ * <p>
+ * 设置了{@link ShardAccessDeadline}时, 截止时间之后不再访问剩余的分区, 正在执行的语句以剩余时间作为JDBC查询超时.
+ * </p>
  */
 public class SequentialShardAccessStrategy implements ShardAccessStrategy {
 
 	private final Log log = LogFactory.getLog(getClass());
 
+	// 没有在调用线程上设置超时时使用, 为null表示不限制
+	private final ShardAccessDeadline defaultDeadline;
+
+	public SequentialShardAccessStrategy() {
+		this(null);
+	}
+
+	/**
+	 * @param defaultDeadline
+	 *            默认超时, 调用线程上的{@link ShardAccessDeadline#current()}优先
+	 */
+	public SequentialShardAccessStrategy(ShardAccessDeadline defaultDeadline) {
+		this.defaultDeadline = defaultDeadline;
+	}
+
+	/**
+	 * @return 默认超时, 没有则返回null
+	 */
+	public ShardAccessDeadline getDefaultDeadline() {
+		return defaultDeadline;
+	}
+
 	public <T> T apply(List<Shard> shards, ShardOperation<T> operation,
 			ExitStrategy<T> exitStrategy,
 			ExitOperationsCollector exitOperationsCollector) {
+		DeadlineContext deadline = DeadlineContext.start(defaultDeadline, shards,
+				operation.getOperationName());
 		
 		/*
 		 * TODO:将双重循环优化为一次循环Map<ShardId,Shard>，便于代码可读性。
 		 */
 		execute: for (Shard shard : getNextOrderingOfShards(shards)) {
 			for(ShardId shardId : shard.getShardIds()){
-				if (exitStrategy.addResult(operation.execute(shard.establishSqlSession(), shardId), shard)) {
+				if (deadline != null && deadline.remainingNanos() <= 0) {
+					// 已经超时, 剩余分区不再访问
+					deadline.expire();
+					break execute;
+				}
+				ShardOperation<T> shardOperation = deadline == null ? operation : deadline.wrap(operation);
+				ExitStrategy<T> shardExitStrategy = deadline == null ? exitStrategy : deadline.wrap(exitStrategy, shardId);
+				if (shardExitStrategy.addResult(shardOperation.execute(shard.establishSqlSession(), shardId), shard)) {
 					log.debug(String.format("Short-circuiting operation %s after execution against shard %s", operation.getOperationName(), shard));
 					break execute;
 				}
 			}
 			
 		}
+		if (deadline != null) {
+			deadline.checkTimeout();
+		}
 		
 		return exitStrategy.compileResults(exitOperationsCollector);
 	}
@@ -0,0 +1,155 @@
+/*
+ * @(#)SettableShardFuture.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access.impl;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardFutureCallback;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 由执行者显式完成的{@link ShardFuture}, 只有第一次set/setException/cancel生效.
+ * 
+ * @author Feng Kuok
+ */
+public class SettableShardFuture<T> implements ShardFuture<T> {
+
+	private static final Log log = LogFactory.getLog(SettableShardFuture.class);
+
+	private final CountDownLatch doneSignal = new CountDownLatch(1);
+
+	// 完成之前注册的回调, 完成之后置为null
+	private List<ShardFutureCallback<? super T>> callbacks = Lists.newArrayList();
+
+	private T result;
+
+	private Throwable cause;
+
+	public boolean set(T result) {
+		List<ShardFutureCallback<? super T>> toNotify;
+		synchronized (this) {
+			if (callbacks == null) {
+				return false;
+			}
+			this.result = result;
+			toNotify = complete();
+		}
+		for (ShardFutureCallback<? super T> callback : toNotify) {
+			notifySuccess(callback, result);
+		}
+		return true;
+	}
+
+	public boolean setException(Throwable cause) {
+		Assert.notNull(cause);
+		List<ShardFutureCallback<? super T>> toNotify;
+		synchronized (this) {
+			if (callbacks == null) {
+				return false;
+			}
+			this.cause = cause;
+			toNotify = complete();
+		}
+		for (ShardFutureCallback<? super T> callback : toNotify) {
+			notifyFailure(callback, cause);
+		}
+		return true;
+	}
+
+	/**
+	 * 取消之后尚未开始的分区任务不再执行, 已经开始的任务不会被中断.
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		return setException(new CancellationException("Shard operation was cancelled"));
+	}
+
+	private List<ShardFutureCallback<? super T>> complete() {
+		List<ShardFutureCallback<? super T>> toNotify = callbacks;
+		callbacks = null;
+		doneSignal.countDown();
+		return toNotify;
+	}
+
+	@Override
+	public void addCallback(ShardFutureCallback<? super T> callback) {
+		Assert.notNull(callback);
+		synchronized (this) {
+			if (callbacks != null) {
+				callbacks.add(callback);
+				return;
+			}
+		}
+		if (cause == null) {
+			notifySuccess(callback, result);
+		} else {
+			notifyFailure(callback, cause);
+		}
+	}
+
+	private static <T> void notifySuccess(ShardFutureCallback<? super T> callback, T result) {
+		try {
+			callback.onSuccess(result);
+		} catch (RuntimeException e) {
+			log.error("Exception thrown by ShardFutureCallback.onSuccess()", e);
+		}
+	}
+
+	private static void notifyFailure(ShardFutureCallback<?> callback, Throwable cause) {
+		try {
+			callback.onFailure(cause);
+		} catch (RuntimeException e) {
+			log.error("Exception thrown by ShardFutureCallback.onFailure()", e);
+		}
+	}
+
+	@Override
+	public synchronized boolean isCancelled() {
+		return cause instanceof CancellationException;
+	}
+
+	@Override
+	public boolean isDone() {
+		return doneSignal.getCount() == 0;
+	}
+
+	@Override
+	public T get() throws InterruptedException, ExecutionException {
+		doneSignal.await();
+		return getDone();
+	}
+
+	@Override
+	public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+			TimeoutException {
+		if (!doneSignal.await(timeout, unit)) {
+			throw new TimeoutException();
+		}
+		return getDone();
+	}
+
+	private synchronized T getDone() throws ExecutionException {
+		if (cause instanceof CancellationException) {
+			throw (CancellationException) cause;
+		}
+		if (cause != null) {
+			throw new ExecutionException(cause);
+		}
+		return result;
+	}
+}
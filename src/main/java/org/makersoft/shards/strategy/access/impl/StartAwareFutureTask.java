@@ -14,6 +14,8 @@ import org.apache.commons.logging.LogFactory;
 import java.util.concurrent.Callable;
 import java.util.concurrent.FutureTask;
 
+import org.makersoft.shards.plugin.StatementCancellation;
+
 /**
  * Extension of FutureTask that provides slightly different cancel()
  * behavior.  We want cancel() to only return true if the task has not yet run.
@@ -44,11 +46,23 @@ class StartAwareFutureTask extends FutureTask<Void> {
 
   private final int id;
 
+  private final StatementCancellation statementCancellation;
+
   private final Log log = LogFactory.getLog(getClass());
 
   public StartAwareFutureTask(Callable<Void> callable, int id) {
+    this(callable, id, null);
+  }
+
+  /**
+   * @param statementCancellation used to cancel the JDBC statement of the
+   *        task once it is running, may be null
+   */
+  public StartAwareFutureTask(Callable<Void> callable, int id,
+      StatementCancellation statementCancellation) {
     super(callable);
     this.id = id;
+    this.statementCancellation = statementCancellation;
   }
 
   @Override
@@ -91,6 +105,23 @@ class StartAwareFutureTask extends FutureTask<Void> {
     return id;
   }
 
+  StatementCancellation getStatementCancellation() {
+    return statementCancellation;
+  }
+
+  /**
+   * cancel() can't stop a task that is already running, so cancel the JDBC
+   * statement it is executing instead.
+   *
+   * @return true if the running task had not been cancelled before
+   */
+  boolean cancelRunningStatement() {
+    if (statementCancellation == null || isDone()) {
+      return false;
+    }
+    return statementCancellation.cancel();
+  }
+
   boolean superCancel(boolean mayInterruptIfRunning) {
     return super.cancel(mayInterruptIfRunning);
   }
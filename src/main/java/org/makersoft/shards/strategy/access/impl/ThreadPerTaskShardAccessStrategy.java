@@ -0,0 +1,221 @@
+/*
+ * @(#)ThreadPerTaskShardAccessStrategy.java 2026-10-18 下午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.access.impl;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.AsyncShardAccessStrategy;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.FirstNonNullResultExitStrategy;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 每个分区操作启动一个新线程的并行访问策略, 不受线程池大小与队列容量的限制,
+ * 分区数量很多时不会因为线程池饱和而拒绝任务.
+ * <p>
+ * 线程由{@link ThreadFactory}创建, 在JDK 21上可以传入<code>Thread.ofVirtual().factory()</code>使用虚拟线程.
+ * 为保护各分区的连接池, 可以限制每个物理分区上同时执行的操作数, 超出的操作在各自的线程中等待,
+ * 不会阻塞调用线程.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class ThreadPerTaskShardAccessStrategy implements AsyncShardAccessStrategy {
+
+	private final ThreadFactory threadFactory;
+
+	private final int maxConcurrencyPerShard;
+
+	// 没有在调用线程上设置超时时使用, 为null表示一直等待
+	private final ShardAccessDeadline defaultDeadline;
+
+	private final ConcurrentMap<Shard, Semaphore> shardPermits = new ConcurrentHashMap<Shard, Semaphore>();
+
+	/**
+	 * 使用守护线程, 不限制每个分区的并发数.
+	 */
+	public ThreadPerTaskShardAccessStrategy() {
+		this(new DaemonThreadFactory(), 0);
+	}
+
+	/**
+	 * @param maxConcurrencyPerShard
+	 *            每个物理分区上同时执行的最大操作数, 小于等于0表示不限制
+	 */
+	public ThreadPerTaskShardAccessStrategy(ThreadFactory threadFactory, int maxConcurrencyPerShard) {
+		this(threadFactory, maxConcurrencyPerShard, null);
+	}
+
+	/**
+	 * @param defaultDeadline
+	 *            默认超时, 调用线程上的{@link ShardAccessDeadline#current()}优先
+	 */
+	public ThreadPerTaskShardAccessStrategy(ThreadFactory threadFactory,
+			int maxConcurrencyPerShard, ShardAccessDeadline defaultDeadline) {
+		Assert.notNull(threadFactory);
+		this.threadFactory = threadFactory;
+		this.maxConcurrencyPerShard = maxConcurrencyPerShard;
+		this.defaultDeadline = defaultDeadline;
+	}
+
+	/**
+	 * @return 默认超时, 没有则返回null
+	 */
+	public ShardAccessDeadline getDefaultDeadline() {
+		return defaultDeadline;
+	}
+
+	@Override
+	public <T> T apply(List<Shard> shards, ShardOperation<T> operation,
+			ExitStrategy<T> exitStrategy, ExitOperationsCollector exitOperationsCollector) {
+		DeadlineContext deadline = DeadlineContext.start(defaultDeadline, shards,
+				operation.getOperationName());
+		SettableShardFuture<T> future = applyAsync(shards, operation, exitStrategy,
+				exitOperationsCollector, deadline);
+		try {
+			if (deadline == null) {
+				return future.get();
+			}
+			try {
+				return future.get(deadline.remainingNanos(), TimeUnit.NANOSECONDS);
+			} catch (TimeoutException e) {
+				// 截止时间已到: 之后完成的分区不再计入, 尚未开始的分区不再执行
+				deadline.expire();
+				AsyncShardOperationTask.complete(future, exitStrategy, exitOperationsCollector,
+						deadline);
+				return future.get();
+			}
+		} catch (InterruptedException e) {
+			future.cancel(false);
+			Thread.currentThread().interrupt();
+			throw new MyBatisShardsException("Interrupted while waiting for shard operations", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new MyBatisShardsException(cause.getMessage(), cause);
+		}
+	}
+
+	@Override
+	public <T> ShardFuture<T> applyAsync(List<Shard> shards, ShardOperation<T> operation,
+			ExitStrategy<T> exitStrategy, ExitOperationsCollector exitOperationsCollector) {
+		return applyAsync(shards, operation, exitStrategy, exitOperationsCollector,
+				DeadlineContext.start(defaultDeadline, shards, operation.getOperationName()));
+	}
+
+	private <T> SettableShardFuture<T> applyAsync(List<Shard> shards,
+			ShardOperation<T> operation, ExitStrategy<T> exitStrategy,
+			ExitOperationsCollector exitOperationsCollector, DeadlineContext deadline) {
+		int taskCount = 0;
+		for (Shard shard : shards) {
+			taskCount += shard.getShardIds().size();
+		}
+
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		if (taskCount == 0) {
+			AsyncShardOperationTask.complete(future, exitStrategy, exitOperationsCollector, deadline);
+			return future;
+		}
+
+		AtomicInteger remaining = new AtomicInteger(taskCount);
+		AtomicBoolean halted = new AtomicBoolean(false);
+		for (Shard shard : shards) {
+			for (ShardId shardId : shard.getShardIds()) {
+				start(shard, new AsyncShardOperationTask<T>(future, remaining, halted,
+						exitStrategy, exitOperationsCollector, operation, shard, shardId, deadline),
+						future);
+			}
+		}
+		return future;
+	}
+
+	@Override
+	public <T> ShardFuture<T> applyAsync(Shard shard, ShardId shardId, ShardOperation<T> operation) {
+		SettableShardFuture<T> future = new SettableShardFuture<T>();
+		start(shard, new AsyncShardOperationTask<T>(future, new AtomicInteger(1),
+				new AtomicBoolean(false), new FirstNonNullResultExitStrategy<T>(), null,
+				operation, shard, shardId, DeadlineContext.start(defaultDeadline, shardId,
+						operation.getOperationName())), future);
+		return future;
+	}
+
+	private void start(Shard shard, final Runnable task, final SettableShardFuture<?> future) {
+		final Semaphore permits = getPermits(shard);
+		Runnable runnable = permits == null ? task : new Runnable() {
+			public void run() {
+				try {
+					permits.acquire();
+				} catch (InterruptedException e) {
+					future.setException(e);
+					return;
+				}
+				try {
+					task.run();
+				} finally {
+					permits.release();
+				}
+			}
+		};
+
+		Thread thread = threadFactory.newThread(runnable);
+		if (thread == null) {
+			future.setException(new MyBatisShardsException("ThreadFactory returned null thread"));
+			return;
+		}
+		thread.start();
+	}
+
+	private Semaphore getPermits(Shard shard) {
+		if (maxConcurrencyPerShard <= 0) {
+			return null;
+		}
+		Semaphore permits = shardPermits.get(shard);
+		if (permits == null) {
+			Semaphore created = new Semaphore(maxConcurrencyPerShard);
+			permits = shardPermits.putIfAbsent(shard, created);
+			if (permits == null) {
+				permits = created;
+			}
+		}
+		return permits;
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger threadNumber = new AtomicInteger(1);
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "shard-access-" + threadNumber.getAndIncrement());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
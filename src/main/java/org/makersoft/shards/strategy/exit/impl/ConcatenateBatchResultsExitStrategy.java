@@ -0,0 +1,40 @@
+/*
+ * @(#)ConcatenateBatchResultsExitStrategy.java 2026-10-18 下午2:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.List;
+
+import org.apache.ibatis.executor.BatchResult;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Threadsafe ExitStrategy that concatenates the {@link BatchResult}s of every shard.
+ */
+public class ConcatenateBatchResultsExitStrategy implements ExitStrategy<List<BatchResult>> {
+
+	private final List<BatchResult> batchResults = Lists.newArrayList();
+
+	@Override
+	public synchronized boolean addResult(List<BatchResult> oneResult, Shard shard) {
+		if (oneResult != null && !oneResult.isEmpty()) {
+			batchResults.addAll(oneResult);
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized List<BatchResult> compileResults(
+			ExitOperationsCollector exitOperationsCollector) {
+		return batchResults;
+	}
+
+}
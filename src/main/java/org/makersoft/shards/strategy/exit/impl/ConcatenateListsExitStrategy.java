@@ -9,28 +9,41 @@
 package org.makersoft.shards.strategy.exit.impl;
 
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.makersoft.shards.Shard;
 import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
 import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Lists;
 
 /**
  * Threadsafe ExistStrategy that concatenates all the lists that are added.
+ * <p>
+ * 各分区的结果列表以无锁队列保存, 只在compileResults时拼接一次.
+ * </p>
  */
 public class ConcatenateListsExitStrategy implements ExitStrategy<List<Object>> {
 
-	private final List<Object> nonNullResult = new CopyOnWriteArrayList<Object>();
+	private final Queue<List<Object>> shardResults = new ConcurrentLinkedQueue<List<Object>>();
 
 	public boolean addResult(List<Object> oneResult, Shard shard) {
 		if(oneResult != null && !oneResult.isEmpty()){
-			nonNullResult.addAll(oneResult);
+			shardResults.add(oneResult);
 		}
 		return false;
 	}
 
 	@Override
 	public List<Object> compileResults(ExitOperationsCollector exitOperationsCollector) {
+		int size = 0;
+		for (List<Object> oneResult : shardResults) {
+			size += oneResult.size();
+		}
+		List<Object> nonNullResult = Lists.newArrayListWithCapacity(size);
+		for (List<Object> oneResult : shardResults) {
+			nonNullResult.addAll(oneResult);
+		}
 		return exitOperationsCollector.apply(nonNullResult);
 	}
 	
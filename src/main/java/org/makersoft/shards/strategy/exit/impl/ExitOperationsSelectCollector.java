@@ -13,6 +13,8 @@ import java.util.List;
 
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSessionFactory;
+import org.makersoft.shards.select.Grouping;
+import org.makersoft.shards.select.Order;
 import org.makersoft.shards.select.SelectFactory;
 import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
 import org.makersoft.shards.strategy.reduce.ShardReduceStrategy;
@@ -28,30 +30,50 @@ public class ExitOperationsSelectCollector implements ExitOperationsCollector {
 	private final String statement;
 	private final Object parameter;
 	private final RowBounds rowBounds;
+	private final Grouping grouping;
+	private final List<Order> orders;
+	
+	// 合并之后截取的窗口
+	private final RowBounds windowRowBounds;
 	
 	private final ShardReduceStrategy shardReduceStrategy;
 	
 	
 	public ExitOperationsSelectCollector(SelectFactory selectFactory, ShardReduceStrategy shardReduceStrategy){
+		this(selectFactory, shardReduceStrategy, selectFactory.getRowBounds());
+	}
+	
+	/**
+	 * @param windowRowBounds 合并之后截取的窗口, RowBounds已经下推到分区中执行时传入{@link RowBounds#DEFAULT}
+	 */
+	public ExitOperationsSelectCollector(SelectFactory selectFactory,
+			ShardReduceStrategy shardReduceStrategy, RowBounds windowRowBounds) {
 		this.statement = selectFactory.getStatement();
 		this.parameter = selectFactory.getParameter();
 		this.rowBounds = selectFactory.getRowBounds();
+		this.grouping = selectFactory.getGrouping();
+		this.orders = selectFactory.getOrders();
+		this.windowRowBounds = windowRowBounds;
 		
 		this.shardReduceStrategy = shardReduceStrategy;
-		
 	}
 
 	@Override
 	public List<Object> apply(List<Object> values) {
 		
 		if(!values.isEmpty()){
+			//合并各分区分组键相同的行, 之后按排序键重新排序
+			if (grouping != null) {
+				values = new GroupByExitOperation(grouping, orders).apply(values);
+			}
+			
 			//调用reduce策略
 			List<Object> results = shardReduceStrategy.reduce(statement, parameter, rowBounds, values);
 			
 			values = (results != null) ? results : Collections.emptyList();	//去除结果为null的情况
 			
-			if (rowBounds != null && rowBounds != RowBounds.DEFAULT) {
-				values = new RowBoundsExitOperation(rowBounds).apply(values);
+			if (windowRowBounds != null && windowRowBounds != RowBounds.DEFAULT) {
+				values = new RowBoundsExitOperation(windowRowBounds).apply(values);
 			}
 			
 		}
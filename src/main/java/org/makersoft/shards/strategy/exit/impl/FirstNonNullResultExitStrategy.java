@@ -8,6 +8,8 @@
  */
 package org.makersoft.shards.strategy.exit.impl;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import org.makersoft.shards.Shard;
 import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
 import org.makersoft.shards.strategy.exit.ExitStrategy;
@@ -18,28 +20,39 @@ import org.makersoft.shards.utils.Assert;
  */
 public class FirstNonNullResultExitStrategy<T> implements ExitStrategy<T> {
 
-	private T nonNullResult;
-	private Shard shard;
+	private final AtomicReference<ShardResult<T>> firstResult = new AtomicReference<ShardResult<T>>();
 
 	/**
-	 * Synchronized method guarantees that only the first thread to add a result
+	 * Compare-and-set guarantees that only the first thread to add a result
 	 * will have its result reflected.
 	 */
-	public final synchronized boolean addResult(T result, Shard shard) {
+	public final boolean addResult(T result, Shard shard) {
 		Assert.notNull(shard);
-		if (result != null && nonNullResult == null) {
-			nonNullResult = result;
-			this.shard = shard;
-			return true;
+		if (result != null && firstResult.get() == null) {
+			return firstResult.compareAndSet(null, new ShardResult<T>(result, shard));
 		}
 		return false;
 	}
 
 	public T compileResults(ExitOperationsCollector exitOperationsCollector) {
-		return nonNullResult;
+		ShardResult<T> shardResult = firstResult.get();
+		return shardResult == null ? null : shardResult.result;
 	}
 
 	public Shard getShardOfResult() {
-		return shard;
+		ShardResult<T> shardResult = firstResult.get();
+		return shardResult == null ? null : shardResult.shard;
+	}
+
+	private static class ShardResult<T> {
+
+		private final T result;
+
+		private final Shard shard;
+
+		ShardResult(T result, Shard shard) {
+			this.result = result;
+			this.shard = shard;
+		}
 	}
 }
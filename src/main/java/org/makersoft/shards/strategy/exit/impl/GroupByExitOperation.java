@@ -0,0 +1,283 @@
+/*
+ * @(#)GroupByExitOperation.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.apache.ibatis.reflection.factory.DefaultObjectFactory;
+import org.apache.ibatis.reflection.factory.ObjectFactory;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.select.Grouping;
+import org.makersoft.shards.select.Grouping.Aggregate;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.impl.OrderComparator;
+import org.makersoft.shards.strategy.exit.ExitOperation;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+import org.makersoft.shards.utils.NumberUtil;
+import org.makersoft.shards.utils.PropertyAccessor;
+
+/**
+ * 合并各分区GROUP BY的部分结果: 分组键相同的行在hash表中合并, 聚合列累加在long/double中,
+ * 之后依次应用HAVING和排序.
+ * <p>
+ * 每个分组复制第一次出现的行对象(Bean或Map), 合并后把聚合值写入副本, 类型与分区返回的类型一致;
+ * 分区返回的行可能是MyBatis一级缓存中的对象, 不能修改.
+ * 逐行读取分组键和聚合列使用缓存的{@link PropertyAccessor}.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class GroupByExitOperation implements ExitOperation {
+
+	private static final ObjectFactory OBJECT_FACTORY = new DefaultObjectFactory();
+
+	private final Grouping grouping;
+
+	private final Aggregate[] aggregates;
+
+	private final PropertyAccessor[] keyAccessors;
+
+	// 聚合列, AVG的SUM列和COUNT列, 下标与aggregates一致
+	private final PropertyAccessor[] valueAccessors;
+
+	private final PropertyAccessor[] sumAccessors;
+
+	private final PropertyAccessor[] countAccessors;
+
+	private final OrderComparator comparator;
+
+	public GroupByExitOperation(Grouping grouping, List<Order> orders) {
+		Assert.notNull(grouping);
+		this.grouping = grouping;
+		this.aggregates = grouping.getAggregates().toArray(
+				new Aggregate[grouping.getAggregates().size()]);
+		this.keyAccessors = new PropertyAccessor[grouping.getKeys().size()];
+		for (int i = 0; i < keyAccessors.length; i++) {
+			keyAccessors[i] = PropertyAccessor.forPath(grouping.getKeys().get(i));
+		}
+		this.valueAccessors = new PropertyAccessor[aggregates.length];
+		this.sumAccessors = new PropertyAccessor[aggregates.length];
+		this.countAccessors = new PropertyAccessor[aggregates.length];
+		for (int i = 0; i < aggregates.length; i++) {
+			valueAccessors[i] = PropertyAccessor.forPath(aggregates[i].getProperty());
+			if (aggregates[i].getFunction() == Grouping.Function.AVG) {
+				sumAccessors[i] = PropertyAccessor.forPath(aggregates[i].getSumProperty());
+				countAccessors[i] = PropertyAccessor.forPath(aggregates[i].getCountProperty());
+			}
+		}
+		this.comparator = orders == null || orders.isEmpty() ? null : new OrderComparator(orders);
+	}
+
+	@Override
+	public List<Object> apply(List<Object> results) {
+		Map<Object, Group> groups = Maps.newLinkedHashMap();
+		for (Object row : results) {
+			if (row == null) {
+				continue;
+			}
+			Object key = groupKey(row);
+			Group group = groups.get(key);
+			if (group == null) {
+				group = new Group(row);
+				groups.put(key, group);
+			}
+			group.accumulate(row);
+		}
+
+		List<Object> merged = Lists.newArrayListWithCapacity(groups.size());
+		Grouping.Having having = grouping.getHaving();
+		for (Group group : groups.values()) {
+			group.finish();
+			if (having == null || having.accept(group.row)) {
+				merged.add(group.row);
+			}
+		}
+
+		if (comparator != null) {
+			Collections.sort(merged, comparator);
+		}
+		return merged;
+	}
+
+	private Object groupKey(Object row) {
+		if (keyAccessors.length == 1) {
+			return keyAccessors[0].getValue(row);
+		}
+		Object[] values = new Object[keyAccessors.length];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = keyAccessors[i].getValue(row);
+		}
+		return Arrays.asList(values);
+	}
+
+	/**
+	 * 一个分组的累加器, 下标与aggregates一致
+	 */
+	private final class Group {
+
+		private final Object row;
+
+		private final long[] longs = new long[aggregates.length];
+
+		private final double[] doubles = new double[aggregates.length];
+
+		private final boolean[] fractional = new boolean[aggregates.length];
+
+		// SUM/MIN/MAX是否出现过非null值, AVG的行数
+		private final long[] counts = new long[aggregates.length];
+
+		private final Object[] extremes = new Object[aggregates.length];
+
+		// 分区返回的聚合值类型
+		private final Class<?>[] types = new Class<?>[aggregates.length];
+
+		private Group(Object row) {
+			this.row = copyOf(row);
+			for (int i = 0; i < aggregates.length; i++) {
+				Object value = valueAccessors[i].getValue(row);
+				types[i] = value == null ? null : value.getClass();
+			}
+		}
+
+		private void accumulate(Object shardRow) {
+			for (int i = 0; i < aggregates.length; i++) {
+				Aggregate aggregate = aggregates[i];
+				switch (aggregate.getFunction()) {
+				case SUM:
+					Number sum = (Number) valueAccessors[i].getValue(shardRow);
+					if (sum != null) {
+						add(i, sum);
+						counts[i]++;
+					}
+					break;
+				case COUNT:
+					Number count = (Number) valueAccessors[i].getValue(shardRow);
+					if (count != null) {
+						longs[i] = NumberUtil.addExact(longs[i], NumberUtil.longValueExact(count));
+					}
+					break;
+				case MIN:
+				case MAX:
+					Object value = valueAccessors[i].getValue(shardRow);
+					if (value != null && (extremes[i] == null || isExtreme(aggregate, value, extremes[i]))) {
+						extremes[i] = value;
+					}
+					break;
+				case AVG:
+					Number shardCount = (Number) countAccessors[i].getValue(shardRow);
+					long rows = shardCount == null ? 0 : NumberUtil.longValueExact(shardCount);
+					if (rows != 0) {
+						add(i, (Number) sumAccessors[i].getValue(shardRow));
+						counts[i] = NumberUtil.addExact(counts[i], rows);
+					}
+					break;
+				}
+			}
+		}
+
+		private void add(int i, Number value) {
+			if (value == null) {
+				return;
+			}
+			if (NumberUtil.isIntegral(value)) {
+				longs[i] = NumberUtil.addExact(longs[i], NumberUtil.longValueExact(value));
+			} else {
+				fractional[i] = true;
+				doubles[i] += value.doubleValue();
+			}
+		}
+
+		/**
+		 * 把合并后的聚合值写回行对象
+		 */
+		private void finish() {
+			MetaObject metaObject = SystemMetaObject.forObject(row);
+			for (int i = 0; i < aggregates.length; i++) {
+				Aggregate aggregate = aggregates[i];
+				Object value;
+				switch (aggregate.getFunction()) {
+				case COUNT:
+					value = NumberUtil.valueOf(longs[i], types[i]);
+					break;
+				case MIN:
+				case MAX:
+					// 不同分区可能返回不同的数值类型
+					value = extremes[i] instanceof Number ? NumberUtil.convert(
+							(Number) extremes[i], targetType(i)) : extremes[i];
+					break;
+				case AVG:
+					value = counts[i] == 0 ? null : NumberUtil.valueOf(
+							(longs[i] + doubles[i]) / counts[i], targetType(i));
+					break;
+				default:
+					if (counts[i] == 0) {
+						value = null;
+					} else {
+						value = fractional[i] ? NumberUtil.valueOf(longs[i] + doubles[i],
+								targetType(i)) : NumberUtil.valueOf(longs[i], targetType(i));
+					}
+				}
+				metaObject.setValue(aggregate.getProperty(), value);
+			}
+		}
+
+		/**
+		 * @return Bean属性声明的类型, Map结果为分区返回的值的类型
+		 */
+		private Class<?> targetType(int i) {
+			if (!(row instanceof Map)) {
+				MetaClass metaClass = MetaClass.forClass(row.getClass());
+				String property = aggregates[i].getProperty();
+				if (metaClass.hasSetter(property)) {
+					return metaClass.getSetterType(property);
+				}
+			}
+			return types[i];
+		}
+	}
+
+	/**
+	 * @return 行对象的浅拷贝
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Object copyOf(Object row) {
+		Object copy = OBJECT_FACTORY.create(row.getClass());
+		if (row instanceof Map) {
+			((Map) copy).putAll((Map) row);
+			return copy;
+		}
+		MetaObject source = SystemMetaObject.forObject(row);
+		MetaObject target = SystemMetaObject.forObject(copy);
+		for (String property : source.getGetterNames()) {
+			if (target.hasSetter(property)) {
+				target.setValue(property, source.getValue(property));
+			}
+		}
+		return copy;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static boolean isExtreme(Aggregate aggregate, Object value, Object current) {
+		if (!(value instanceof Comparable)) {
+			throw new MyBatisShardsException("Aggregate value of type "
+					+ value.getClass().getName() + " is not comparable: " + aggregate);
+		}
+		int result = value instanceof Number && current instanceof Number ? NumberUtil.compare(
+				(Number) value, (Number) current) : ((Comparable) value).compareTo(current);
+		return aggregate.getFunction() == Grouping.Function.MIN ? result < 0 : result > 0;
+	}
+}
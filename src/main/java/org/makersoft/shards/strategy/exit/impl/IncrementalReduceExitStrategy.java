@@ -0,0 +1,74 @@
+/*
+ * @(#)IncrementalReduceExitStrategy.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.apache.ibatis.session.RowBounds;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.strategy.exit.ExitOperationUtils;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 使用{@link IncrementalReducer}的ExitStrategy: 每个分区的结果在addResult(即访问策略的工作线程)中折叠为累加器,
+ * compileResults只合并各分区的累加器.
+ * 
+ * @author Feng Kuok
+ */
+public class IncrementalReduceExitStrategy<A> implements ExitStrategy<List<Object>> {
+
+	private final IncrementalReducer<A> reducer;
+
+	// 合并之后截取的窗口
+	private final RowBounds windowRowBounds;
+
+	private final Queue<A> accumulators = new ConcurrentLinkedQueue<A>();
+
+	public IncrementalReduceExitStrategy(IncrementalReducer<A> reducer, RowBounds windowRowBounds) {
+		Assert.notNull(reducer);
+		this.reducer = reducer;
+		this.windowRowBounds = windowRowBounds;
+	}
+
+	public static <A> IncrementalReduceExitStrategy<A> of(IncrementalReducer<A> reducer,
+			RowBounds windowRowBounds) {
+		return new IncrementalReduceExitStrategy<A>(reducer, windowRowBounds);
+	}
+
+	@Override
+	public boolean addResult(List<Object> oneResult, Shard shard) {
+		if (oneResult != null && !oneResult.isEmpty()) {
+			accumulators.add(reducer.accumulate(reducer.createAccumulator(),
+					ExitOperationUtils.getNonNullList(oneResult)));
+		}
+		return false;
+	}
+
+	/**
+	 * 归约已经完成, exitOperationsCollector不再被使用
+	 */
+	@Override
+	public List<Object> compileResults(ExitOperationsCollector exitOperationsCollector) {
+		A result = reducer.createAccumulator();
+		for (A accumulator : accumulators) {
+			result = reducer.combine(result, accumulator);
+		}
+
+		List<Object> values = reducer.finish(result);
+		if (windowRowBounds != null && windowRowBounds != RowBounds.DEFAULT) {
+			values = new RowBoundsExitOperation(windowRowBounds).apply(values);
+		}
+		return values;
+	}
+}
@@ -0,0 +1,187 @@
+/*
+ * @(#)MergeMapsExitStrategy.java 2026-10-18 下午5:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.session.RowBounds;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Threadsafe ExitStrategy that merges the partial maps built by each shard.
+ * <p>
+ * 各分区在工作线程中各自构建Map, 这里只保存引用, 合并在compileResults中一次完成.
+ * 分区操作通过{@link #partialMap(ShardId, Map)}标记结果所属的虚拟分区, 合并时按虚拟分区id排序,
+ * 因此{@link DuplicateKeyPolicy}和{@link RowBounds}的结果与分区返回的先后顺序无关.
+ * </p>
+ * <p>
+ * RowBounds窗口按虚拟分区id、分区内的行顺序截取, 因此分区结果必须是按行顺序构建的Map(例如LinkedHashMap),
+ * 而不是{@link org.apache.ibatis.session.SqlSession#selectMap}返回的HashMap.
+ * 只有语句带ORDER BY时分区内的顺序才是稳定的, 且结果不是跨分区全局排序的;
+ * 需要全局排序的分页请使用带排序键的selectList.
+ * </p>
+ */
+public class MergeMapsExitStrategy implements ExitStrategy<Map<Object, Object>> {
+
+	private static final Comparator<ShardPartialMap> SHARD_ORDER = new Comparator<ShardPartialMap>() {
+		@Override
+		public int compare(ShardPartialMap o1, ShardPartialMap o2) {
+			// 没有标记分区的结果排在最后, 按到达顺序
+			if (o1.shardId == null || o2.shardId == null) {
+				if (o1.shardId != null) {
+					return -1;
+				}
+				if (o2.shardId != null) {
+					return 1;
+				}
+				return o1.sequence < o2.sequence ? -1 : (o1.sequence == o2.sequence ? 0 : 1);
+			}
+			int id1 = o1.shardId.getId();
+			int id2 = o2.shardId.getId();
+			return id1 < id2 ? -1 : (id1 == id2 ? 0 : 1);
+		}
+	};
+
+	private final List<ShardPartialMap> partialMaps = Lists.newArrayList();
+
+	private final DuplicateKeyPolicy duplicateKeyPolicy;
+
+	private final RowBounds rowBounds;
+
+	private int size;
+
+	public MergeMapsExitStrategy(DuplicateKeyPolicy duplicateKeyPolicy, RowBounds rowBounds) {
+		Assert.notNull(duplicateKeyPolicy);
+		this.duplicateKeyPolicy = duplicateKeyPolicy;
+		this.rowBounds = rowBounds;
+	}
+
+	/**
+	 * 在分区操作中调用, 标记分区结果所属的虚拟分区.
+	 */
+	public Map<Object, Object> partialMap(ShardId shardId, Map<Object, Object> map) {
+		return map == null ? null : new ShardPartialMap(shardId, -1, map);
+	}
+
+	@Override
+	public synchronized boolean addResult(Map<Object, Object> oneResult, Shard shard) {
+		if (oneResult != null && !oneResult.isEmpty()) {
+			partialMaps.add(oneResult instanceof ShardPartialMap ? (ShardPartialMap) oneResult
+					: new ShardPartialMap(null, partialMaps.size(), oneResult));
+			size += oneResult.size();
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized Map<Object, Object> compileResults(
+			ExitOperationsCollector exitOperationsCollector) {
+		if (partialMaps.size() == 1 && !hasRowBounds()) {
+			return partialMaps.get(0).delegate;
+		}
+
+		Collections.sort(partialMaps, SHARD_ORDER);
+		Map<Object, Object> result = new LinkedHashMap<Object, Object>(size * 4 / 3 + 1);
+		for (ShardPartialMap partialMap : partialMaps) {
+			for (Map.Entry<Object, Object> entry : partialMap.entrySet()) {
+				merge(result, entry.getKey(), entry.getValue());
+			}
+		}
+
+		if (hasRowBounds()) {
+			applyRowBounds(result);
+		}
+		return result;
+	}
+
+	private void merge(Map<Object, Object> result, Object key, Object value) {
+		switch (duplicateKeyPolicy) {
+		case OVERWRITE:
+			result.put(key, value);
+			break;
+		case KEEP_FIRST:
+			if (!result.containsKey(key)) {
+				result.put(key, value);
+			}
+			break;
+		case FAIL:
+			if (result.containsKey(key)) {
+				throw new MyBatisShardsException("Duplicate key {" + key
+						+ "} found in more than one shard");
+			}
+			result.put(key, value);
+			break;
+		}
+	}
+
+	private boolean hasRowBounds() {
+		return rowBounds != null && rowBounds != RowBounds.DEFAULT
+				&& (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET
+						|| rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT);
+	}
+
+	private void applyRowBounds(Map<Object, Object> result) {
+		int offset = rowBounds.getOffset();
+		long end = (long) offset + rowBounds.getLimit();
+		int index = 0;
+		for (Iterator<Object> it = result.keySet().iterator(); it.hasNext(); index++) {
+			it.next();
+			if (index < offset || index >= end) {
+				it.remove();
+			}
+		}
+	}
+
+	/**
+	 * 带有虚拟分区id的分区结果, 只读.
+	 */
+	private static class ShardPartialMap extends AbstractMap<Object, Object> {
+
+		private final ShardId shardId;
+
+		private final int sequence;
+
+		private final Map<Object, Object> delegate;
+
+		ShardPartialMap(ShardId shardId, int sequence, Map<Object, Object> delegate) {
+			this.shardId = shardId;
+			this.sequence = sequence;
+			this.delegate = delegate;
+		}
+
+		@Override
+		public Set<Map.Entry<Object, Object>> entrySet() {
+			return Collections.unmodifiableMap(delegate).entrySet();
+		}
+
+		@Override
+		public int size() {
+			return delegate.size();
+		}
+
+		@Override
+		public boolean isEmpty() {
+			return delegate.isEmpty();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/*
+ * @(#)OrderedMergeExitStrategy.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.apache.ibatis.session.RowBounds;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.impl.OrderComparator;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Threadsafe ExitStrategy that k-way merges the results of each shard.
+ * <p>
+ * 各分区的结果已按SQL中的ORDER BY排好序, 这里用大小为k(分区数)的堆做归并, 复杂度为O(n log k).
+ * 指定了RowBounds时, 取够offset + limit行即停止归并, 之后由collector截取请求的窗口.
+ * </p>
+ */
+public class OrderedMergeExitStrategy implements ExitStrategy<List<Object>> {
+
+	private final List<List<Object>> sortedResults = Lists.newArrayList();
+
+	private final OrderComparator comparator;
+
+	private final RowBounds rowBounds;
+
+	private int size;
+
+	public OrderedMergeExitStrategy(List<Order> orders, RowBounds rowBounds) {
+		this.comparator = new OrderComparator(orders);
+		this.rowBounds = rowBounds;
+	}
+
+	@Override
+	public synchronized boolean addResult(List<Object> oneResult, Shard shard) {
+		if (oneResult != null && !oneResult.isEmpty()) {
+			sortedResults.add(oneResult);
+			size += oneResult.size();
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized List<Object> compileResults(ExitOperationsCollector exitOperationsCollector) {
+		List<Object> merged = merge(maxRows());
+		return exitOperationsCollector == null ? merged : exitOperationsCollector.apply(merged);
+	}
+
+	private int maxRows() {
+		if (rowBounds == null || rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT) {
+			return size;
+		}
+		long rows = (long) rowBounds.getOffset() + rowBounds.getLimit();
+		return (int) Math.min(size, rows);
+	}
+
+	private List<Object> merge(int maxRows) {
+		if (sortedResults.size() == 1) {
+			List<Object> only = sortedResults.get(0);
+			return maxRows < only.size() ? only.subList(0, maxRows) : only;
+		}
+
+		List<Object> merged = Lists.newArrayListWithCapacity(maxRows);
+		if (maxRows == 0) {
+			return merged;
+		}
+
+		PriorityQueue<Cursor> heap = new PriorityQueue<Cursor>(sortedResults.size());
+		for (List<Object> sortedResult : sortedResults) {
+			heap.add(new Cursor(sortedResult));
+		}
+
+		while (merged.size() < maxRows) {
+			Cursor cursor = heap.poll();
+			merged.add(cursor.current);
+			if (cursor.advance()) {
+				heap.add(cursor);
+			}
+		}
+		return merged;
+	}
+
+	/**
+	 * 单个分区结果上的游标, 缓存当前行的排序键.
+	 */
+	private final class Cursor implements Comparable<Cursor> {
+
+		private final List<Object> rows;
+
+		private int index;
+
+		private Object current;
+
+		private Object[] keys;
+
+		Cursor(List<Object> rows) {
+			this.rows = rows;
+			this.current = rows.get(0);
+			this.keys = comparator.extractKeys(current);
+		}
+
+		boolean advance() {
+			if (++index >= rows.size()) {
+				return false;
+			}
+			current = rows.get(index);
+			keys = comparator.extractKeys(current);
+			return true;
+		}
+
+		@Override
+		public int compareTo(Cursor other) {
+			return comparator.compareKeys(keys, other.keys);
+		}
+	}
+}
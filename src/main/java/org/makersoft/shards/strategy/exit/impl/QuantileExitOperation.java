@@ -0,0 +1,44 @@
+/*
+ * @(#)QuantileExitOperation.java 2026-10-19 下午3:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.List;
+
+import org.makersoft.shards.strategy.exit.ExitOperation;
+import org.makersoft.shards.strategy.exit.ExitOperationUtils;
+import org.makersoft.shards.strategy.reduce.impl.QuantileReducer;
+import org.makersoft.shards.strategy.reduce.impl.TDigest;
+
+/**
+ * 对合并后的数值计算近似分位数, 用于{@link org.makersoft.shards.strategy.reduce.ShardReduceStrategy#reduce}.
+ * <p>
+ * 各分区的值仍会先拼接; 需要在工作线程中压缩时, 从
+ * {@link org.makersoft.shards.strategy.reduce.IncrementalShardReduceStrategy}返回{@link QuantileReducer}.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class QuantileExitOperation implements ExitOperation {
+
+	private final QuantileReducer reducer;
+
+	public QuantileExitOperation(double... quantiles) {
+		this(TDigest.DEFAULT_COMPRESSION, quantiles);
+	}
+
+	public QuantileExitOperation(double compression, double[] quantiles) {
+		this.reducer = new QuantileReducer(compression, quantiles);
+	}
+
+	@Override
+	public List<Object> apply(List<Object> results) {
+		return reducer.finish(reducer.accumulate(reducer.createAccumulator(),
+				ExitOperationUtils.getNonNullList(results)));
+	}
+}
@@ -9,6 +9,8 @@
 package org.makersoft.shards.strategy.exit.impl;
 
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.makersoft.shards.Shard;
@@ -21,10 +23,10 @@ import org.makersoft.shards.utils.Lists;
  */
 public class SelectOneExitStrategy implements ExitStrategy<Object> {
 
-	private final List<Object> nonNullResult = Lists.newArrayList();
+	private final Queue<Object> nonNullResult = new ConcurrentLinkedQueue<Object>();
 
 	@Override
-	public synchronized boolean addResult(Object result, Shard shard) {
+	public boolean addResult(Object result, Shard shard) {
 		if(result != null){
 			nonNullResult.add(result);
 		}
@@ -33,7 +35,7 @@ public class SelectOneExitStrategy implements ExitStrategy<Object> {
 
 	@Override
 	public Object compileResults(ExitOperationsCollector exitOperationsCollector) {
-		List<Object> list = exitOperationsCollector.apply(nonNullResult);
+		List<Object> list = exitOperationsCollector.apply(Lists.newArrayList(nonNullResult));
 
 		if (list.size() == 1) {
 			return list.get(0);
@@ -0,0 +1,260 @@
+/*
+ * @(#)StreamingResultHandlerExitStrategy.java 2026-10-18 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardFutureCallback;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 流式查询: 各分区读取到的行直接交给调用者的{@link ResultHandler}, 不在内存中汇总结果.
+ * <p>
+ * 工作线程上的分区把行放入有界队列, 由调用线程在{@link #drain(ShardFuture)}中取出并交给handler;
+ * 队列满时分区线程阻塞在JDBC游标上(背压), 因此内存占用只与队列容量和fetch size有关.
+ * 在调用线程中执行的分区(例如读写事务中的顺序访问)直接把行交给handler.
+ * 因此调用者的handler总是在调用线程中执行, 不会被并发调用.
+ * {@link RowBounds}在全局范围内生效, handler调用{@link ResultContext#stop()}后所有分区停止读取.
+ * </p>
+ */
+public class StreamingResultHandlerExitStrategy implements ExitStrategy<Void> {
+
+	public static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+	// 分区线程等待队列空位、调用线程等待新行时检查是否已经停止的间隔
+	private static final long POLL_INTERVAL_MILLIS = 100;
+
+	// 队列不接受null, 用于代替结果为null的行
+	private static final Object NULL_ROW = new Object();
+
+	// 所有分区都已结束
+	private static final Object END = new Object();
+
+	private final ResultHandler resultHandler;
+
+	private final int offset;
+
+	private final int limit;
+
+	private final Thread consumerThread;
+
+	private final BlockingQueue<Object> queue;
+
+	// 以下字段只在调用线程中访问
+	private final GlobalResultContext resultContext = new GlobalResultContext();
+
+	private int skipped;
+
+	private volatile boolean stopped;
+
+	public StreamingResultHandlerExitStrategy(ResultHandler resultHandler, RowBounds rowBounds) {
+		this(resultHandler, rowBounds, DEFAULT_QUEUE_CAPACITY);
+	}
+
+	/**
+	 * 必须在调用线程中创建, handler只会在该线程中被调用.
+	 *
+	 * @param queueCapacity
+	 *            工作线程与调用线程之间的队列容量
+	 */
+	public StreamingResultHandlerExitStrategy(ResultHandler resultHandler, RowBounds rowBounds,
+			int queueCapacity) {
+		Assert.notNull(resultHandler);
+		Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+		this.resultHandler = resultHandler;
+		this.offset = rowBounds == null ? RowBounds.NO_ROW_OFFSET : rowBounds.getOffset();
+		this.limit = rowBounds == null ? RowBounds.NO_ROW_LIMIT : rowBounds.getLimit();
+		this.consumerThread = Thread.currentThread();
+		this.queue = new ArrayBlockingQueue<Object>(queueCapacity);
+		this.stopped = limit <= 0;
+	}
+
+	/**
+	 * @return 每个分区的查询所使用的RowBounds, 只需读取前offset + limit行
+	 */
+	public RowBounds getShardRowBounds() {
+		if (limit == RowBounds.NO_ROW_LIMIT) {
+			return RowBounds.DEFAULT;
+		}
+		long rows = (long) offset + limit;
+		return new RowBounds(RowBounds.NO_ROW_OFFSET, rows > Integer.MAX_VALUE ? Integer.MAX_VALUE
+				: (int) rows);
+	}
+
+	/**
+	 * @return 供单个分区查询使用的ResultHandler
+	 */
+	public ResultHandler newShardResultHandler() {
+		return new ResultHandler() {
+			@Override
+			public void handleResult(ResultContext context) {
+				if (!stopped) {
+					Object resultObject = context.getResultObject();
+					if (Thread.currentThread() == consumerThread) {
+						deliver(resultObject);
+					} else if (!enqueue(resultObject == null ? NULL_ROW : resultObject)) {
+						context.stop();
+					}
+				}
+				if (stopped) {
+					context.stop();
+				}
+			}
+		};
+	}
+
+	/**
+	 * @return 线程被中断时返回false
+	 */
+	private boolean enqueue(Object row) {
+		try {
+			while (!stopped && !queue.offer(row, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+				// 队列已满, 等待调用线程取走
+			}
+			return true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+
+	private void deliver(Object resultObject) {
+		if (stopped) {
+			return;
+		}
+		if (skipped < offset) {
+			skipped++;
+			return;
+		}
+		resultContext.nextResultObject(resultObject);
+		resultHandler.handleResult(resultContext);
+		if (resultContext.isStopped() || resultContext.getResultCount() >= limit) {
+			stop();
+		}
+	}
+
+	private void stop() {
+		stopped = true;
+		// 唤醒等待队列空位的分区线程
+		queue.clear();
+	}
+
+	/**
+	 * 在调用线程中把队列中的行交给handler, 直到所有分区结束; 任一分区失败时抛出其异常.
+	 *
+	 * @param future
+	 *            访问策略返回的future, 所有分区结束后完成
+	 */
+	public void drain(ShardFuture<Void> future) {
+		Assert.isTrue(Thread.currentThread() == consumerThread,
+				"drain must be called on the thread that created the exit strategy");
+		future.addCallback(new ShardFutureCallback<Void>() {
+			@Override
+			public void onSuccess(Void result) {
+				queue.offer(END);
+			}
+
+			@Override
+			public void onFailure(Throwable cause) {
+				queue.offer(END);
+			}
+		});
+
+		try {
+			while (true) {
+				Object row = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+				if (row == END) {
+					break;
+				}
+				if (row != null) {
+					deliver(row == NULL_ROW ? null : row);
+				} else if (future.isDone() && queue.isEmpty()) {
+					// 队列满时END可能没有放入
+					break;
+				}
+			}
+			future.get();
+		} catch (InterruptedException e) {
+			stop();
+			Thread.currentThread().interrupt();
+			throw new MyBatisShardsException("Interrupted while streaming shard results", e);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new MyBatisShardsException(cause.getMessage(), cause);
+		} finally {
+			stop();
+		}
+	}
+
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	@Override
+	public boolean addResult(Void result, Shard shard) {
+		// 已经停止时取消尚未开始执行的分区
+		return stopped;
+	}
+
+	@Override
+	public Void compileResults(ExitOperationsCollector exitOperationsCollector) {
+		return null;
+	}
+
+	private static class GlobalResultContext implements ResultContext {
+
+		private Object resultObject;
+
+		private int resultCount;
+
+		private boolean stopped;
+
+		void nextResultObject(Object resultObject) {
+			this.resultCount++;
+			this.resultObject = resultObject;
+		}
+
+		@Override
+		public Object getResultObject() {
+			return resultObject;
+		}
+
+		@Override
+		public int getResultCount() {
+			return resultCount;
+		}
+
+		@Override
+		public boolean isStopped() {
+			return stopped;
+		}
+
+		@Override
+		public void stop() {
+			this.stopped = true;
+		}
+	}
+}
@@ -0,0 +1,35 @@
+/*
+ * @(#)SumRowCountsExitStrategy.java 2026-10-18 下午3:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.exit.impl;
+
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+
+/**
+ * Threadsafe ExitStrategy that sums the affected row counts of write operations.
+ */
+public class SumRowCountsExitStrategy implements ExitStrategy<Integer> {
+
+	private int rows;
+
+	@Override
+	public synchronized boolean addResult(Integer oneResult, Shard shard) {
+		if (oneResult != null) {
+			rows += oneResult;
+		}
+		return false;
+	}
+
+	@Override
+	public synchronized Integer compileResults(ExitOperationsCollector exitOperationsCollector) {
+		return rows;
+	}
+
+}
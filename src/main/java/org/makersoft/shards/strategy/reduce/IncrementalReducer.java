@@ -0,0 +1,46 @@
+/*
+ * @(#)IncrementalReducer.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce;
+
+import java.util.List;
+
+/**
+ * 增量归约: 每个分区的结果在返回时即被折叠为一个累加器(在访问策略的工作线程中执行),
+ * 最后只需合并各分区的累加器, 而不是在最慢的分区返回之后再处理全部行.
+ * <p>
+ * 每个累加器只被一个线程修改, 实现不需要考虑线程安全.
+ * </p>
+ * 
+ * @param <A>
+ *            累加器类型
+ * @author Feng Kuok
+ */
+public interface IncrementalReducer<A> {
+
+	A createAccumulator();
+
+	/**
+	 * 将一个分区返回的行折叠到累加器中
+	 * 
+	 * @param values
+	 *            分区返回的行, 不包含null
+	 * @return 折叠后的累加器, 可以是传入的累加器本身
+	 */
+	A accumulate(A accumulator, List<Object> values);
+
+	/**
+	 * @return 合并后的累加器, 可以是传入的累加器之一
+	 */
+	A combine(A left, A right);
+
+	/**
+	 * @return 最终结果
+	 */
+	List<Object> finish(A accumulator);
+}
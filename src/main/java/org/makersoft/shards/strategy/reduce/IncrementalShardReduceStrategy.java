@@ -0,0 +1,26 @@
+/*
+ * @(#)IncrementalShardReduceStrategy.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 支持增量归约的{@link ShardReduceStrategy}.
+ * 
+ * @author Feng Kuok
+ */
+public interface IncrementalShardReduceStrategy extends ShardReduceStrategy {
+
+	/**
+	 * @return statement的增量归约, 返回null时在所有分区返回之后调用
+	 *         {@link #reduce(String, Object, RowBounds, java.util.List)}
+	 */
+	IncrementalReducer<?> getIncrementalReducer(String statement, Object parameter,
+			RowBounds rowBounds);
+}
@@ -0,0 +1,78 @@
+/*
+ * @(#)ApproximateDistinctCountReducer.java 2026-10-19 下午2:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 跨分区COUNT(DISTINCT ...)的近似值: 各分区返回的值在工作线程中折叠为{@link HyperLogLog},
+ * 合并时只需对寄存器取最大值, 内存与分区数和行数无关.
+ * <p>
+ * 与{@link DistinctReducer}不同, 结果是一个Long. 不同值较少时(不超过exactThreshold)结果是精确的.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class ApproximateDistinctCountReducer implements IncrementalReducer<HyperLogLog> {
+
+	public static final int DEFAULT_PRECISION = 14;
+
+	public static final int DEFAULT_EXACT_THRESHOLD = 1000;
+
+	private final int precision;
+
+	private final int exactThreshold;
+
+	public ApproximateDistinctCountReducer() {
+		this(DEFAULT_PRECISION, DEFAULT_EXACT_THRESHOLD);
+	}
+
+	/**
+	 * @param precision
+	 *            寄存器个数为2<sup>precision</sup>, 相对标准误差约为1.04 / sqrt(2<sup>precision</sup>)
+	 * @param exactThreshold
+	 *            不超过此个数时精确计数
+	 */
+	public ApproximateDistinctCountReducer(int precision, int exactThreshold) {
+		Assert.isTrue(precision >= HyperLogLog.MIN_PRECISION
+				&& precision <= HyperLogLog.MAX_PRECISION, "precision must be between "
+				+ HyperLogLog.MIN_PRECISION + " and " + HyperLogLog.MAX_PRECISION);
+		Assert.isTrue(exactThreshold >= 0, "exactThreshold can not be negative");
+		this.precision = precision;
+		this.exactThreshold = exactThreshold;
+	}
+
+	@Override
+	public HyperLogLog createAccumulator() {
+		return new HyperLogLog(precision, exactThreshold);
+	}
+
+	@Override
+	public HyperLogLog accumulate(HyperLogLog accumulator, List<Object> values) {
+		for (Object value : values) {
+			accumulator.add(value);
+		}
+		return accumulator;
+	}
+
+	@Override
+	public HyperLogLog combine(HyperLogLog left, HyperLogLog right) {
+		left.merge(right);
+		return left;
+	}
+
+	@Override
+	public List<Object> finish(HyperLogLog accumulator) {
+		return Collections.<Object> singletonList(Long.valueOf(accumulator.cardinality()));
+	}
+}
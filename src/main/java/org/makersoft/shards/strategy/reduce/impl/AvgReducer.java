@@ -0,0 +1,133 @@
+/*
+ * @(#)AvgReducer.java 2026-10-19 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.makersoft.shards.plugin.AvgRewriter;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.NumberUtil;
+
+/**
+ * 合并各分区返回的SUM和COUNT({@link AvgRewriter}改写后的结果), 计算跨分区的平均值.
+ * <p>
+ * 整数的和累加在long中, 其他数值累加在double中, 不经过BigDecimal(toString())转换.
+ * 所有分区都没有数据时结果为null, 与AVG在空表上的行为一致.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class AvgReducer implements IncrementalReducer<AvgReducer.SumCount> {
+
+	// 平均值的类型, 与statement声明的结果类型一致
+	private final Class<?> resultType;
+
+	public AvgReducer() {
+		this(Double.class);
+	}
+
+	/**
+	 * @param resultType
+	 *            statement声明的结果类型, 见{@link #isSupportedResultType(Class)}
+	 */
+	public AvgReducer(Class<?> resultType) {
+		Assert.isTrue(isSupportedResultType(resultType), "Unsupported AVG result type: "
+				+ resultType);
+		this.resultType = resultType;
+	}
+
+	/**
+	 * @return 平均值能否转换为该类型: Double, Float, BigDecimal, Number或Object
+	 */
+	public static boolean isSupportedResultType(Class<?> type) {
+		return type == Double.class || type == double.class || type == Float.class
+				|| type == float.class || type == BigDecimal.class || type == Number.class
+				|| type == Object.class;
+	}
+
+	public static class SumCount {
+
+		private long integralSum;
+
+		private double fractionalSum;
+
+		private long count;
+	}
+
+	@Override
+	public SumCount createAccumulator() {
+		return new SumCount();
+	}
+
+	@Override
+	public SumCount accumulate(SumCount accumulator, List<Object> values) {
+		for (Object value : values) {
+			Map<?, ?> row = (Map<?, ?>) value;
+			Number count = (Number) getColumn(row, AvgRewriter.COUNT_COLUMN);
+			long rows = count == null ? 0 : NumberUtil.longValueExact(count);
+			if (rows == 0) {
+				continue;
+			}
+			accumulator.count = NumberUtil.addExact(accumulator.count, rows);
+
+			Number sum = (Number) getColumn(row, AvgRewriter.SUM_COLUMN);
+			if (NumberUtil.isIntegral(sum)) {
+				accumulator.integralSum = NumberUtil.addExact(accumulator.integralSum,
+						NumberUtil.longValueExact(sum));
+			} else if (sum != null) {
+				accumulator.fractionalSum += sum.doubleValue();
+			}
+		}
+		return accumulator;
+	}
+
+	@Override
+	public SumCount combine(SumCount left, SumCount right) {
+		left.integralSum = NumberUtil.addExact(left.integralSum, right.integralSum);
+		left.fractionalSum += right.fractionalSum;
+		left.count = NumberUtil.addExact(left.count, right.count);
+		return left;
+	}
+
+	@Override
+	public List<Object> finish(SumCount accumulator) {
+		if (accumulator.count == 0) {
+			return Collections.singletonList(null);
+		}
+		double avg = (accumulator.integralSum + accumulator.fractionalSum) / accumulator.count;
+		Object result;
+		if (resultType == BigDecimal.class) {
+			result = BigDecimal.valueOf(avg);
+		} else if (resultType == Float.class || resultType == float.class) {
+			result = Float.valueOf((float) avg);
+		} else {
+			result = Double.valueOf(avg);
+		}
+		return Collections.singletonList(result);
+	}
+
+	/**
+	 * 不同数据库返回的列名大小写不同
+	 */
+	private static Object getColumn(Map<?, ?> row, String column) {
+		Object value = row.get(column);
+		if (value == null) {
+			for (Map.Entry<?, ?> entry : row.entrySet()) {
+				if (column.equalsIgnoreCase(String.valueOf(entry.getKey()))) {
+					return entry.getValue();
+				}
+			}
+		}
+		return value;
+	}
+}
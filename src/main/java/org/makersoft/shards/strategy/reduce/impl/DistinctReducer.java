@@ -0,0 +1,46 @@
+/*
+ * @(#)DistinctReducer.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.List;
+import java.util.Set;
+
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * 去除各分区之间重复的行.
+ * 
+ * @author Feng Kuok
+ */
+public class DistinctReducer implements IncrementalReducer<Set<Object>> {
+
+	@Override
+	public Set<Object> createAccumulator() {
+		return Sets.newLinkedHashSet();
+	}
+
+	@Override
+	public Set<Object> accumulate(Set<Object> accumulator, List<Object> values) {
+		accumulator.addAll(values);
+		return accumulator;
+	}
+
+	@Override
+	public Set<Object> combine(Set<Object> left, Set<Object> right) {
+		left.addAll(right);
+		return left;
+	}
+
+	@Override
+	public List<Object> finish(Set<Object> accumulator) {
+		return Lists.newArrayList(accumulator);
+	}
+}
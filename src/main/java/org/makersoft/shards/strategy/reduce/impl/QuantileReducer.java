@@ -0,0 +1,75 @@
+/*
+ * @(#)QuantileReducer.java 2026-10-19 下午3:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.List;
+
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 跨分区的近似分位数: 各分区返回的数值在工作线程中压缩为{@link TDigest}, 最后合并各分区的草图.
+ * <p>
+ * 结果依次为每个分位数的估计值(Double), 没有数据时为null. 误差界见{@link TDigest}.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class QuantileReducer implements IncrementalReducer<TDigest> {
+
+	private final double[] quantiles;
+
+	private final double compression;
+
+	/**
+	 * @param quantiles
+	 *            分位数, 例如0.5, 0.95, 0.99
+	 */
+	public QuantileReducer(double... quantiles) {
+		this(TDigest.DEFAULT_COMPRESSION, quantiles);
+	}
+
+	public QuantileReducer(double compression, double[] quantiles) {
+		Assert.isTrue(quantiles != null && quantiles.length > 0, "quantiles can not be empty");
+		for (double q : quantiles) {
+			Assert.isTrue(q >= 0 && q <= 1, "quantile must be between 0 and 1");
+		}
+		this.compression = compression;
+		this.quantiles = quantiles.clone();
+	}
+
+	@Override
+	public TDigest createAccumulator() {
+		return new TDigest(compression);
+	}
+
+	@Override
+	public TDigest accumulate(TDigest accumulator, List<Object> values) {
+		for (Object value : values) {
+			accumulator.add(((Number) value).doubleValue());
+		}
+		return accumulator;
+	}
+
+	@Override
+	public TDigest combine(TDigest left, TDigest right) {
+		left.merge(right);
+		return left;
+	}
+
+	@Override
+	public List<Object> finish(TDigest accumulator) {
+		List<Object> results = Lists.newArrayListWithCapacity(quantiles.length);
+		for (double q : quantiles) {
+			results.add(accumulator.size() == 0 ? null : (Object) accumulator.quantile(q));
+		}
+		return results;
+	}
+}
@@ -0,0 +1,66 @@
+/*
+ * @(#)RowCountReducer.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+
+/**
+ * 对各分区返回的计数(或整数之和)求和, 返回值类型与分区返回的类型相同(Integer或Long).
+ * 各分区返回Integer而总和超出int范围时抛出异常, 此时应将statement的结果类型声明为long.
+ * 
+ * @author Feng Kuok
+ */
+public class RowCountReducer implements IncrementalReducer<RowCountReducer.Count> {
+
+	public static class Count {
+
+		private long value;
+
+		// 任一分区返回Long时结果为Long
+		private boolean isLong;
+	}
+
+	@Override
+	public Count createAccumulator() {
+		return new Count();
+	}
+
+	@Override
+	public Count accumulate(Count accumulator, List<Object> values) {
+		for (Object value : values) {
+			accumulator.value += ((Number) value).longValue();
+			accumulator.isLong |= value instanceof Long;
+		}
+		return accumulator;
+	}
+
+	@Override
+	public Count combine(Count left, Count right) {
+		left.value += right.value;
+		left.isLong |= right.isLong;
+		return left;
+	}
+
+	@Override
+	public List<Object> finish(Count accumulator) {
+		if (accumulator.isLong) {
+			return Collections.<Object> singletonList(Long.valueOf(accumulator.value));
+		}
+		if (accumulator.value > Integer.MAX_VALUE || accumulator.value < Integer.MIN_VALUE) {
+			throw new MyBatisShardsException(String.format(
+					"Sum of shard counts %d overflows int, declare the result type as long",
+					accumulator.value));
+		}
+		return Collections.<Object> singletonList(Integer.valueOf((int) accumulator.value));
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * @(#)TDigest.java 2026-10-19 下午3:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.Arrays;
+
+import org.makersoft.shards.utils.Assert;
+
+/**
+ * 分位数估计的t-digest草图(合并式实现).
+ * <p>
+ * 数据被压缩为按均值排序的质心, 位于分位数q处的质心最多包含4·n·q(1-q)/compression个值,
+ * 因此估计值的秩误差约不超过±2·n·q(1-q)/compression: compression为100时中位数约±0.5%·n,
+ * p99约±0.02%·n. 质心个数约为compression / 2 · ln(n), 只随数据量对数增长; 最小值和最大值是精确的.
+ * 合并多个草图后误差界近似保持.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public class TDigest {
+
+	public static final double DEFAULT_COMPRESSION = 100;
+
+	private final double compression;
+
+	// 已压缩的质心, 按均值排序
+	private double[] means = new double[0];
+
+	private double[] weights = new double[0];
+
+	// 尚未压缩的值
+	private final double[] bufferMeans;
+
+	private final double[] bufferWeights;
+
+	private int bufferSize;
+
+	private double totalWeight;
+
+	private double min = Double.POSITIVE_INFINITY;
+
+	private double max = Double.NEGATIVE_INFINITY;
+
+	public TDigest() {
+		this(DEFAULT_COMPRESSION);
+	}
+
+	public TDigest(double compression) {
+		Assert.isTrue(compression >= 10, "compression must be at least 10");
+		this.compression = compression;
+		int bufferCapacity = (int) (5 * compression);
+		this.bufferMeans = new double[bufferCapacity];
+		this.bufferWeights = new double[bufferCapacity];
+	}
+
+	public double getCompression() {
+		return compression;
+	}
+
+	public long size() {
+		return (long) totalWeight;
+	}
+
+	public void add(double value) {
+		add(value, 1);
+	}
+
+	private void add(double mean, double weight) {
+		Assert.isTrue(!Double.isNaN(mean), "value can not be NaN");
+		if (bufferSize == bufferMeans.length) {
+			compress();
+		}
+		bufferMeans[bufferSize] = mean;
+		bufferWeights[bufferSize] = weight;
+		bufferSize++;
+		totalWeight += weight;
+		min = Math.min(min, mean);
+		max = Math.max(max, mean);
+	}
+
+	/**
+	 * 合并另一个草图.
+	 */
+	public void merge(TDigest other) {
+		other.compress();
+		for (int i = 0; i < other.means.length; i++) {
+			add(other.means[i], other.weights[i]);
+		}
+		min = Math.min(min, other.min);
+		max = Math.max(max, other.max);
+	}
+
+	/**
+	 * @param q
+	 *            分位数, 0到1之间
+	 * @return 估计值, 没有数据时返回NaN
+	 */
+	public double quantile(double q) {
+		Assert.isTrue(q >= 0 && q <= 1, "quantile must be between 0 and 1");
+		compress();
+		int n = means.length;
+		if (n == 0) {
+			return Double.NaN;
+		}
+		if (n == 1) {
+			return means[0];
+		}
+
+		double index = q * totalWeight;
+		if (index <= weights[0] / 2) {
+			return min + (means[0] - min) * index / (weights[0] / 2);
+		}
+		if (index >= totalWeight - weights[n - 1] / 2) {
+			double tail = totalWeight - index;
+			return max - (max - means[n - 1]) * tail / (weights[n - 1] / 2);
+		}
+
+		// 在相邻质心的中心之间线性插值
+		double center = weights[0] / 2;
+		for (int i = 0; i < n - 1; i++) {
+			double nextCenter = center + (weights[i] + weights[i + 1]) / 2;
+			if (index <= nextCenter) {
+				return means[i] + (means[i + 1] - means[i]) * (index - center)
+						/ (nextCenter - center);
+			}
+			center = nextCenter;
+		}
+		return means[n - 1];
+	}
+
+	/**
+	 * 将缓冲区中的值与已有质心按均值排序后贪心合并
+	 */
+	private void compress() {
+		if (bufferSize == 0) {
+			return;
+		}
+
+		int size = means.length + bufferSize;
+		Centroid[] all = new Centroid[size];
+		for (int i = 0; i < means.length; i++) {
+			all[i] = new Centroid(means[i], weights[i]);
+		}
+		for (int i = 0; i < bufferSize; i++) {
+			all[means.length + i] = new Centroid(bufferMeans[i], bufferWeights[i]);
+		}
+		bufferSize = 0;
+		Arrays.sort(all);
+
+		double[] newMeans = new double[size];
+		double[] newWeights = new double[size];
+		int count = 0;
+		double mean = all[0].mean;
+		double weight = all[0].weight;
+		double weightSoFar = 0;
+		for (int i = 1; i < size; i++) {
+			double proposed = weight + all[i].weight;
+			double q0 = weightSoFar / totalWeight;
+			double q2 = (weightSoFar + proposed) / totalWeight;
+			double limit = 4 * totalWeight * Math.min(q0 * (1 - q0), q2 * (1 - q2)) / compression;
+			if (proposed <= limit) {
+				mean += (all[i].mean - mean) * all[i].weight / proposed;
+				weight = proposed;
+			} else {
+				newMeans[count] = mean;
+				newWeights[count] = weight;
+				count++;
+				weightSoFar += weight;
+				mean = all[i].mean;
+				weight = all[i].weight;
+			}
+		}
+		newMeans[count] = mean;
+		newWeights[count] = weight;
+		count++;
+
+		means = Arrays.copyOf(newMeans, count);
+		weights = Arrays.copyOf(newWeights, count);
+	}
+
+	private static final class Centroid implements Comparable<Centroid> {
+
+		private final double mean;
+
+		private final double weight;
+
+		private Centroid(double mean, double weight) {
+			this.mean = mean;
+			this.weight = weight;
+		}
+
+		@Override
+		public int compareTo(Centroid other) {
+			return Double.compare(mean, other.mean);
+		}
+	}
+}
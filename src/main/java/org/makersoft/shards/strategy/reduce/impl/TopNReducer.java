@@ -0,0 +1,78 @@
+/*
+ * @(#)TopNReducer.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.strategy.reduce.impl;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.utils.Assert;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * 按comparator取前n行, 每个分区只保留大小为n的堆.
+ * 
+ * @author Feng Kuok
+ */
+public class TopNReducer implements IncrementalReducer<PriorityQueue<Object>> {
+
+	private final Comparator<Object> comparator;
+
+	private final Comparator<Object> reversed;
+
+	private final int n;
+
+	public TopNReducer(final Comparator<Object> comparator, int n) {
+		Assert.notNull(comparator);
+		Assert.isTrue(n > 0, "n must be positive");
+		this.comparator = comparator;
+		this.reversed = Collections.reverseOrder(comparator);
+		this.n = n;
+	}
+
+	@Override
+	public PriorityQueue<Object> createAccumulator() {
+		// 堆顶为当前前n行中排在最后的一行
+		return new PriorityQueue<Object>(n + 1, reversed);
+	}
+
+	@Override
+	public PriorityQueue<Object> accumulate(PriorityQueue<Object> accumulator, List<Object> values) {
+		for (Object value : values) {
+			offer(accumulator, value);
+		}
+		return accumulator;
+	}
+
+	@Override
+	public PriorityQueue<Object> combine(PriorityQueue<Object> left, PriorityQueue<Object> right) {
+		for (Object value : right) {
+			offer(left, value);
+		}
+		return left;
+	}
+
+	private void offer(PriorityQueue<Object> heap, Object value) {
+		if (heap.size() < n) {
+			heap.add(value);
+		} else if (comparator.compare(value, heap.peek()) < 0) {
+			heap.poll();
+			heap.add(value);
+		}
+	}
+
+	@Override
+	public List<Object> finish(PriorityQueue<Object> accumulator) {
+		List<Object> values = Lists.newArrayList(accumulator);
+		Collections.sort(values, comparator);
+		return values;
+	}
+}
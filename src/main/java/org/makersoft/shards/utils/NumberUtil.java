@@ -0,0 +1,192 @@
+/*
+ * @(#)NumberUtil.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.utils;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.makersoft.shards.MyBatisShardsException;
+
+/**
+ * 跨分区聚合使用的数值工具: 整数累加在long中, 其他数值累加在double中, 合并后再转换为分区返回的类型.
+ * 超出long或目标类型范围时抛出{@link MyBatisShardsException}, 不会静默截断.
+ * 
+ * @author Feng Kuok
+ */
+public final class NumberUtil {
+
+	private NumberUtil() {
+	}
+
+	/**
+	 * @return 是否可以精确累加到long中
+	 */
+	public static boolean isIntegral(Number number) {
+		if (number instanceof Long || number instanceof Integer || number instanceof Short
+				|| number instanceof Byte || number instanceof BigInteger) {
+			return true;
+		}
+		// 部分数据库的SUM(整数列)返回DECIMAL
+		return number instanceof BigDecimal && ((BigDecimal) number).scale() <= 0;
+	}
+
+	/**
+	 * @return {@link #isIntegral(Number)}为true的数的long值
+	 * @throws MyBatisShardsException
+	 *             BigInteger或BigDecimal超出long的范围时
+	 */
+	public static long longValueExact(Number number) {
+		BigInteger integer;
+		if (number instanceof BigInteger) {
+			integer = (BigInteger) number;
+		} else if (number instanceof BigDecimal) {
+			integer = ((BigDecimal) number).toBigInteger();
+		} else {
+			return number.longValue();
+		}
+		if (integer.bitLength() >= Long.SIZE) {
+			throw new MyBatisShardsException(String.format("Value %s overflows long", integer));
+		}
+		return integer.longValue();
+	}
+
+	/**
+	 * @return left + right
+	 * @throws MyBatisShardsException
+	 *             结果超出long的范围时
+	 */
+	public static long addExact(long left, long right) {
+		long sum = left + right;
+		// 两个加数符号相同而和的符号不同时溢出
+		if (((left ^ sum) & (right ^ sum)) < 0) {
+			throw new MyBatisShardsException(String.format("Sum of %d and %d overflows long",
+					left, right));
+		}
+		return sum;
+	}
+
+	/**
+	 * 将整数累加值转换为type类型(可以是基本类型), type为null时返回Long.
+	 * 
+	 * @throws MyBatisShardsException
+	 *             value超出type的范围时
+	 */
+	public static Number valueOf(long value, Class<?> type) {
+		if (type == Integer.class || type == int.class) {
+			checkRange(value, Integer.MIN_VALUE, Integer.MAX_VALUE, type);
+			return Integer.valueOf((int) value);
+		} else if (type == Short.class || type == short.class) {
+			checkRange(value, Short.MIN_VALUE, Short.MAX_VALUE, type);
+			return Short.valueOf((short) value);
+		} else if (type == Byte.class || type == byte.class) {
+			checkRange(value, Byte.MIN_VALUE, Byte.MAX_VALUE, type);
+			return Byte.valueOf((byte) value);
+		} else if (type == BigInteger.class) {
+			return BigInteger.valueOf(value);
+		} else if (type == BigDecimal.class) {
+			return BigDecimal.valueOf(value);
+		} else if (type == Double.class || type == double.class) {
+			return Double.valueOf(value);
+		} else if (type == Float.class || type == float.class) {
+			return Float.valueOf(value);
+		}
+		return Long.valueOf(value);
+	}
+
+	/**
+	 * 将小数累加值转换为type类型(可以是基本类型), 整数类型截去小数部分, type为null时返回Double.
+	 * 
+	 * @throws MyBatisShardsException
+	 *             value超出整数类型type的范围时
+	 */
+	public static Number valueOf(double value, Class<?> type) {
+		if (type == BigDecimal.class) {
+			return BigDecimal.valueOf(value);
+		} else if (type == Float.class || type == float.class) {
+			return Float.valueOf((float) value);
+		} else if (isIntegralType(type)) {
+			// 2^63是double可以精确表示的最小的超出long范围的值
+			if (Double.isNaN(value) || value >= 0x1p63 || value < -0x1p63) {
+				throw new MyBatisShardsException(String.format("Value %s overflows %s", value,
+						type.getName()));
+			}
+			return valueOf((long) value, type);
+		}
+		return Double.valueOf(value);
+	}
+
+	/**
+	 * 将number转换为type类型, 类型相同或type不是数值类型时原样返回.
+	 */
+	public static Object convert(Number number, Class<?> type) {
+		if (number == null || type == null || type.isInstance(number)
+				|| !(Number.class.isAssignableFrom(type) || type.isPrimitive())
+				|| type == Number.class) {
+			return number;
+		}
+		if (type == BigDecimal.class) {
+			return toBigDecimal(number);
+		}
+		return isIntegral(number) ? valueOf(longValueExact(number), type) : valueOf(
+				number.doubleValue(), type);
+	}
+
+	/**
+	 * 按数值大小比较两个类型可能不同的数, 例如不同分区返回的Integer与Long.
+	 */
+	public static int compare(Number left, Number right) {
+		if (isLongCompatible(left) && isLongCompatible(right)) {
+			long l = left.longValue();
+			long r = right.longValue();
+			return l < r ? -1 : (l == r ? 0 : 1);
+		}
+		if (isNaNOrInfinite(left) || isNaNOrInfinite(right)) {
+			return Double.compare(left.doubleValue(), right.doubleValue());
+		}
+		return toBigDecimal(left).compareTo(toBigDecimal(right));
+	}
+
+	private static void checkRange(long value, long min, long max, Class<?> type) {
+		if (value < min || value > max) {
+			throw new MyBatisShardsException(String.format(
+					"Merged value %d overflows %s, declare the property as long", value,
+					type.getName()));
+		}
+	}
+
+	private static boolean isIntegralType(Class<?> type) {
+		return type == Long.class || type == long.class || type == Integer.class
+				|| type == int.class || type == Short.class || type == short.class
+				|| type == Byte.class || type == byte.class || type == BigInteger.class;
+	}
+
+	private static boolean isLongCompatible(Number number) {
+		return number instanceof Long || number instanceof Integer || number instanceof Short
+				|| number instanceof Byte;
+	}
+
+	private static boolean isNaNOrInfinite(Number number) {
+		if (number instanceof Double || number instanceof Float) {
+			double value = number.doubleValue();
+			return Double.isNaN(value) || Double.isInfinite(value);
+		}
+		return false;
+	}
+
+	private static BigDecimal toBigDecimal(Number number) {
+		if (number instanceof BigDecimal) {
+			return (BigDecimal) number;
+		} else if (number instanceof BigInteger) {
+			return new BigDecimal((BigInteger) number);
+		} else if (isLongCompatible(number)) {
+			return BigDecimal.valueOf(number.longValue());
+		}
+		return new BigDecimal(number.toString());
+	}
+}
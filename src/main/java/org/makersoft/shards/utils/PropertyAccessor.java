@@ -0,0 +1,185 @@
+/*
+ * @(#)PropertyAccessor.java 2026-10-19 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.makersoft.shards.MyBatisShardsException;
+
+/**
+ * 读取结果对象属性路径(例如"dept.name")的访问器.
+ * <p>
+ * 每个(类, 属性)的getter(或字段)只解析一次, 转换为{@link MethodHandle}后缓存; 访问器实例还记住上一次遇到的类,
+ * 同一结果集中类型相同的行不需要再查缓存. Map结果按key读取.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public final class PropertyAccessor {
+
+	// 以ClassValue保存, 不会阻止结果类和参数类(及其ClassLoader)被卸载
+	private static final ClassValue<ConcurrentMap<String, Getter>> GETTERS = new ClassValue<ConcurrentMap<String, Getter>>() {
+		@Override
+		protected ConcurrentMap<String, Getter> computeValue(Class<?> type) {
+			return new ConcurrentHashMap<String, Getter>();
+		}
+	};
+
+	// 没有getter的属性也缓存下来, 避免重复查找
+	private static final Getter NO_GETTER = new Getter(null, null);
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	// 统一为(Object)Object, 以便invokeExact
+	private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+	private static final ConcurrentMap<String, PropertyAccessor> ACCESSORS = new ConcurrentHashMap<String, PropertyAccessor>();
+
+	private final String path;
+
+	private final String[] properties;
+
+	// 每一级上一次使用的getter, 结果集中的行通常是同一类型
+	private final Getter[] lastGetters;
+
+	private PropertyAccessor(String path) {
+		Assert.isTrue(path != null && path.length() > 0, "property path can not be empty");
+		this.path = path;
+		this.properties = path.split("\\.");
+		this.lastGetters = new Getter[properties.length];
+	}
+
+	/**
+	 * @return 属性路径的访问器, 相同路径返回同一实例
+	 */
+	public static PropertyAccessor forPath(String path) {
+		PropertyAccessor accessor = ACCESSORS.get(path);
+		if (accessor == null) {
+			accessor = new PropertyAccessor(path);
+			PropertyAccessor existing = ACCESSORS.putIfAbsent(path, accessor);
+			if (existing != null) {
+				accessor = existing;
+			}
+		}
+		return accessor;
+	}
+
+	public static Object getValue(Object target, String path) {
+		return forPath(path).getValue(target);
+	}
+
+	/**
+	 * @return type是否有名为property的getter(或字段)
+	 */
+	public static boolean isReadable(Class<?> type, String property) {
+		return getGetter(type, property) != NO_GETTER;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	/**
+	 * @return 属性值, 路径中任一级为null时返回null
+	 */
+	public Object getValue(Object target) {
+		Object value = target;
+		for (int i = 0; i < properties.length && value != null; i++) {
+			if (value instanceof Map) {
+				value = ((Map<?, ?>) value).get(properties[i]);
+				continue;
+			}
+			Getter getter = lastGetters[i];
+			if (getter == null || getter.type != value.getClass()) {
+				getter = getGetter(value.getClass(), properties[i]);
+				if (getter == NO_GETTER) {
+					throw new MyBatisShardsException("There is no getter for property named '"
+							+ properties[i] + "' in '" + value.getClass().getName() + "'");
+				}
+				lastGetters[i] = getter;
+			}
+			value = getter.get(value);
+		}
+		return value;
+	}
+
+	private static Getter getGetter(Class<?> type, String property) {
+		ConcurrentMap<String, Getter> getters = GETTERS.get(type);
+		Getter getter = getters.get(property);
+		if (getter == null) {
+			getter = resolveGetter(type, property);
+			getters.putIfAbsent(property, getter);
+		}
+		return getter;
+	}
+
+	/**
+	 * 依次查找public的getXxx(), isXxx(), 以及类层次中声明的字段
+	 */
+	private static Getter resolveGetter(Class<?> type, String property) {
+		String capitalized = StringUtil.capitalize(property);
+		for (String name : new String[] { "get" + capitalized, "is" + capitalized }) {
+			try {
+				Method method = type.getMethod(name);
+				if (method.getReturnType() != void.class) {
+					if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+						method.setAccessible(true);
+					}
+					return new Getter(type, LOOKUP.unreflect(method));
+				}
+			} catch (NoSuchMethodException e) {
+				// 继续查找
+			} catch (IllegalAccessException e) {
+				throw new MyBatisShardsException(e);
+			}
+		}
+		for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+			try {
+				Field field = c.getDeclaredField(property);
+				field.setAccessible(true);
+				return new Getter(type, LOOKUP.unreflectGetter(field));
+			} catch (NoSuchFieldException e) {
+				// 继续查找父类
+			} catch (IllegalAccessException e) {
+				throw new MyBatisShardsException(e);
+			}
+		}
+		return NO_GETTER;
+	}
+
+	private static final class Getter {
+
+		private final Class<?> type;
+
+		private final MethodHandle handle;
+
+		private Getter(Class<?> type, MethodHandle handle) {
+			this.type = type;
+			this.handle = handle == null ? null : handle.asType(GETTER_TYPE);
+		}
+
+		private Object get(Object target) {
+			try {
+				return (Object) handle.invokeExact(target);
+			} catch (Error e) {
+				throw e;
+			} catch (Throwable e) {
+				throw new MyBatisShardsException(e);
+			}
+		}
+	}
+}
@@ -20,6 +20,7 @@ package org.makersoft.shards.utils;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
@@ -61,4 +62,12 @@ public class Sets {
 		}
 		return set;
 	}
+
+	/**
+	 * Construct a new {@link LinkedHashSet}, taking advantage of type inference to
+	 * avoid specifying the type on the rhs.
+	 */
+	public static <E> LinkedHashSet<E> newLinkedHashSet() {
+		return new LinkedHashSet<E>();
+	}
 }
@@ -0,0 +1,287 @@
+/*
+ * @(#)ShardParameterMap.java 2026-10-19 下午5:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.utils;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.makersoft.shards.ShardId;
+
+/**
+ * 传给分区SqlSession的参数: 在原参数之上增加分区的<code>prefix</code>和<code>suffix</code>,
+ * MyBatis的MetaObject(MapWrapper)和OGNL直接通过{@link #get(Object)}读取.
+ * <p>
+ * 不复制原参数, 也不修改用户传入的Map; prefix/suffix取自{@link ShardId}中缓存的值.
+ * </p>
+ * 
+ * @author Feng Kuok
+ */
+public abstract class ShardParameterMap extends AbstractMap<String, Object> {
+
+	public static final String PREFIX = "prefix";
+
+	public static final String SUFFIX = "suffix";
+
+	private final String prefix;
+
+	private final String suffix;
+
+	private ShardParameterMap(ShardId shardId) {
+		this.prefix = shardId.getPrefix();
+		this.suffix = shardId.getSuffix();
+	}
+
+	/**
+	 * 基本类型参数: 除prefix/suffix之外的任何key都返回参数本身, 因此<code>#{id}</code>等任意占位符均可引用该参数.
+	 * 写入的值(例如useGeneratedKeys回写的主键)保存在视图中, 之后按该key读取到写入的值.
+	 */
+	public static ShardParameterMap scalar(Object parameter, ShardId shardId) {
+		return new ScalarParameterMap(parameter, shardId);
+	}
+
+	/**
+	 * 只有一个命名参数, 例如List参数的"list", 数组参数的"array". 写入的值与基本类型参数一样保存在视图中.
+	 */
+	public static ShardParameterMap named(String name, Object parameter, ShardId shardId) {
+		return new NamedParameterMap(name, parameter, shardId);
+	}
+
+	/**
+	 * Map参数的视图. 除prefix/suffix之外的写操作(例如useGeneratedKeys回写主键)写入原Map.
+	 */
+	public static ShardParameterMap view(Map<String, Object> parameter, ShardId shardId) {
+		return new MapParameterView(parameter, shardId);
+	}
+
+	/**
+	 * Bean参数的视图: 不复制属性, 只在SQL引用时通过缓存的{@link PropertyAccessor}读取.
+	 * 写操作(例如useGeneratedKeys回写主键)通过setter写入原对象.
+	 */
+	public static ShardParameterMap bean(Object parameter, ShardId shardId) {
+		return new BeanParameterView(parameter, shardId);
+	}
+
+	@Override
+	public Object get(Object key) {
+		if (PREFIX.equals(key)) {
+			return prefix;
+		} else if (SUFFIX.equals(key)) {
+			return suffix;
+		}
+		return getParameter(key);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		return PREFIX.equals(key) || SUFFIX.equals(key) || containsParameter(key);
+	}
+
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		Map<String, Object> entries = Maps.newLinkedHashMap();
+		copyParameters(entries);
+		entries.put(PREFIX, prefix);
+		entries.put(SUFFIX, suffix);
+		return Collections.unmodifiableMap(entries).entrySet();
+	}
+
+	protected abstract Object getParameter(Object key);
+
+	protected abstract boolean containsParameter(Object key);
+
+	/**
+	 * 复制可枚举的参数, 只用于entrySet()
+	 */
+	protected abstract void copyParameters(Map<String, Object> entries);
+
+	/**
+	 * 没有可写回的原对象的参数: KeyGenerator(Jdbc3KeyGenerator, SelectKeyGenerator)回写的keyProperty保存在视图中
+	 */
+	private abstract static class DetachedParameterMap extends ShardParameterMap {
+
+		// 写入的值, 大多数调用没有写操作, 因此延迟创建
+		private Map<String, Object> written;
+
+		private DetachedParameterMap(ShardId shardId) {
+			super(shardId);
+		}
+
+		@Override
+		protected Object getParameter(Object key) {
+			if (written != null && written.containsKey(key)) {
+				return written.get(key);
+			}
+			return getOriginalParameter(key);
+		}
+
+		@Override
+		protected boolean containsParameter(Object key) {
+			return (written != null && written.containsKey(key)) || containsOriginalParameter(key);
+		}
+
+		@Override
+		protected void copyParameters(Map<String, Object> entries) {
+			copyOriginalParameters(entries);
+			if (written != null) {
+				entries.putAll(written);
+			}
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (PREFIX.equals(key) || SUFFIX.equals(key)) {
+				throw new UnsupportedOperationException("Can not overwrite shard " + key);
+			}
+			Object previous = getParameter(key);
+			if (written == null) {
+				written = Maps.newHashMap();
+			}
+			written.put(key, value);
+			return previous;
+		}
+
+		protected abstract Object getOriginalParameter(Object key);
+
+		protected abstract boolean containsOriginalParameter(Object key);
+
+		protected abstract void copyOriginalParameters(Map<String, Object> entries);
+	}
+
+	private static final class ScalarParameterMap extends DetachedParameterMap {
+
+		private final Object parameter;
+
+		private ScalarParameterMap(Object parameter, ShardId shardId) {
+			super(shardId);
+			this.parameter = parameter;
+		}
+
+		@Override
+		protected Object getOriginalParameter(Object key) {
+			return parameter;
+		}
+
+		@Override
+		protected boolean containsOriginalParameter(Object key) {
+			return true;
+		}
+
+		@Override
+		protected void copyOriginalParameters(Map<String, Object> entries) {
+			// 基本类型参数没有名称
+		}
+	}
+
+	private static final class NamedParameterMap extends DetachedParameterMap {
+
+		private final String name;
+
+		private final Object parameter;
+
+		private NamedParameterMap(String name, Object parameter, ShardId shardId) {
+			super(shardId);
+			this.name = name;
+			this.parameter = parameter;
+		}
+
+		@Override
+		protected Object getOriginalParameter(Object key) {
+			return name.equals(key) ? parameter : null;
+		}
+
+		@Override
+		protected boolean containsOriginalParameter(Object key) {
+			return name.equals(key);
+		}
+
+		@Override
+		protected void copyOriginalParameters(Map<String, Object> entries) {
+			entries.put(name, parameter);
+		}
+	}
+
+	private static final class MapParameterView extends ShardParameterMap {
+
+		private final Map<String, Object> parameter;
+
+		private MapParameterView(Map<String, Object> parameter, ShardId shardId) {
+			super(shardId);
+			this.parameter = parameter;
+		}
+
+		@Override
+		protected Object getParameter(Object key) {
+			return parameter.get(key);
+		}
+
+		@Override
+		protected boolean containsParameter(Object key) {
+			return parameter.containsKey(key);
+		}
+
+		@Override
+		protected void copyParameters(Map<String, Object> entries) {
+			entries.putAll(parameter);
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (PREFIX.equals(key) || SUFFIX.equals(key)) {
+				throw new UnsupportedOperationException("Can not overwrite shard " + key);
+			}
+			return parameter.put(key, value);
+		}
+	}
+
+	private static final class BeanParameterView extends ShardParameterMap {
+
+		private final Object parameter;
+
+		private BeanParameterView(Object parameter, ShardId shardId) {
+			super(shardId);
+			this.parameter = parameter;
+		}
+
+		@Override
+		protected Object getParameter(Object key) {
+			if (!containsParameter(key)) {
+				return null;
+			}
+			return PropertyAccessor.forPath((String) key).getValue(parameter);
+		}
+
+		@Override
+		protected boolean containsParameter(Object key) {
+			return key instanceof String
+					&& PropertyAccessor.isReadable(parameter.getClass(), (String) key);
+		}
+
+		@Override
+		protected void copyParameters(Map<String, Object> entries) {
+			MetaObject metaObject = SystemMetaObject.forObject(parameter);
+			for (String name : metaObject.getGetterNames()) {
+				entries.put(name, metaObject.getValue(name));
+			}
+		}
+
+		@Override
+		public Object put(String key, Object value) {
+			if (PREFIX.equals(key) || SUFFIX.equals(key)) {
+				throw new UnsupportedOperationException("Can not overwrite shard " + key);
+			}
+			Object previous = getParameter(key);
+			SystemMetaObject.forObject(parameter).setValue(key, value);
+			return previous;
+		}
+	}
+}
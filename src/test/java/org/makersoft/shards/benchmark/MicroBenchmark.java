@@ -0,0 +1,83 @@
+/*
+ * @(#)MicroBenchmark.java 2026-10-18 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.benchmark;
+
+/**
+ * 简单的微基准测试工具.
+ * <p>
+ * 工程以JDK 1.7为编译目标, 为了不增加测试依赖没有引入JMH, 这里按JMH的思路做预热轮次 + 测量轮次,
+ * 并通过{@link #consume(Object)}防止JIT消除无用计算. 基准测试不会被surefire执行,
+ * 需要时直接运行各Benchmark类的main方法.
+ * </p>
+ */
+public abstract class MicroBenchmark {
+
+	private static final int WARMUP_ROUNDS = 5;
+
+	private static final int MEASURE_ROUNDS = 10;
+
+	private static volatile int sink;
+
+	/**
+	 * 被测操作
+	 */
+	public interface Operation {
+		void run(int i);
+	}
+
+	/**
+	 * 执行基准测试并输出每秒操作次数.
+	 *
+	 * @param name
+	 *            测试名称
+	 * @param opsPerRound
+	 *            每轮调用次数
+	 * @param operation
+	 *            被测操作
+	 * @return ops/s
+	 */
+	public static double run(String name, int opsPerRound, Operation operation) {
+		for (int round = 0; round < WARMUP_ROUNDS; round++) {
+			runRound(opsPerRound, operation);
+		}
+
+		long best = Long.MAX_VALUE;
+		long total = 0;
+		for (int round = 0; round < MEASURE_ROUNDS; round++) {
+			long elapsed = runRound(opsPerRound, operation);
+			best = Math.min(best, elapsed);
+			total += elapsed;
+		}
+
+		double avgOpsPerSecond = opsPerRound * 1e9 * MEASURE_ROUNDS / total;
+		double bestOpsPerSecond = opsPerRound * 1e9 / best;
+		System.out.println(String.format("%-50s %,16.0f ops/s (best %,16.0f ops/s)", name,
+				avgOpsPerSecond, bestOpsPerSecond));
+		return avgOpsPerSecond;
+	}
+
+	private static long runRound(int opsPerRound, Operation operation) {
+		long start = System.nanoTime();
+		for (int i = 0; i < opsPerRound; i++) {
+			operation.run(i);
+		}
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * 消费计算结果, 避免被JIT当作死代码消除.
+	 */
+	public static void consume(Object result) {
+		sink += System.identityHashCode(result);
+	}
+
+	public static void consume(long result) {
+		sink += (int) result;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+ * @(#)ParameterResolveBenchmark.java 2026-10-19 下午5:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sf.cglib.proxy.Enhancer;
+import net.sf.cglib.proxy.MethodInterceptor;
+import net.sf.cglib.proxy.MethodProxy;
+
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.domain.shard0.User;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.ParameterUtil;
+
+/**
+ * ParameterUtil.resolve与原实现(cglib代理HashMap, 复制Map, PropertyUtils.describe复制Bean)的对比: 解析参数并像MyBatis一样读取一个属性和prefix.
+ * <p>
+ * 原实现使用cglib, 在JDK 9以上运行需要<code>--add-opens java.base/java.lang=ALL-UNNAMED</code>.
+ * </p>
+ */
+public class ParameterResolveBenchmark {
+
+	private static final int OPS = 1000000;
+
+	public static void main(String[] args) {
+		final ShardId shardId = new ShardId(0);
+		shardId.setPrefix("t");
+		shardId.setSuffix("0");
+
+		final Map<String, Object> map = new HashMap<String, Object>();
+		map.put("id", "1");
+		map.put("gender", 1);
+		final List<String> list = Lists.newArrayList("1", "2", "3");
+		final String[] array = { "1", "2", "3" };
+		final User user = new User("makersoft", "makersoft", 1);
+		user.setId("1");
+		user.setAge(20);
+
+		benchmark("scalar", "id", 1L, shardId);
+		benchmark("Map", "id", map, shardId);
+		benchmark("List", "list", list, shardId);
+		benchmark("array", "array", array, shardId);
+		benchmark("bean", "id", user, shardId);
+	}
+
+	private static void benchmark(String name, final String property, final Object parameter,
+			final ShardId shardId) {
+		// 原实现在代理类生成之后才是稳定状态, 因此各自独立预热
+		MicroBenchmark.run(name + ", legacy", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				try {
+					MicroBenchmark.consume(read(legacyResolve(parameter, shardId), property));
+				} catch (Exception e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		MicroBenchmark.run(name + ", ParameterUtil.resolve", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(read(ParameterUtil.resolve(parameter, shardId), property));
+			}
+		});
+	}
+
+	private static Object read(Object parameter, String property) {
+		MetaObject metaObject = SystemMetaObject.forObject(parameter);
+		metaObject.getValue("prefix");
+		return metaObject.getValue(property);
+	}
+
+	/**
+	 * 原ParameterUtil.resolve的实现
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static Object legacyResolve(final Object obj, final ShardId shardId) throws Exception {
+		if (obj instanceof String || obj instanceof Number || obj instanceof Boolean
+				|| obj instanceof Character) {
+			Enhancer enhancer = new Enhancer();
+			enhancer.setSuperclass(HashMap.class);
+			enhancer.setCallback(new MethodInterceptor() {
+				public Object intercept(Object object, Method method, Object[] args,
+						MethodProxy proxy) throws Throwable {
+					if ("containsKey".equals(method.getName())) {
+						return true;
+					}
+					if (args.length > 0 && "get".equals(method.getName())) {
+						if ("prefix".equals(args[0])) {
+							return shardId.getPrefix();
+						} else if ("suffix".equals(args[0])) {
+							return shardId.getSuffix();
+						}
+						return obj;
+					}
+					return proxy.invokeSuper(object, args);
+				}
+			});
+			return enhancer.create();
+		} else if (obj instanceof Map) {
+			// 原实现直接修改调用者的Map, 这里复制一份以免影响其他测试
+			Map parameter = new HashMap((Map) obj);
+			parameter.put("prefix", shardId.getPrefix());
+			parameter.put("suffix", shardId.getSuffix());
+			return parameter;
+		} else if (obj instanceof List || obj.getClass().isArray()) {
+			Map<String, Object> parameter = new HashMap<String, Object>();
+			parameter.put(obj instanceof List ? "list" : "array", obj);
+			parameter.put("prefix", shardId.getPrefix());
+			parameter.put("suffix", shardId.getSuffix());
+			return parameter;
+		}
+		Map<String, Object> parameter = PropertyUtils.describe(obj);
+		parameter.put("prefix", shardId.getPrefix());
+		parameter.put("suffix", shardId.getSuffix());
+		return parameter;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * @(#)PropertyAccessorBenchmark.java 2026-10-19 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.benchmark;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.SystemMetaObject;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.impl.OrderComparator;
+import org.makersoft.shards.strategy.exit.ExitOperationUtils;
+import org.makersoft.shards.utils.StringUtil;
+
+/**
+ * 合并1M行时逐行读取排序键/聚合列的吞吐量(rows/s):
+ * 原ExitOperationUtils.getPropertyValue(每行拼接getter路径 + getMethod + invoke),
+ * 原OrderComparator使用的MetaObject, 以及缓存的PropertyAccessor.
+ */
+public class PropertyAccessorBenchmark {
+
+	private static final int ROWS = 1000000;
+
+	public static class Dept {
+
+		private final String name;
+
+		public Dept(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	public static class Row {
+
+		private final long id;
+
+		private final int age;
+
+		private final Dept dept;
+
+		public Row(long id, int age, Dept dept) {
+			this.id = id;
+			this.age = age;
+			this.dept = dept;
+		}
+
+		public long getId() {
+			return id;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public Dept getDept() {
+			return dept;
+		}
+	}
+
+	public static void main(String[] args) {
+		final Row[] rows = new Row[ROWS];
+		Dept[] depts = { new Dept("sales"), new Dept("dev"), new Dept("ops") };
+		for (int i = 0; i < ROWS; i++) {
+			rows[i] = new Row(i, i % 80, depts[i % depts.length]);
+		}
+		final List<Order> orders = Arrays.asList(Order.desc("age"), Order.asc("id"),
+				Order.asc("dept.name"));
+		final OrderComparator comparator = new OrderComparator(orders);
+
+		MicroBenchmark.run("sort keys, legacy getPropertyValue", ROWS,
+				new MicroBenchmark.Operation() {
+					public void run(int i) {
+						for (Order order : orders) {
+							MicroBenchmark.consume(legacyGetPropertyValue(rows[i],
+									order.getProperty()));
+						}
+					}
+				});
+
+		MicroBenchmark.run("sort keys, MetaObject", ROWS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MetaObject metaObject = SystemMetaObject.forObject(rows[i]);
+				for (Order order : orders) {
+					MicroBenchmark.consume(metaObject.getValue(order.getProperty()));
+				}
+			}
+		});
+
+		MicroBenchmark.run("sort keys, OrderComparator (cached accessors)", ROWS,
+				new MicroBenchmark.Operation() {
+					public void run(int i) {
+						MicroBenchmark.consume(comparator.extractKeys(rows[i]));
+					}
+				});
+
+		MicroBenchmark.run("aggregate column, legacy getPropertyValue", ROWS,
+				new MicroBenchmark.Operation() {
+					public void run(int i) {
+						MicroBenchmark.consume(((Number) legacyGetPropertyValue(rows[i], "age"))
+								.longValue());
+					}
+				});
+
+		MicroBenchmark.run("aggregate column, ExitOperationUtils (cached)", ROWS,
+				new MicroBenchmark.Operation() {
+					public void run(int i) {
+						MicroBenchmark.consume(((Number) ExitOperationUtils.getPropertyValue(
+								rows[i], "age")).longValue());
+					}
+				});
+	}
+
+	/**
+	 * 原ExitOperationUtils.getPropertyValue的实现
+	 */
+	private static Object legacyGetPropertyValue(Object obj, String propertyName) {
+		try {
+			StringBuilder propertyPath = new StringBuilder();
+			for (int i = 0; i < propertyName.length(); i++) {
+				String s = propertyName.substring(i, i + 1);
+				if (i == 0 || propertyName.charAt(i - 1) == '.') {
+					propertyPath.append(StringUtil.capitalize(s));
+				} else {
+					propertyPath.append(s);
+				}
+			}
+			String[] methods = ("get" + propertyPath.toString().replaceAll("\\.", ".get"))
+					.split("\\.");
+			Object root = obj;
+			for (String method : methods) {
+				Method m = root.getClass().getMethod(method);
+				root = m.invoke(root);
+				if (root == null) {
+					break;
+				}
+			}
+			return root;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * @(#)ShardAccessStrategyBenchmark.java 2026-10-18 下午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.benchmark;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.ThreadPerTaskShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.impl.SumRowCountsExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * {@link ParallelShardAccessStrategy}(50个线程的线程池)与{@link ThreadPerTaskShardAccessStrategy}在16/64/256个分区上的对比.
+ * <p>
+ * 每个分区操作休眠1ms模拟阻塞的JDBC调用. 线程池使用无界队列, 使用SynchronousQueue时超过50个分区的调用会被拒绝.
+ * 在JDK 21上可以把ThreadFactory换成<code>Thread.ofVirtual().factory()</code>对比虚拟线程.
+ * </p>
+ */
+public class ShardAccessStrategyBenchmark {
+
+	private static final int[] SHARD_COUNTS = { 16, 64, 256 };
+
+	private static final int POOL_SIZE = 50;
+
+	private static final int OPS = 20;
+
+	private static final ShardOperation<Integer> BLOCKING_OPERATION = new ShardOperation<Integer>() {
+		public Integer execute(SqlSession session, ShardId shardId) {
+			try {
+				Thread.sleep(1);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		}
+
+		public String getOperationName() {
+			return "sleep(1)";
+		}
+	};
+
+	public static void main(String[] args) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60,
+				TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+		final ShardAccessStrategy parallel = new ParallelShardAccessStrategy(executor);
+		final ShardAccessStrategy threadPerTask = new ThreadPerTaskShardAccessStrategy();
+
+		for (int shardCount : SHARD_COUNTS) {
+			final List<Shard> shards = Lists.newArrayList();
+			for (int i = 0; i < shardCount; i++) {
+				shards.add(new StubShard(i));
+			}
+
+			MicroBenchmark.run("parallel(pool " + POOL_SIZE + ") " + shardCount + " shards", OPS,
+					new MicroBenchmark.Operation() {
+						public void run(int i) {
+							MicroBenchmark.consume(parallel.apply(shards, BLOCKING_OPERATION,
+									new SumRowCountsExitStrategy(), null));
+						}
+					});
+			MicroBenchmark.run("thread per task " + shardCount + " shards", OPS,
+					new MicroBenchmark.Operation() {
+						public void run(int i) {
+							MicroBenchmark.consume(threadPerTask.apply(shards, BLOCKING_OPERATION,
+									new SumRowCountsExitStrategy(), null));
+						}
+					});
+		}
+		executor.shutdown();
+	}
+}
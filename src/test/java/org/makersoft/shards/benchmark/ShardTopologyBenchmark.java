@@ -0,0 +1,138 @@
+/*
+ * @(#)ShardTopologyBenchmark.java 2026-10-18 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.benchmark;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.session.impl.ShardTopology;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * {@link ShardTopology}与原HashMap + HashSet实现的虚拟分区 --> 物理分区转换对比.
+ * <p>
+ * 64个物理分区, 每个物理分区4个虚拟分区.
+ * </p>
+ */
+public class ShardTopologyBenchmark {
+
+	private static final int PHYSICAL_SHARDS = 64;
+
+	private static final int VIRTUAL_SHARDS_PER_SHARD = 4;
+
+	private static final int OPS = 2000000;
+
+	public static void main(String[] args) {
+		List<Shard> shards = Lists.newArrayList();
+		final List<ShardId> allShardIds = Lists.newArrayList();
+		for (int i = 0; i < PHYSICAL_SHARDS; i++) {
+			Set<ShardId> shardIds = Sets.newHashSet();
+			for (int j = 0; j < VIRTUAL_SHARDS_PER_SHARD; j++) {
+				ShardId shardId = new ShardId(i * VIRTUAL_SHARDS_PER_SHARD + j);
+				shardIds.add(shardId);
+				allShardIds.add(shardId);
+			}
+			shards.add(new StubShard(shardIds));
+		}
+
+		final List<List<ShardId>> singleShardIds = Lists.newArrayList();
+		for (ShardId shardId : allShardIds) {
+			singleShardIds.add(Collections.singletonList(shardId));
+		}
+
+		final List<ShardId> someShardIds = Lists.newArrayList();
+		for (int i = 0; i < allShardIds.size(); i += 7) {
+			someShardIds.add(allShardIds.get(i));
+		}
+
+		final LegacyTopology legacy = new LegacyTopology(shards);
+		final ShardTopology topology = new ShardTopology(shards);
+
+		MicroBenchmark.run("legacy   single shard id", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(legacy.getShards(singleShardIds.get(i & 0xff)));
+			}
+		});
+		MicroBenchmark.run("topology single shard id", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(topology.getShards(singleShardIds.get(i & 0xff)));
+			}
+		});
+
+		MicroBenchmark.run("legacy   1/7 of shard ids", OPS / 10, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(legacy.getShards(someShardIds));
+			}
+		});
+		MicroBenchmark.run("topology 1/7 of shard ids", OPS / 10, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(topology.getShards(someShardIds));
+			}
+		});
+
+		MicroBenchmark.run("legacy   all shard ids", OPS / 10, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(legacy.getShards(allShardIds));
+			}
+		});
+		MicroBenchmark.run("topology all shard ids", OPS / 10, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(topology.getShards(allShardIds));
+			}
+		});
+
+		MicroBenchmark.run("legacy   getShard(ShardId)", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(legacy.getShard(allShardIds.get(i & 0xff)));
+			}
+		});
+		MicroBenchmark.run("topology getShard(ShardId)", OPS, new MicroBenchmark.Operation() {
+			public void run(int i) {
+				MicroBenchmark.consume(topology.getShard(allShardIds.get(i & 0xff)));
+			}
+		});
+	}
+
+	/**
+	 * 原ShardedSqlSessionImpl中的实现.
+	 */
+	private static class LegacyTopology {
+
+		private final Map<ShardId, Shard> shardIdsToShards = Maps.newHashMap();
+
+		LegacyTopology(List<Shard> shards) {
+			for (Shard shard : shards) {
+				for (ShardId shardId : shard.getShardIds()) {
+					shardIdsToShards.put(shardId, shard);
+				}
+			}
+		}
+
+		Shard getShard(ShardId shardId) {
+			return shardIdsToShards.get(shardId);
+		}
+
+		List<Shard> getShards(List<ShardId> shardIds) {
+			Set<Shard> shards = Sets.newHashSet();
+			if (shardIds != null && !shardIds.isEmpty()) {
+				for (ShardId shardId : shardIds) {
+					shards.add(shardIdsToShards.get(shardId));
+				}
+			}
+			return Lists.newArrayList(shards);
+		}
+	}
+}
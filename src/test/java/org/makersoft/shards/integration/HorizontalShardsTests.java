@@ -8,15 +8,27 @@
  */
 package org.makersoft.shards.integration;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 
 import org.junit.Assert;
+import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
 import org.junit.Test;
+import org.makersoft.shards.ShardFuture;
 import org.makersoft.shards.domain.shard0.User;
 import org.makersoft.shards.mapper.shard0.UserMapper;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
+import org.makersoft.shards.select.Page;
+import org.makersoft.shards.session.ShardedSqlSession;
+import org.makersoft.shards.session.ShardedSqlSessionFactory;
+import org.makersoft.shards.strategy.HorizontalShardStrategyFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.transaction.annotation.Transactional;
@@ -29,6 +41,9 @@ public class HorizontalShardsTests extends BaseIntegrationTest {
 
 	@Autowired(required = true)
 	private UserMapper userMapper;
+	
+	@Autowired(required = true)
+	private ShardedSqlSessionFactory shardedSqlSessionFactory;
 
 	private Random random = new Random();
 
@@ -152,6 +167,80 @@ public class HorizontalShardsTests extends BaseIntegrationTest {
 		Assert.assertEquals(user, result);
 	}
 	
+	@Test
+	@Transactional
+	public void test_average_across_shards() throws Exception{
+		Assert.assertNull(userMapper.getAverageAge());
+		
+		// 男性用户与女性用户分布在不同的分区, 各分区平均值的平均值为26.25
+		this.insert_new_user("makersoft_0", "makersoft_0", 20, User.SEX_MALE);
+		this.insert_new_user("makersoft_1", "makersoft_1", 25, User.SEX_MALE);
+		this.insert_new_user("makersoft_2", "makersoft_2", 30, User.SEX_FEMALE);
+		
+		Assert.assertEquals(25.0, userMapper.getAverageAge(), 0.0);
+	}
+	
+	@Test
+	@Transactional
+	public void test_group_by_across_shards() throws Exception{
+		this.insert_new_user("makersoft_0", "makersoft_0", 20, User.SEX_MALE);
+		this.insert_new_user("makersoft_1", "makersoft_1", 20, User.SEX_MALE);
+		this.insert_new_user("makersoft_2", "makersoft_2", 20, User.SEX_FEMALE);
+		this.insert_new_user("makersoft_3", "makersoft_3", 30, User.SEX_FEMALE);
+		
+		List<Map<String, Object>> groups = userMapper.countByAge();
+		
+		Assert.assertEquals(2, groups.size());
+		Assert.assertEquals(30, groups.get(0).get("age"));
+		Assert.assertEquals(1L, groups.get(0).get("cnt"));
+		Assert.assertEquals(20, groups.get(1).get("age"));
+		Assert.assertEquals(3L, groups.get(1).get("cnt"));
+	}
+	
+	@Test
+	@Transactional
+	public void test_group_by_twice_in_transaction() throws Exception{
+		this.insert_new_user("makersoft_0", "makersoft_0", 20, User.SEX_MALE);
+		this.insert_new_user("makersoft_1", "makersoft_1", 20, User.SEX_FEMALE);
+		
+		// 事务中第二次查询命中MyBatis的一级缓存, 合并结果不能写回缓存中的行
+		userMapper.countByAge();
+		List<Map<String, Object>> groups = userMapper.countByAge();
+		
+		Assert.assertEquals(1, groups.size());
+		Assert.assertEquals(20, groups.get(0).get("age"));
+		Assert.assertEquals(2L, groups.get(0).get("cnt"));
+	}
+	
+	@Test
+	@Transactional
+	public void test_find_by_key_lookup() throws Exception{
+		User user = this.insert_new_user("makersoft", "makersoft", 26, User.SEX_MALE);
+		HorizontalShardStrategyFactory.LOOKUP_KEY.remove();
+		User result = userMapper.findByUser(user);
+		
+		Assert.assertEquals(user, result);
+		// 分区键交给了分区解析策略, 而不是由主键生成器直接解析
+		Assert.assertEquals(user.getId(), HorizontalShardStrategyFactory.LOOKUP_KEY.get());
+		HorizontalShardStrategyFactory.LOOKUP_KEY.remove();
+	}
+	
+	@Test
+	@Transactional
+	public void test_async_operations() throws Exception{
+		User user = this.insert_new_user("makersoft", "makersoft", 26, User.SEX_MALE);
+		this.insert_new_user("makersoft_1", "makersoft_1", 27, User.SEX_FEMALE);
+		
+		ShardedSqlSession session = shardedSqlSessionFactory.openSession();
+		String namespace = UserMapper.class.getName();
+		ShardFuture<List<User>> users = session.selectListAsync(namespace + ".findAll", null);
+		ShardFuture<User> result = session.selectOneAsync(namespace + ".getById", user.getId());
+		
+		Assert.assertEquals(2, users.get().size());
+		Assert.assertEquals(user, result.get());
+		Assert.assertEquals(Integer.valueOf(1), session.deleteAsync(namespace + ".deleteById", user.getId()).get());
+	}
+	
 	@Test
 	@Transactional
 	public void test_delete_by_id() throws Exception{
@@ -185,6 +274,177 @@ public class HorizontalShardsTests extends BaseIntegrationTest {
 		Assert.assertEquals(0, count);
 	}
 	
+	@Test
+	@Transactional
+	public void test_insert_batch() throws Exception {
+		List<User> users = new ArrayList<User>();
+		for (int i = 0; i < 100; i++) {
+			String username = "makersoft_" + i;
+			String password = "makersoft_" + i;
+			int gender = (i % 2 == 0) ? User.SEX_MALE : User.SEX_FEMALE;
+			
+			User user = new User(username, password, gender);
+			user.setAge(random.nextInt(30));
+			users.add(user);
+		}
+		
+		List<BatchResult> results = shardedSqlSessionFactory.openSession().insertBatch(
+				UserMapper.class.getName() + ".insertUser", users);
+		
+		int rows = 0;
+		for (BatchResult result : results) {
+			for (int count : result.getUpdateCounts()) {
+				rows += count;
+			}
+		}
+		Assert.assertEquals(100, rows);
+		
+		for (User user : users) {
+			Assert.assertNotNull(user.getId());
+		}
+		Assert.assertEquals(100, userMapper.getAllCount());
+	}
+	
+	@Test
+	@Transactional
+	public void test_select_with_result_handler() throws Exception {
+		for (int i = 0; i < 10; i++) {
+			this.insert_new_user("makersoft_" + i, "makersoft_" + i, 20, User.SEX_MALE);
+		}
+		
+		final List<User> users = new ArrayList<User>();
+		ResultHandler handler = new ResultHandler() {
+			@Override
+			public void handleResult(ResultContext context) {
+				users.add((User) context.getResultObject());
+			}
+		};
+		shardedSqlSessionFactory.openSession().select(
+				UserMapper.class.getName() + ".findAll", null, RowBounds.DEFAULT, 100, handler);
+		Assert.assertEquals(10, users.size());
+		
+		// 队列容量与fetch size分别设置
+		users.clear();
+		shardedSqlSessionFactory.openSession().select(
+				UserMapper.class.getName() + ".findAll", null, RowBounds.DEFAULT, 100, 2, handler);
+		Assert.assertEquals(10, users.size());
+		
+		users.clear();
+		shardedSqlSessionFactory.openSession().select(UserMapper.class.getName() + ".findAll",
+				null, new RowBounds(2, 5), handler);
+		Assert.assertEquals(5, users.size());
+		
+		users.clear();
+		shardedSqlSessionFactory.openSession().select(UserMapper.class.getName() + ".findAll",
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						users.add((User) context.getResultObject());
+						if (context.getResultCount() == 3) {
+							context.stop();
+						}
+					}
+				});
+		Assert.assertEquals(3, users.size());
+	}
+	
+	@Test
+	@Transactional
+	public void test_select_map() throws Exception {
+		Map<String, User> caches = new HashMap<String, User>();
+		for (int i = 0; i < 10; i++) {
+			User user = this.insert_new_user("makersoft_" + i, "makersoft_" + i, 20, User.SEX_MALE);
+			caches.put(user.getId(), user);
+		}
+		
+		Map<String, User> users = shardedSqlSessionFactory.openSession().selectMap(
+				UserMapper.class.getName() + ".findAll", null, "id", RowBounds.DEFAULT,
+				DuplicateKeyPolicy.FAIL);
+		Assert.assertEquals(caches, users);
+		
+		users = shardedSqlSessionFactory.openSession().selectMap(
+				UserMapper.class.getName() + ".findAll", "id");
+		Assert.assertEquals(10, users.size());
+	}
+	
+	@Test
+	@Transactional
+	public void test_select_map_row_bounds_follow_order_by() throws Exception {
+		// 按age降序时username的顺序与HashMap中的顺序相反
+		for (int i = 0; i < 10; i++) {
+			this.insert_new_user("makersoft_" + i, "makersoft_" + i, 20 + i, User.SEX_MALE);
+		}
+		
+		Map<String, User> users = shardedSqlSessionFactory.openSession().selectMap(
+				UserMapper.class.getName() + ".findAllOrderByAge", null, "username",
+				new RowBounds(1, 3));
+		Assert.assertEquals(Arrays.asList("makersoft_8", "makersoft_7", "makersoft_6"),
+				new ArrayList<String>(users.keySet()));
+	}
+	
+	@Test
+	@Transactional
+	public void test_find_all_order_by_age() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			this.insert_new_user("makersoft_" + i, "makersoft_" + i, random.nextInt(30),
+					User.SEX_MALE);
+		}
+		
+		List<User> users = userMapper.findAllOrderByAge();
+		Assert.assertEquals(20, users.size());
+		for (int i = 1; i < users.size(); i++) {
+			User previous = users.get(i - 1);
+			User current = users.get(i);
+			Assert.assertTrue(previous.getAge() > current.getAge()
+					|| (previous.getAge() == current.getAge() && previous.getId().compareTo(
+							current.getId()) <= 0));
+		}
+	}
+	
+	@Test
+	@Transactional
+	public void test_find_all_order_by_age_with_row_bounds() throws Exception {
+		for (int i = 0; i < 20; i++) {
+			this.insert_new_user("makersoft_" + i, "makersoft_" + i, random.nextInt(30),
+					User.SEX_MALE);
+		}
+		
+		List<User> all = userMapper.findAllOrderByAge();
+		String statement = UserMapper.class.getName() + ".findAllOrderByAge";
+		for (int offset = 0; offset < 20; offset += 6) {
+			List<User> page = shardedSqlSessionFactory.openSession().selectList(statement, null,
+					new RowBounds(offset, 6));
+			Assert.assertEquals(all.subList(offset, Math.min(20, offset + 6)), page);
+		}
+	}
+	
+	@Test
+	@Transactional
+	public void test_select_page() throws Exception {
+		for (int i = 0; i < 25; i++) {
+			this.insert_new_user("makersoft_" + i, "makersoft_" + i, random.nextInt(10),
+					User.SEX_MALE);
+		}
+		
+		List<User> all = userMapper.findAllOrderByAge();
+		String statement = UserMapper.class.getName() + ".findPageOrderByAge";
+		
+		List<User> paged = new ArrayList<User>();
+		String token = null;
+		int pages = 0;
+		do {
+			Page<User> page = shardedSqlSessionFactory.openSession().selectPage(statement, null,
+					token, 7);
+			Assert.assertTrue(page.getContent().size() <= 7);
+			paged.addAll(page.getContent());
+			token = page.getContinuationToken();
+			pages++;
+		} while (token != null);
+		
+		Assert.assertEquals(all, paged);
+		Assert.assertTrue(pages >= 4);
+	}
+	
 	/**
 	 * for insert new user 
 	 */
@@ -9,8 +9,13 @@
 package org.makersoft.shards.mapper.shard0;
 
 import java.util.List;
+import java.util.Map;
 
+import org.makersoft.shards.annotation.Avg;
+import org.makersoft.shards.annotation.GroupBy;
+import org.makersoft.shards.annotation.KeyLookup;
 import org.makersoft.shards.annotation.MyBatisMapper;
+import org.makersoft.shards.annotation.OrderBy;
 import org.makersoft.shards.domain.shard0.User;
 
 /**
@@ -20,13 +25,29 @@ import org.makersoft.shards.domain.shard0.User;
 public interface UserMapper {
 	
 	User getById(String id);
+	
+	@KeyLookup("id")
+	User findByUser(User user);
 
 	List<User> findAll();
 
 	List<User> findByGender(int gender);
 	
+	@OrderBy({ "age desc", "id" })
+	List<User> findAllOrderByAge();
+	
+	@OrderBy({ "age desc", "id" })
+	List<User> findPageOrderByAge();
+	
 	int getAllCount();
 	
+	@Avg
+	Double getAverageAge();
+	
+	@GroupBy(value = "age", aggregates = "count(cnt)")
+	@OrderBy("age desc")
+	List<Map<String, Object>> countByAge();
+	
 	int insertUser(User user);
 
 	int deleteAll();
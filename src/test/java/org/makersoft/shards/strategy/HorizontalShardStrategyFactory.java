@@ -8,6 +8,7 @@
  */
 package org.makersoft.shards.strategy;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.Executors;
@@ -19,10 +20,15 @@ import java.util.concurrent.TimeUnit;
 import org.apache.ibatis.session.RowBounds;
 import org.makersoft.shards.ShardId;
 import org.makersoft.shards.domain.shard0.User;
+import org.makersoft.shards.id.IdGenerator;
+import org.makersoft.shards.id.uuid.ShardedUUIDGenerator;
 import org.makersoft.shards.strategy.access.ShardAccessStrategy;
 import org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy;
 import org.makersoft.shards.strategy.exit.impl.RowCountExitOperation;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.strategy.reduce.IncrementalShardReduceStrategy;
 import org.makersoft.shards.strategy.reduce.ShardReduceStrategy;
+import org.makersoft.shards.strategy.reduce.impl.RowCountReducer;
 import org.makersoft.shards.strategy.resolution.ShardResolutionStrategy;
 import org.makersoft.shards.strategy.resolution.ShardResolutionStrategyData;
 import org.makersoft.shards.strategy.resolution.impl.AllShardsShardResolutionStrategy;
@@ -33,6 +39,13 @@ import org.makersoft.shards.strategy.selection.ShardSelectionStrategy;
  */
 public class HorizontalShardStrategyFactory implements ShardStrategyFactory {
 
+	/**
+	 * 最近一次按分区键查询时解析策略收到的键值, 供测试用例验证路由
+	 */
+	public static final ThreadLocal<Serializable> LOOKUP_KEY = new ThreadLocal<Serializable>();
+
+	private final IdGenerator idGenerator = new ShardedUUIDGenerator();
+
 	@Override
 	public ShardStrategy newShardStrategy(List<ShardId> shardIds) {
 		ShardSelectionStrategy pss = this.getShardSelectionStrategy(shardIds);
@@ -79,6 +92,12 @@ public class HorizontalShardStrategyFactory implements ShardStrategyFactory {
 //				Serializable id = shardResolutionStrategyData.getId();
 				
 				//自定义规则...
+				if(statement.endsWith("findByUser")){
+					// 按@KeyLookup("id")声明的分区键定位
+					Serializable key = shardResolutionStrategyData.getId();
+					LOOKUP_KEY.set(key);
+					return Collections.singletonList(idGenerator.extractShardId(key));
+				}
 				if(statement.endsWith("findByGender")){
 					if(((Integer)parameter) == User.SEX_MALE){
 						return Collections.singletonList(ShardId.findByShardId(shardIds, 0));
@@ -110,7 +129,16 @@ public class HorizontalShardStrategyFactory implements ShardStrategyFactory {
 	}
 	
 	private ShardReduceStrategy getShardReduceStrategy() {
-		return new ShardReduceStrategy() {
+		return new IncrementalShardReduceStrategy() {
+			
+			@Override
+			public IncrementalReducer<?> getIncrementalReducer(String statement,
+					Object parameter, RowBounds rowBounds) {
+				if(statement.endsWith("getAllCount")){
+					return new RowCountReducer();
+				}
+				return null;
+			}
 			
 			@Override
 			public List<Object> reduce(String statement, Object parameter, RowBounds rowBounds,
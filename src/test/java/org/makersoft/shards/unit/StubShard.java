@@ -0,0 +1,87 @@
+/*
+ * @(#)StubShard.java 2026-10-18 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+
+/**
+ * 不连接数据库的{@link Shard}, 用于路由相关的单元测试.
+ */
+public class StubShard implements Shard {
+
+	private final Set<ShardId> shardIds;
+
+	private final Set<String> statements;
+
+	private final SqlSessionFactory sqlSessionFactory = new DefaultSqlSessionFactory(
+			new Configuration());
+
+	public StubShard(Set<ShardId> shardIds, String... statements) {
+		this.shardIds = Collections.unmodifiableSet(new LinkedHashSet<ShardId>(shardIds));
+		this.statements = new HashSet<String>(Arrays.asList(statements));
+	}
+
+	public StubShard(int shardId, String... statements) {
+		this(Collections.singleton(new ShardId(shardId)), statements);
+	}
+
+	@Override
+	public SqlSessionFactory getSqlSessionFactory() {
+		return sqlSessionFactory;
+	}
+
+	@Override
+	public SqlSession establishSqlSession() {
+		return null;
+	}
+
+	@Override
+	public SqlSession openSqlSession(ExecutorType executorType) {
+		return null;
+	}
+
+	@Override
+	@Deprecated
+	public SqlSession getSqlSession() {
+		return null;
+	}
+
+	@Override
+	public Set<ShardId> getShardIds() {
+		return shardIds;
+	}
+
+	@Override
+	public Collection<String> getMappedStatementNames() {
+		return statements;
+	}
+
+	@Override
+	public boolean hasMapper(Class<?> type) {
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return "StubShard" + shardIds;
+	}
+}
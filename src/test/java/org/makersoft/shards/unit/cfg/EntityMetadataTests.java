@@ -0,0 +1,79 @@
+/*
+ * @(#)EntityMetadataTests.java 2026-10-19 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.cfg;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.annotation.PrimaryKey;
+import org.makersoft.shards.annotation.ShardKey;
+import org.makersoft.shards.cfg.EntityMetadata;
+import org.makersoft.shards.utils.ParameterUtil;
+
+/**
+ * Unit test for {@link EntityMetadata}.
+ */
+public class EntityMetadataTests {
+
+	static class Root {
+
+		@PrimaryKey
+		private Long id;
+	}
+
+	static class Middle extends Root {
+
+		@ShardKey
+		private String tenant;
+	}
+
+	static class Leaf extends Middle {
+
+		@SuppressWarnings("unused")
+		private String name;
+	}
+
+	@Test
+	public void testDeepHierarchy() {
+		Leaf leaf = new Leaf();
+		((Middle) leaf).tenant = "t1";
+
+		EntityMetadata metadata = EntityMetadata.forClass(Leaf.class);
+		Assert.assertSame(metadata, EntityMetadata.forClass(Leaf.class));
+		Assert.assertTrue(metadata.hasPrimaryKey());
+		Assert.assertNull(metadata.getPrimaryKey(leaf));
+
+		Assert.assertSame(leaf, ParameterUtil.generatePrimaryKey(leaf, 42L));
+		Assert.assertEquals(42L, ParameterUtil.extractPrimaryKey(leaf));
+		Assert.assertEquals("t1", metadata.getShardKey(leaf));
+	}
+
+	@Test
+	public void testZeroPrimaryKey() {
+		Root root = new Root();
+		root.id = 0L;
+
+		Assert.assertNull(ParameterUtil.extractPrimaryKey(root));
+	}
+
+	@Test
+	public void testWithoutKeys() {
+		EntityMetadata metadata = EntityMetadata.forClass(Object.class);
+
+		Assert.assertFalse(metadata.hasPrimaryKey());
+		Assert.assertFalse(metadata.hasShardKey());
+		Assert.assertNull(ParameterUtil.extractPrimaryKey(new Object()));
+		Assert.assertNull(ParameterUtil.generatePrimaryKey(new Object(), 1L));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testWrongPrimaryKeyType() {
+		ParameterUtil.generatePrimaryKey(new Root(), "not a long");
+	}
+}
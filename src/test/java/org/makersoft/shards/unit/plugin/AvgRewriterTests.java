@@ -0,0 +1,130 @@
+/*
+ * @(#)AvgRewriterTests.java 2026-10-19 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.plugin;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Collections;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.plugin.AvgRewriter;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.reduce.impl.AvgReducer;
+import org.makersoft.shards.unit.StubShard;
+
+/**
+ * Unit test for {@link AvgRewriter} and {@link AvgReducer}.
+ */
+public class AvgRewriterTests {
+
+	@Test
+	public void testRewrite() {
+		Assert.assertEquals(
+				"SELECT SUM(age) AS shards_sum, COUNT(age) AS shards_count FROM user",
+				AvgRewriter.rewrite("SELECT AVG(age) FROM user"));
+		Assert.assertEquals(
+				"select SUM(coalesce(age, 0)) AS shards_sum, COUNT(coalesce(age, 0)) AS shards_count from user where gender = ?",
+				AvgRewriter.rewrite("select avg(coalesce(age, 0)) as average from user where gender = ?"));
+		Assert.assertEquals(
+				"SELECT SUM(u.age) AS shards_sum, COUNT(u.age) AS shards_count FROM user u",
+				AvgRewriter.rewrite("SELECT AVG (u.age) average FROM user u"));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRewriteWithoutAvg() {
+		AvgRewriter.rewrite("SELECT max_avg(age) FROM user");
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRewriteMultipleAvg() {
+		AvgRewriter.rewrite("SELECT AVG(age), AVG(gender) FROM user");
+	}
+
+	@Test
+	public void testReduce() {
+		IncrementalReduceExitStrategy<AvgReducer.SumCount> exitStrategy = IncrementalReduceExitStrategy
+				.of(new AvgReducer(), RowBounds.DEFAULT);
+		exitStrategy.addResult(row(45L, 2L), new StubShard(0));
+		exitStrategy.addResult(row(new BigDecimal("30"), 1), new StubShard(1));
+		exitStrategy.addResult(row(null, 0L), new StubShard(2));
+
+		Assert.assertEquals(Arrays.<Object> asList(25.0), exitStrategy.compileResults(null));
+	}
+
+	@Test
+	public void testReduceEmpty() {
+		IncrementalReduceExitStrategy<AvgReducer.SumCount> exitStrategy = IncrementalReduceExitStrategy
+				.of(new AvgReducer(), RowBounds.DEFAULT);
+		exitStrategy.addResult(row(null, 0L), new StubShard(0));
+
+		Assert.assertEquals(Arrays.<Object> asList((Object) null),
+				exitStrategy.compileResults(null));
+	}
+
+	@Test
+	public void testReduceToResultType() {
+		IncrementalReduceExitStrategy<AvgReducer.SumCount> exitStrategy = IncrementalReduceExitStrategy
+				.of(new AvgReducer(BigDecimal.class), RowBounds.DEFAULT);
+		exitStrategy.addResult(row(5L, 2L), new StubShard(0));
+
+		Assert.assertEquals(Arrays.<Object> asList(new BigDecimal("2.5")),
+				exitStrategy.compileResults(null));
+	}
+
+	@Test
+	public void testRegisterSumCountStatements() {
+		Configuration configuration = new Configuration();
+		configuration.addMappedStatement(statement(configuration, "avgAge", BigDecimal.class));
+
+		AvgRewriter.registerSumCountStatements(configuration, Arrays.asList("avgAge", "absent"));
+
+		String sumCountStatement = AvgRewriter.getSumCountStatement("avgAge");
+		Assert.assertTrue(configuration.hasStatement(sumCountStatement, false));
+		Assert.assertEquals(BigDecimal.class, AvgRewriter.getResultType(configuration
+				.getMappedStatement("avgAge")));
+		// 重复注册时忽略
+		AvgRewriter.registerSumCountStatements(configuration, Arrays.asList("avgAge"));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRegisterUnsupportedResultType() {
+		Configuration configuration = new Configuration();
+		configuration.addMappedStatement(statement(configuration, "avgAge", Integer.class));
+
+		AvgRewriter.registerSumCountStatements(configuration, Arrays.asList("avgAge"));
+	}
+
+	private static MappedStatement statement(Configuration configuration, String id,
+			Class<?> resultType) {
+		ResultMap resultMap = new ResultMap.Builder(configuration, id + "-Inline", resultType,
+				Collections.<ResultMapping> emptyList()).build();
+		return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration,
+				"SELECT AVG(age) FROM user"), SqlCommandType.SELECT).resultMaps(
+				Arrays.asList(resultMap)).build();
+	}
+
+	private static List<Object> row(Object sum, Object count) {
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("SHARDS_SUM", sum);
+		row.put("SHARDS_COUNT", count);
+		return Arrays.<Object> asList(row);
+	}
+}
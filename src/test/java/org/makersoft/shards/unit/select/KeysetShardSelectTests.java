@@ -0,0 +1,101 @@
+/*
+ * @(#)KeysetShardSelectTests.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.select;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.select.impl.KeysetShardSelect;
+import org.makersoft.shards.strategy.access.impl.SequentialShardAccessStrategy;
+import org.makersoft.shards.unit.StubShard;
+
+/**
+ * Unit test for {@link KeysetShardSelect} continuation token validation.
+ */
+public class KeysetShardSelectTests {
+
+	private static final String STATEMENT = "findAll";
+
+	private final List<Shard> shards = Arrays.<Shard> asList(
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(0), new ShardId(1)))),
+			new StubShard(2));
+
+	private final List<Order> orders = Arrays.asList(Order.desc("age"), Order.asc("id"));
+
+	private KeysetShardSelect select(String token) {
+		return new KeysetShardSelect(shards, STATEMENT, Collections.emptyMap(), orders, token,
+				10, new SequentialShardAccessStrategy());
+	}
+
+	/**
+	 * 按KeysetToken的格式构造token: 已读完的分区, 以及每个分区的(id, 排序键个数, 排序键...)
+	 */
+	private String token(int[] exhausted, int lastKeysCount, int[] lastKeys) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeByte(1);
+		out.writeUTF(STATEMENT);
+		out.writeInt(exhausted.length);
+		for (int shardId : exhausted) {
+			out.writeInt(shardId);
+		}
+		out.writeInt(lastKeysCount);
+		for (int i = 0; i < lastKeys.length; i += 2) {
+			out.writeInt(lastKeys[i]);
+			out.writeInt(lastKeys[i + 1]);
+			for (int j = 0; j < lastKeys[i + 1] && j < 2; j++) {
+				out.writeByte(2);
+				out.writeInt(j);
+			}
+		}
+		out.close();
+
+		StringBuilder hex = new StringBuilder();
+		for (byte b : bytes.toByteArray()) {
+			hex.append(String.format("%02x", b));
+		}
+		return hex.toString();
+	}
+
+	@Test
+	public void testValidToken() throws IOException {
+		Assert.assertNotNull(select(token(new int[] { 2 }, 1, new int[] { 0, 2 })));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRejectsHugeKeyCount() throws IOException {
+		select(token(new int[0], 1, new int[] { 0, Integer.MAX_VALUE }));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRejectsHugeShardCount() throws IOException {
+		select(token(new int[0], Integer.MAX_VALUE, new int[] { 0, 2 }));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRejectsNegativeCount() throws IOException {
+		select(token(new int[0], -1, new int[0]));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRejectsUnknownShardId() throws IOException {
+		select(token(new int[] { 7 }, 0, new int[0]));
+	}
+}
@@ -0,0 +1,59 @@
+/*
+ * @(#)ShardIdCacheTests.java 2026-10-18 下午8:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.session;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.session.impl.ShardIdCache;
+
+/**
+ * Unit test for {@link ShardIdCache}.
+ */
+public class ShardIdCacheTests {
+
+	@Test
+	public void testPutGetRemove() {
+		ShardIdCache cache = new ShardIdCache();
+		cache.put("user.insertUser", "1", new ShardId(3));
+
+		Assert.assertEquals(new ShardId(3), cache.get("user.getById", "1"));
+		Assert.assertNull(cache.get("role.getById", "1"));
+		Assert.assertNull(cache.get("user.getById", "2"));
+		Assert.assertNull(cache.get("user.getById", null));
+
+		cache.remove("user.deleteById", "1");
+		Assert.assertNull(cache.get("user.getById", "1"));
+	}
+
+	@Test
+	public void testBounded() {
+		ShardIdCache cache = new ShardIdCache(32);
+		for (int i = 0; i < 10000; i++) {
+			cache.put("user.insertUser", i, new ShardId(i % 4));
+		}
+
+		int hits = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (cache.get("user.getById", i) != null) {
+				hits++;
+			}
+		}
+		Assert.assertTrue(hits > 0);
+		Assert.assertTrue(hits <= 32);
+		Assert.assertEquals(new ShardId(9999 % 4), cache.get("user.getById", 9999));
+	}
+
+	@Test
+	public void testDisabled() {
+		ShardIdCache cache = new ShardIdCache(0);
+		cache.put("user.insertUser", "1", new ShardId(3));
+		Assert.assertNull(cache.get("user.getById", "1"));
+	}
+}
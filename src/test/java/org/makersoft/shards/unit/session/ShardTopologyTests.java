@@ -0,0 +1,120 @@
+/*
+ * @(#)ShardTopologyTests.java 2026-10-18 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.session;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.session.impl.ShardTopology;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * Unit test for {@link ShardTopology}.
+ */
+public class ShardTopologyTests {
+
+	private final ShardId shardId_0 = new ShardId(0);
+	private final ShardId shardId_1 = new ShardId(1);
+	private final ShardId shardId_2 = new ShardId(2);
+	private final ShardId shardId_3 = new ShardId(3);
+
+	private Shard shard_a;
+	private Shard shard_b;
+	private Shard shard_c;
+
+	private List<Shard> shards;
+
+	private ShardTopology topology;
+
+	@Before
+	public void setup() {
+		// 0,1 --> a; 2 --> b; 3 --> c
+		shard_a = new StubShard(Sets.newHashSet(shardId_0, shardId_1));
+		shard_b = new StubShard(2);
+		shard_c = new StubShard(3);
+
+		shards = Lists.newArrayList(shard_a, shard_b, shard_c);
+		topology = new ShardTopology(shards);
+	}
+
+	@Test
+	public void testGetShard() {
+		Assert.assertSame(shard_a, topology.getShard(shardId_0));
+		Assert.assertSame(shard_a, topology.getShard(shardId_1));
+		Assert.assertSame(shard_b, topology.getShard(shardId_2));
+		Assert.assertSame(shard_c, topology.getShard(shardId_3));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testGetShardWithUnknownShardId() {
+		topology.getShard(new ShardId(4));
+	}
+
+	@Test
+	public void testGetShardsDeduplicatesPhysicalShards() {
+		Assert.assertEquals(Collections.singletonList(shard_a),
+				topology.getShards(Lists.newArrayList(shardId_0, shardId_1)));
+
+		Assert.assertEquals(Lists.newArrayList(shard_a, shard_c),
+				topology.getShards(Lists.newArrayList(shardId_3, shardId_1, shardId_0)));
+	}
+
+	@Test
+	public void testGetShardsReturnsSharedLists() {
+		Assert.assertEquals(shards, topology.getShards());
+		Assert.assertSame(topology.getShards(),
+				topology.getShards(Lists.newArrayList(shardId_0, shardId_1, shardId_2, shardId_3)));
+
+		Assert.assertSame(topology.getShards(Collections.singletonList(shardId_2)),
+				topology.getShards(Collections.singletonList(shardId_2)));
+	}
+
+	@Test
+	public void testGetShardsIsReadOnly() {
+		List<Shard> all = topology.getShards(Lists.newArrayList(shardId_0, shardId_2, shardId_3));
+		try {
+			all.clear();
+			Assert.fail("expected UnsupportedOperationException");
+		} catch (UnsupportedOperationException expected) {
+		}
+		shards.clear();
+		Assert.assertSame(shard_b, topology.getShard(shardId_2));
+		Assert.assertEquals(3, topology.getShards().size());
+	}
+
+	@Test
+	public void testGetShardsWithEmptyShardIds() {
+		Assert.assertTrue(topology.getShards(null).isEmpty());
+		Assert.assertTrue(topology.getShards(Collections.<ShardId> emptyList()).isEmpty());
+	}
+
+	@Test
+	public void testGetShardsWithMoreThan64PhysicalShards() {
+		List<Shard> manyShards = Lists.newArrayList();
+		List<ShardId> shardIds = Lists.newArrayList();
+		for (int i = 0; i < 100; i++) {
+			manyShards.add(new StubShard(i));
+			shardIds.add(new ShardId(i));
+		}
+		ShardTopology manyTopology = new ShardTopology(manyShards);
+
+		Assert.assertSame(manyTopology.getShards(), manyTopology.getShards(shardIds));
+		Assert.assertEquals(Lists.newArrayList(manyShards.get(5), manyShards.get(80)),
+				manyTopology.getShards(Lists.newArrayList(new ShardId(80), new ShardId(5),
+						new ShardId(80))));
+	}
+}
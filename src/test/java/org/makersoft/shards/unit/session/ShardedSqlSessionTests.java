@@ -10,6 +10,7 @@ package org.makersoft.shards.unit.session;
 
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.ibatis.io.Resources;
@@ -36,6 +37,7 @@ import org.makersoft.shards.strategy.resolution.ShardResolutionStrategy;
 import org.makersoft.shards.strategy.resolution.impl.AllShardsShardResolutionStrategy;
 import org.makersoft.shards.strategy.selection.ShardSelectionStrategy;
 import org.makersoft.shards.unit.BaseTest;
+import org.springframework.test.util.ReflectionTestUtils;
 
 /**
  * Unit test for
@@ -47,8 +49,13 @@ import org.makersoft.shards.unit.BaseTest;
  * @author Feng Kuok
  */
 public class ShardedSqlSessionTests extends BaseTest {
+	private static final String USER_MAPPER = "org.makersoft.shards.mapper.shard0.UserMapper.";
+
 	private static SqlSessionFactory factory;
 
+	// 用户按性别保存在0号和2号分区, 没有配置IdGenerator, 按主键路由依赖于主键 --> 分区缓存
+	private static SqlSessionFactory userFactory;
+
 	@BeforeClass
 	public static void setup() throws Exception {
 		List<ShardConfiguration> shardConfigs = new ArrayList<ShardConfiguration>();
@@ -76,6 +83,38 @@ public class ShardedSqlSessionTests extends BaseTest {
 
 		Assert.assertNotNull(factory);
 
+		userFactory = new ShardedSqlSessionFactoryBuilder().build(shardConfigs,
+				new ShardStrategyFactory() {
+
+					@Override
+					public ShardStrategy newShardStrategy(final List<ShardId> shardIds) {
+						ShardSelectionStrategy pss = new ShardSelectionStrategy() {
+
+							@Override
+							public ShardId selectShardIdForNewObject(String statement, Object obj) {
+								return ShardId.findByShardId(shardIds,
+										((User) obj).getGender() == User.SEX_MALE ? 0 : 2);
+							}
+						};
+
+						ShardResolutionStrategy prs = new AllShardsShardResolutionStrategy(
+								Arrays.asList(ShardId.findByShardId(shardIds, 0),
+										ShardId.findByShardId(shardIds, 2)));
+						ShardAccessStrategy pas = new SequentialShardAccessStrategy();
+
+						ShardReduceStrategy srs = new ShardReduceStrategy() {
+
+							@Override
+							public List<Object> reduce(String statement, Object parameter,
+									RowBounds rowBounds, List<Object> values) {
+								return values;
+							}
+						};
+
+						return new ShardStrategyImpl(pss, prs, pas, srs);
+					}
+				});
+
 		factory = new ShardedSqlSessionFactoryBuilder().build(shardConfigs,
 				new ShardStrategyFactory() {
 
@@ -116,4 +155,72 @@ public class ShardedSqlSessionTests extends BaseTest {
 			session.close();
 		}
 	}
+
+	@Test
+	public void testAllShardsResolutionUsesRoutingFastPath() throws Exception {
+		SqlSession session = factory.openSession();
+		try {
+			// 快速路径直接返回路由索引中预先构建的列表, 否则每次都分配新的列表
+			Object first = ReflectionTestUtils.invokeMethod(session,
+					"determineShardsViaResolutionStrategyWithReadOperation", USER_MAPPER + "findAll",
+					null);
+			Object second = ReflectionTestUtils.invokeMethod(session,
+					"determineShardsViaResolutionStrategyWithReadOperation", USER_MAPPER + "findAll",
+					null);
+			Assert.assertEquals(2, ((List<?>) first).size());
+			Assert.assertSame(first, second);
+		} finally {
+			session.close();
+		}
+	}
+
+	@Test
+	public void testInsertScalarParameterWithSelectKey() throws Exception {
+		SqlSession session = factory.openSession();
+		try {
+			// selectKey把keyProperty回写到参数中, 基本类型参数的分区参数视图必须可写
+			Assert.assertEquals(1, session.insert(USER_MAPPER + "insertUsername", "carol"));
+
+			List<User> users = session.selectList(USER_MAPPER + "findAll");
+			Assert.assertEquals(1, users.size());
+			Assert.assertEquals("generated", users.get(0).getId());
+			Assert.assertEquals("carol", users.get(0).getUsername());
+		} finally {
+			session.close();
+			// 1号分区没有UserMapper, 在0号和2号分区上清理
+			SqlSession userSession = userFactory.openSession();
+			try {
+				userSession.delete(USER_MAPPER + "deleteAll");
+			} finally {
+				userSession.close();
+			}
+		}
+	}
+
+	@Test
+	public void testNonKeyWriteAfterCachedInsertReachesAllShards() throws Exception {
+		SqlSession session = userFactory.openSession();
+		try {
+			// alice在0号分区, 插入后记录在主键 --> 分区缓存中
+			session.insert(USER_MAPPER + "insertUser", newUser("alice", "ann", User.SEX_MALE));
+			session.insert(USER_MAPPER + "insertUser", newUser("bob", "alice", User.SEX_FEMALE));
+			Assert.assertNotNull(session.selectOne(USER_MAPPER + "getById", "alice"));
+
+			// 参数是用户名而不是主键, 不能按缓存的分区路由
+			Assert.assertEquals(1, session.delete(USER_MAPPER + "deleteByUsername", "alice"));
+			Assert.assertNull(session.selectOne(USER_MAPPER + "getById", "bob"));
+			Assert.assertNotNull(session.selectOne(USER_MAPPER + "getById", "alice"));
+		} finally {
+			// 事务外每个操作都会立即提交
+			session.delete(USER_MAPPER + "deleteAll");
+			session.close();
+		}
+	}
+
+	private static User newUser(String id, String username, int gender) {
+		User user = new User(username, "password", gender);
+		user.setId(id);
+		user.setAge(20);
+		return user;
+	}
 }
@@ -0,0 +1,75 @@
+/*
+ * @(#)StatementRoutingIndexTests.java 2026-10-18 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.session;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.session.impl.StatementRoutingIndex;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Unit test for {@link StatementRoutingIndex}.
+ */
+public class StatementRoutingIndexTests {
+
+	private Shard shard0;
+	private Shard shard1;
+	private Shard shard2;
+
+	private List<Shard> shards;
+
+	private StatementRoutingIndex index;
+
+	@Before
+	public void setup() {
+		shard0 = new StubShard(0, "user.findAll", "user.getById");
+		shard1 = new StubShard(1, "user.findAll", "role.findAll");
+		shard2 = new StubShard(2, "user.findAll");
+
+		shards = Lists.newArrayList(shard0, shard1, shard2);
+		index = new StatementRoutingIndex(shards);
+	}
+
+	@Test
+	public void testGetShards() {
+		Assert.assertEquals(shards, index.getShards("user.findAll"));
+		Assert.assertEquals(Collections.singletonList(shard1), index.getShards("role.findAll"));
+		Assert.assertTrue(index.getShards("dept.findAll").isEmpty());
+	}
+
+	@Test
+	public void testGetShardsIsAllocationFreeForAllShards() {
+		Assert.assertSame(index.getShards("user.findAll"), index.getShards("user.findAll", shards));
+	}
+
+	@Test
+	public void testGetShardsWithShardsToConsider() {
+		List<Shard> subset = Lists.newArrayList(shard1, shard2);
+
+		Assert.assertEquals(subset, index.getShards("user.findAll", subset));
+		Assert.assertEquals(Collections.singletonList(shard1), index.getShards("role.findAll", subset));
+		Assert.assertTrue(index.getShards("user.getById", subset).isEmpty());
+	}
+
+	@Test
+	public void testGetShard() {
+		Assert.assertSame(shard0, index.getShard("user.findAll"));
+		Assert.assertSame(shard1, index.getShard("role.findAll"));
+		Assert.assertNull(index.getShard("dept.findAll"));
+
+		Assert.assertSame(shard2, index.getShard("user.findAll", Collections.singletonList(shard2)));
+		Assert.assertNull(index.getShard("user.getById", Collections.singletonList(shard2)));
+	}
+}
@@ -0,0 +1,328 @@
+/*
+ * @(#)ParallelShardAccessStrategyTests.java 2026-10-18 下午9:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.access;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardFuture;
+import org.makersoft.shards.ShardFutureCallback;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.plugin.StatementOptionsInterceptor;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.ExitStrategy;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
+import org.makersoft.shards.strategy.access.ShardCompletionReport;
+import org.makersoft.shards.strategy.access.TimeoutPolicy;
+import org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.impl.FirstNonNullResultExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.SumRowCountsExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+
+/**
+ * Unit test for {@link ParallelShardAccessStrategy}.
+ */
+public class ParallelShardAccessStrategyTests {
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60,
+			TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+	private final ParallelShardAccessStrategy strategy = new ParallelShardAccessStrategy(executor);
+
+	private final List<Shard> shards = Arrays.<Shard> asList(
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(0), new ShardId(1)))),
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(2), new ShardId(3)))));
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	private ShardOperation<Integer> shardIdOperation(final int failOn) {
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				if (shardId.getId() == failOn) {
+					throw new IllegalStateException("shard " + failOn);
+				}
+				return shardId.getId();
+			}
+
+			public String getOperationName() {
+				return "shardId";
+			}
+		};
+	}
+
+	private ShardOperation<Integer> slowOperation(final int slowShardId) {
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				if (shardId.getId() == slowShardId) {
+					try {
+						Thread.sleep(5000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return shardId.getId();
+			}
+
+			public String getOperationName() {
+				return "slow";
+			}
+		};
+	}
+
+	@Test
+	public void testDeadlineFail() {
+		ShardAccessDeadline.set(new ShardAccessDeadline(100, TimeUnit.MILLISECONDS,
+				TimeoutPolicy.FAIL));
+		try {
+			strategy.apply(shards, slowOperation(3), new SumRowCountsExitStrategy(), null);
+			Assert.fail();
+		} catch (MyBatisShardsException e) {
+			Assert.assertEquals(Collections.singleton(new ShardId(3)), ShardCompletionReport
+					.last().getIncompleteShardIds());
+		} finally {
+			ShardAccessDeadline.clear();
+		}
+	}
+
+	@Test
+	public void testDeadlinePartial() {
+		ParallelShardAccessStrategy partialStrategy = new ParallelShardAccessStrategy(executor,
+				new ShardAccessDeadline(100, TimeUnit.MILLISECONDS, TimeoutPolicy.PARTIAL));
+		Integer sum = partialStrategy.apply(shards, slowOperation(3),
+				new SumRowCountsExitStrategy(), null);
+
+		Assert.assertEquals(Integer.valueOf(0 + 1 + 2), sum);
+		ShardCompletionReport report = ShardCompletionReport.last();
+		Assert.assertFalse(report.isComplete());
+		Assert.assertEquals(Collections.singleton(new ShardId(3)), report.getIncompleteShardIds());
+	}
+
+	@Test
+	public void testDeadlineDoesNotSerializeMerging() {
+		final CountDownLatch merging = new CountDownLatch(2);
+		final AtomicBoolean concurrent = new AtomicBoolean(true);
+		ExitStrategy<Integer> exitStrategy = new ExitStrategy<Integer>() {
+			public boolean addResult(Integer result, Shard shard) {
+				// 两个分区需要同时处于合并中
+				merging.countDown();
+				try {
+					if (!merging.await(2, TimeUnit.SECONDS)) {
+						concurrent.set(false);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				return false;
+			}
+
+			public Integer compileResults(ExitOperationsCollector exitOperationsCollector) {
+				return null;
+			}
+		};
+
+		new ParallelShardAccessStrategy(executor, new ShardAccessDeadline(10, TimeUnit.SECONDS,
+				TimeoutPolicy.FAIL)).apply(shards, shardIdOperation(-1), exitStrategy, null);
+
+		Assert.assertTrue(concurrent.get());
+		Assert.assertTrue(ShardCompletionReport.last().isComplete());
+	}
+
+	@Test
+	public void testShortCircuitSkipsQueuedTasks() {
+		ThreadPoolExecutor singleThread = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		try {
+			ParallelShardAccessStrategy strategy = new ParallelShardAccessStrategy(singleThread);
+			Integer result = strategy.apply(shards, shardIdOperation(-1),
+					new FirstNonNullResultExitStrategy<Integer>(), null);
+
+			Assert.assertNotNull(result);
+			Assert.assertEquals(3, strategy.getAvoidedExecutionCount());
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testShortCircuitCancelsRunningStatement() throws Throwable {
+		final CountDownLatch registered = new CountDownLatch(1);
+		final CountDownLatch cancelled = new CountDownLatch(1);
+		final Statement statement = (Statement) Proxy.newProxyInstance(getClass()
+				.getClassLoader(), new Class<?>[] { Statement.class }, new InvocationHandler() {
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if (method.getName().equals("cancel")) {
+					cancelled.countDown();
+				}
+				return null;
+			}
+		});
+		final StatementHandler statementHandler = (StatementHandler) Proxy.newProxyInstance(
+				getClass().getClassLoader(), new Class<?>[] { StatementHandler.class },
+				new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						return statement;
+					}
+				});
+		final Method prepare = StatementHandler.class.getMethod("prepare", Connection.class);
+
+		ShardOperation<Integer> operation = new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				try {
+					if (shardId.getId() != 0) {
+						registered.await();
+						return shardId.getId();
+					}
+					// 模拟执行中的慢查询, 直到语句被取消
+					new StatementOptionsInterceptor().intercept(new Invocation(statementHandler,
+							prepare, new Object[] { null }));
+					registered.countDown();
+					cancelled.await(10, TimeUnit.SECONDS);
+					throw new IllegalStateException("query cancelled");
+				} catch (RuntimeException e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			}
+
+			public String getOperationName() {
+				return "slow query";
+			}
+		};
+
+		Integer result = strategy.apply(shards, operation,
+				new FirstNonNullResultExitStrategy<Integer>(), null);
+
+		Assert.assertNotNull(result);
+		Assert.assertEquals(0, cancelled.getCount());
+		Assert.assertTrue(strategy.getAvoidedExecutionCount() >= 1);
+	}
+
+	@Test
+	public void testApplyAsync() throws Exception {
+		ShardFuture<Integer> future = strategy.applyAsync(shards, shardIdOperation(-1),
+				new SumRowCountsExitStrategy(), null);
+
+		final CountDownLatch callbackSignal = new CountDownLatch(1);
+		final AtomicReference<Integer> callbackResult = new AtomicReference<Integer>();
+		future.addCallback(new ShardFutureCallback<Integer>() {
+			public void onSuccess(Integer result) {
+				callbackResult.set(result);
+				callbackSignal.countDown();
+			}
+
+			public void onFailure(Throwable cause) {
+			}
+		});
+
+		Assert.assertEquals(Integer.valueOf(0 + 1 + 2 + 3), future.get(10, TimeUnit.SECONDS));
+		Assert.assertTrue(callbackSignal.await(10, TimeUnit.SECONDS));
+		Assert.assertEquals(Integer.valueOf(6), callbackResult.get());
+	}
+
+	@Test
+	public void testApplyAsyncDeadline() throws Exception {
+		// 单个工作线程: 第一个分区执行期间超时, 之后的分区不再执行
+		ThreadPoolExecutor singleThread = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>());
+		try {
+			ParallelShardAccessStrategy partialStrategy = new ParallelShardAccessStrategy(
+					singleThread, new ShardAccessDeadline(100, TimeUnit.MILLISECONDS,
+							TimeoutPolicy.PARTIAL));
+			ShardFuture<Integer> future = partialStrategy.applyAsync(shards,
+					firstSlowOperation(300), new SumRowCountsExitStrategy(), null);
+			ShardCompletionReport report = ShardCompletionReport.last();
+			future.get(10, TimeUnit.SECONDS);
+			Assert.assertEquals(1, report.getCompletedShardIds().size());
+			Assert.assertEquals(3, report.getIncompleteShardIds().size());
+
+			ShardAccessDeadline.set(new ShardAccessDeadline(100, TimeUnit.MILLISECONDS,
+					TimeoutPolicy.FAIL));
+			try {
+				partialStrategy.applyAsync(shards, firstSlowOperation(300),
+						new SumRowCountsExitStrategy(), null).get(10, TimeUnit.SECONDS);
+				Assert.fail();
+			} catch (ExecutionException e) {
+				Assert.assertTrue(e.getCause() instanceof MyBatisShardsException);
+			} finally {
+				ShardAccessDeadline.clear();
+			}
+		} finally {
+			singleThread.shutdownNow();
+		}
+	}
+
+	/**
+	 * 第一个执行的分区耗时sleepMillis
+	 */
+	private ShardOperation<Integer> firstSlowOperation(final long sleepMillis) {
+		final AtomicBoolean first = new AtomicBoolean(true);
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				if (first.getAndSet(false)) {
+					try {
+						Thread.sleep(sleepMillis);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return shardId.getId();
+			}
+
+			public String getOperationName() {
+				return "firstSlow";
+			}
+		};
+	}
+
+	@Test
+	public void testApplyAsyncSingleShardId() throws Exception {
+		ShardFuture<Integer> future = strategy.applyAsync(shards.get(1), new ShardId(3),
+				shardIdOperation(-1));
+		Assert.assertEquals(Integer.valueOf(3), future.get(10, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void testApplyAsyncFailure() throws Exception {
+		ShardFuture<Integer> future = strategy.applyAsync(shards, shardIdOperation(2),
+				new SumRowCountsExitStrategy(), null);
+		try {
+			future.get(10, TimeUnit.SECONDS);
+			Assert.fail();
+		} catch (ExecutionException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}
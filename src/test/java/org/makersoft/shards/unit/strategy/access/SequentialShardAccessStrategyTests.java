@@ -0,0 +1,89 @@
+/*
+ * @(#)SequentialShardAccessStrategyTests.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.access;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
+import org.makersoft.shards.strategy.access.ShardCompletionReport;
+import org.makersoft.shards.strategy.access.TimeoutPolicy;
+import org.makersoft.shards.strategy.access.impl.SequentialShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.impl.SumRowCountsExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+
+/**
+ * Unit test for {@link SequentialShardAccessStrategy}.
+ */
+public class SequentialShardAccessStrategyTests {
+
+	private final List<Shard> shards = Arrays.<Shard> asList(
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(0), new ShardId(1)))),
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(2), new ShardId(3)))));
+
+	/**
+	 * 每个分区耗时150ms
+	 */
+	private final ShardOperation<Integer> slowOperation = new ShardOperation<Integer>() {
+		public Integer execute(SqlSession session, ShardId shardId) {
+			try {
+				Thread.sleep(150);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			return 1;
+		}
+
+		public String getOperationName() {
+			return "slow";
+		}
+	};
+
+	@Test
+	public void testDeadlinePartial() {
+		SequentialShardAccessStrategy strategy = new SequentialShardAccessStrategy(
+				new ShardAccessDeadline(200, TimeUnit.MILLISECONDS, TimeoutPolicy.PARTIAL));
+		Integer rows = strategy.apply(shards, slowOperation, new SumRowCountsExitStrategy(), null);
+
+		// 第三个分区开始前已经超时
+		Assert.assertEquals(Integer.valueOf(2), rows);
+		ShardCompletionReport report = ShardCompletionReport.last();
+		Assert.assertFalse(report.isComplete());
+		Assert.assertEquals(2, report.getIncompleteShardIds().size());
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testDeadlineFail() {
+		ShardAccessDeadline.set(new ShardAccessDeadline(200, TimeUnit.MILLISECONDS,
+				TimeoutPolicy.FAIL));
+		try {
+			new SequentialShardAccessStrategy().apply(shards, slowOperation,
+					new SumRowCountsExitStrategy(), null);
+		} finally {
+			ShardAccessDeadline.clear();
+		}
+	}
+
+	@Test
+	public void testWithoutDeadline() {
+		Integer rows = new SequentialShardAccessStrategy().apply(shards, slowOperation,
+				new SumRowCountsExitStrategy(), null);
+		Assert.assertEquals(Integer.valueOf(4), rows);
+		Assert.assertNull(ShardCompletionReport.last());
+	}
+}
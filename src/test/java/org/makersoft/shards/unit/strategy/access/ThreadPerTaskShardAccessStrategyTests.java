@@ -0,0 +1,150 @@
+/*
+ * @(#)ThreadPerTaskShardAccessStrategyTests.java 2026-10-18 下午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.access;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.session.SqlSession;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.ShardAccessDeadline;
+import org.makersoft.shards.strategy.access.ShardCompletionReport;
+import org.makersoft.shards.strategy.access.TimeoutPolicy;
+import org.makersoft.shards.strategy.access.impl.ThreadPerTaskShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.impl.SumRowCountsExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Sets;
+
+/**
+ * Unit test for {@link ThreadPerTaskShardAccessStrategy}.
+ */
+public class ThreadPerTaskShardAccessStrategyTests {
+
+	/**
+	 * 单个物理分区, 8个虚拟分区
+	 */
+	private List<Shard> oneShardWithEightShardIds() {
+		Set<ShardId> shardIds = Sets.newHashSet();
+		for (int i = 0; i < 8; i++) {
+			shardIds.add(new ShardId(i));
+		}
+		return Lists.<Shard> newArrayList(new StubShard(shardIds));
+	}
+
+	@Test
+	public void testApply() {
+		ThreadPerTaskShardAccessStrategy strategy = new ThreadPerTaskShardAccessStrategy();
+		Integer rows = strategy.apply(oneShardWithEightShardIds(), new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				return 1;
+			}
+
+			public String getOperationName() {
+				return "one";
+			}
+		}, new SumRowCountsExitStrategy(), null);
+		Assert.assertEquals(Integer.valueOf(8), rows);
+	}
+
+	@Test
+	public void testMaxConcurrencyPerShard() {
+		final AtomicInteger running = new AtomicInteger();
+		final AtomicInteger maxRunning = new AtomicInteger();
+		ThreadPerTaskShardAccessStrategy strategy = new ThreadPerTaskShardAccessStrategy(
+				Executors.defaultThreadFactory(), 2);
+		strategy.apply(oneShardWithEightShardIds(), new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				int current = running.incrementAndGet();
+				synchronized (maxRunning) {
+					maxRunning.set(Math.max(maxRunning.get(), current));
+				}
+				try {
+					Thread.sleep(20);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				running.decrementAndGet();
+				return 1;
+			}
+
+			public String getOperationName() {
+				return "sleep";
+			}
+		}, new SumRowCountsExitStrategy(), null);
+		Assert.assertTrue(maxRunning.get() <= 2);
+	}
+
+	@Test
+	public void testApplyDeadline() {
+		ThreadPerTaskShardAccessStrategy strategy = new ThreadPerTaskShardAccessStrategy(
+				Executors.defaultThreadFactory(), 0, new ShardAccessDeadline(100,
+						TimeUnit.MILLISECONDS, TimeoutPolicy.PARTIAL));
+		Integer rows = strategy.apply(oneShardWithEightShardIds(), slowOperation(7),
+				new SumRowCountsExitStrategy(), null);
+		Assert.assertEquals(Integer.valueOf(7), rows);
+		Assert.assertEquals(Collections.singleton(new ShardId(7)), ShardCompletionReport.last()
+				.getIncompleteShardIds());
+
+		ShardAccessDeadline.set(new ShardAccessDeadline(100, TimeUnit.MILLISECONDS,
+				TimeoutPolicy.FAIL));
+		try {
+			strategy.apply(oneShardWithEightShardIds(), slowOperation(7),
+					new SumRowCountsExitStrategy(), null);
+			Assert.fail();
+		} catch (MyBatisShardsException e) {
+			Assert.assertEquals(Collections.singleton(new ShardId(7)), ShardCompletionReport
+					.last().getIncompleteShardIds());
+		} finally {
+			ShardAccessDeadline.clear();
+		}
+	}
+
+	private ShardOperation<Integer> slowOperation(final int slowShardId) {
+		return new ShardOperation<Integer>() {
+			public Integer execute(SqlSession session, ShardId shardId) {
+				if (shardId.getId() == slowShardId) {
+					try {
+						Thread.sleep(2000);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				}
+				return 1;
+			}
+
+			public String getOperationName() {
+				return "slow";
+			}
+		};
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testApplyFailure() {
+		new ThreadPerTaskShardAccessStrategy().apply(oneShardWithEightShardIds(),
+				new ShardOperation<Integer>() {
+					public Integer execute(SqlSession session, ShardId shardId) {
+						throw new IllegalStateException();
+					}
+
+					public String getOperationName() {
+						return "fail";
+					}
+				}, new SumRowCountsExitStrategy(), null);
+	}
+}
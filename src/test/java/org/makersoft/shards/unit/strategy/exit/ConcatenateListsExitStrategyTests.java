@@ -0,0 +1,120 @@
+/*
+ * @(#)ConcatenateListsExitStrategyTests.java 2026-10-18 下午11:30:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.strategy.exit.ExitOperationsCollector;
+import org.makersoft.shards.strategy.exit.impl.ConcatenateListsExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.FirstNonNullResultExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Unit test for {@link ConcatenateListsExitStrategy} and {@link FirstNonNullResultExitStrategy}
+ * under concurrent addResult.
+ */
+public class ConcatenateListsExitStrategyTests {
+
+	private static final int THREADS = 16;
+
+	private static final int ROWS_PER_SHARD = 1000;
+
+	private static final ExitOperationsCollector IDENTITY = new ExitOperationsCollector() {
+		public List<Object> apply(List<Object> result) {
+			return result;
+		}
+
+		public void setSqlSessionFactory(SqlSessionFactory sqlSessionFactory) {
+		}
+	};
+
+	private void runConcurrently(final Runnable... tasks) throws InterruptedException {
+		final CountDownLatch startSignal = new CountDownLatch(1);
+		List<Thread> threads = Lists.newArrayList();
+		for (final Runnable task : tasks) {
+			Thread thread = new Thread() {
+				public void run() {
+					try {
+						startSignal.await();
+					} catch (InterruptedException e) {
+						return;
+					}
+					task.run();
+				}
+			};
+			thread.start();
+			threads.add(thread);
+		}
+		startSignal.countDown();
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+	@Test
+	public void testConcatenate() throws Exception {
+		final ConcatenateListsExitStrategy exitStrategy = new ConcatenateListsExitStrategy();
+		Runnable[] tasks = new Runnable[THREADS];
+		for (int i = 0; i < THREADS; i++) {
+			final Shard shard = new StubShard(i);
+			final List<Object> rows = Lists.newArrayList();
+			for (int j = 0; j < ROWS_PER_SHARD; j++) {
+				rows.add(i * ROWS_PER_SHARD + j);
+			}
+			tasks[i] = new Runnable() {
+				public void run() {
+					exitStrategy.addResult(rows, shard);
+				}
+			};
+		}
+		runConcurrently(tasks);
+
+		List<Object> result = exitStrategy.compileResults(IDENTITY);
+		Assert.assertEquals(THREADS * ROWS_PER_SHARD, result.size());
+		List<Integer> sorted = Lists.newArrayList();
+		for (Object row : result) {
+			sorted.add((Integer) row);
+		}
+		Collections.sort(sorted);
+		for (int i = 0; i < sorted.size(); i++) {
+			Assert.assertEquals(Integer.valueOf(i), sorted.get(i));
+		}
+	}
+
+	@Test
+	public void testFirstNonNullHasSingleWinner() throws Exception {
+		final FirstNonNullResultExitStrategy<Integer> exitStrategy = new FirstNonNullResultExitStrategy<Integer>();
+		final List<Integer> winners = Collections.synchronizedList(Lists.<Integer> newArrayList());
+		Runnable[] tasks = new Runnable[THREADS];
+		for (int i = 0; i < THREADS; i++) {
+			final int result = i;
+			final Shard shard = new StubShard(i);
+			tasks[i] = new Runnable() {
+				public void run() {
+					if (exitStrategy.addResult(result, shard)) {
+						winners.add(result);
+					}
+				}
+			};
+		}
+		runConcurrently(tasks);
+
+		Assert.assertEquals(1, winners.size());
+		Assert.assertEquals(winners.get(0), exitStrategy.compileResults(null));
+		Assert.assertEquals(new StubShard(winners.get(0)).toString(), exitStrategy
+				.getShardOfResult().toString());
+	}
+}
@@ -0,0 +1,189 @@
+/*
+ * @(#)GroupByExitOperationTests.java 2026-10-19 上午11:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.select.Grouping;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.strategy.exit.impl.GroupByExitOperation;
+
+/**
+ * Unit test for {@link GroupByExitOperation}.
+ */
+public class GroupByExitOperationTests {
+
+	private final Grouping grouping = Grouping.parse(new String[] { "dept" }, new String[] {
+			"sum(total)", "count(cnt)", "min(minAge)", "max(maxAge)", "avg(avgAge, sumAge, cnt)" });
+
+	@Test
+	public void testMerge() {
+		List<Object> rows = Arrays.<Object> asList(
+				row("a", 10, 2L, 20, 30, 25.0, 50),
+				row("b", 5, 1L, 40, 40, 40.0, 40),
+				row("a", 7, 1L, 18, 18, 18.0, 18),
+				row("b", null, 0L, null, null, null, null));
+
+		List<Object> result = new GroupByExitOperation(grouping, Arrays.asList(Order.desc("total")))
+				.apply(rows);
+
+		Assert.assertEquals(2, result.size());
+		Map<?, ?> a = (Map<?, ?>) result.get(0);
+		Assert.assertEquals("a", a.get("dept"));
+		Assert.assertEquals(17, a.get("total"));
+		Assert.assertEquals(3L, a.get("cnt"));
+		Assert.assertEquals(18, a.get("minAge"));
+		Assert.assertEquals(30, a.get("maxAge"));
+		Assert.assertEquals(68.0 / 3, (Double) a.get("avgAge"), 0.0);
+
+		Map<?, ?> b = (Map<?, ?>) result.get(1);
+		Assert.assertEquals(5, b.get("total"));
+		Assert.assertEquals(1L, b.get("cnt"));
+		Assert.assertEquals(40, b.get("minAge"));
+		Assert.assertEquals(40.0, (Double) b.get("avgAge"), 0.0);
+	}
+
+	@Test
+	public void testHaving() {
+		Grouping having = grouping.having(new Grouping.Having() {
+			public boolean accept(Object row) {
+				return ((Long) ((Map<?, ?>) row).get("cnt")) > 1;
+			}
+		});
+		List<Object> rows = Arrays.<Object> asList(row("a", 10, 2L, 20, 30, 25.0, 50),
+				row("b", 5, 1L, 40, 40, 40.0, 40));
+
+		List<Object> result = new GroupByExitOperation(having, null).apply(rows);
+
+		Assert.assertEquals(1, result.size());
+		Assert.assertEquals("a", ((Map<?, ?>) result.get(0)).get("dept"));
+	}
+
+	@Test
+	public void testDecimalSum() {
+		Grouping sum = Grouping.parse(new String[] { "dept" }, new String[] { "sum(total)" });
+		List<Object> rows = Arrays.<Object> asList(row("a", new BigDecimal("1.5")),
+				row("a", new BigDecimal("2")));
+
+		List<Object> result = new GroupByExitOperation(sum, null).apply(rows);
+
+		Assert.assertEquals(0, new BigDecimal("3.5").compareTo((BigDecimal) ((Map<?, ?>) result
+				.get(0)).get("total")));
+	}
+
+	@Test
+	public void testShardRowsAreNotModified() {
+		Map<String, Object> first = row("a", 10, 2L, 20, 30, 25.0, 50);
+		List<Object> rows = Arrays.<Object> asList(first, row("a", 7, 1L, 18, 18, 18.0, 18));
+
+		GroupByExitOperation operation = new GroupByExitOperation(grouping, null);
+		operation.apply(rows);
+		Map<?, ?> merged = (Map<?, ?>) operation.apply(rows).get(0);
+
+		Assert.assertNotSame(first, merged);
+		Assert.assertEquals(10, first.get("total"));
+		Assert.assertEquals(2L, first.get("cnt"));
+		Assert.assertEquals(17, merged.get("total"));
+		Assert.assertEquals(3L, merged.get("cnt"));
+	}
+
+	@Test
+	public void testMixedNumberTypes() {
+		Grouping ages = Grouping.parse(new String[] { "dept" }, new String[] { "min(minAge)",
+				"max(maxAge)", "avg(avgAge, sumAge, cnt)" });
+		List<Object> rows = Arrays.<Object> asList(new AgeRow("a", 20, 30L, 25, 50L, 2),
+				new AgeRow("a", 18L, 40, 40, 40, 1));
+
+		AgeRow merged = (AgeRow) new GroupByExitOperation(ages, null).apply(rows).get(0);
+
+		Assert.assertEquals(18L, merged.minAge);
+		Assert.assertEquals(40, merged.maxAge);
+		// 声明为Integer的AVG属性截去小数部分
+		Assert.assertEquals(Integer.valueOf(30), merged.avgAge);
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testIntegerSumOverflow() {
+		Grouping sum = Grouping.parse(new String[] { "dept" }, new String[] { "sum(total)" });
+		List<Object> rows = Arrays.<Object> asList(row("a", Integer.MAX_VALUE), row("a", 1));
+
+		new GroupByExitOperation(sum, null).apply(rows);
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testBigIntegerSumOverflow() {
+		Grouping sum = Grouping.parse(new String[] { "dept" }, new String[] { "sum(total)" });
+		List<Object> rows = Arrays.<Object> asList(row("a", BigInteger.ONE.shiftLeft(64)),
+				row("a", BigInteger.ONE));
+
+		new GroupByExitOperation(sum, null).apply(rows);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testAvgRequiresSumAndCount() {
+		Grouping.Aggregate.parse("avg(avgAge)");
+	}
+
+	public static class AgeRow {
+
+		private String dept;
+
+		private Object minAge;
+
+		private Object maxAge;
+
+		private Integer avgAge;
+
+		private Object sumAge;
+
+		private int cnt;
+
+		public AgeRow() {
+		}
+
+		AgeRow(String dept, Object minAge, Object maxAge, Integer avgAge, Object sumAge, int cnt) {
+			this.dept = dept;
+			this.minAge = minAge;
+			this.maxAge = maxAge;
+			this.avgAge = avgAge;
+			this.sumAge = sumAge;
+			this.cnt = cnt;
+		}
+
+		public String getDept() {
+			return dept;
+		}
+	}
+
+	private static Map<String, Object> row(String dept, Object total) {
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("dept", dept);
+		row.put("total", total);
+		return row;
+	}
+
+	private static Map<String, Object> row(String dept, Integer total, long cnt, Integer minAge,
+			Integer maxAge, Double avgAge, Integer sumAge) {
+		Map<String, Object> row = row(dept, total);
+		row.put("cnt", cnt);
+		row.put("minAge", minAge);
+		row.put("maxAge", maxAge);
+		row.put("avgAge", avgAge);
+		row.put("sumAge", sumAge);
+		return row;
+	}
+}
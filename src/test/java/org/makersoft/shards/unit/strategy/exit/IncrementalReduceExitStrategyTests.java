@@ -0,0 +1,87 @@
+/*
+ * @(#)IncrementalReduceExitStrategyTests.java 2026-10-19 上午9:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.reduce.IncrementalReducer;
+import org.makersoft.shards.strategy.reduce.impl.DistinctReducer;
+import org.makersoft.shards.strategy.reduce.impl.RowCountReducer;
+import org.makersoft.shards.strategy.reduce.impl.TopNReducer;
+import org.makersoft.shards.unit.StubShard;
+
+/**
+ * Unit test for {@link IncrementalReduceExitStrategy}.
+ */
+public class IncrementalReduceExitStrategyTests {
+
+	private final Shard shard0 = new StubShard(0);
+	private final Shard shard1 = new StubShard(1);
+	private final Shard shard2 = new StubShard(2);
+
+	private <A> List<Object> reduce(IncrementalReducer<A> reducer, RowBounds rowBounds) {
+		IncrementalReduceExitStrategy<A> exitStrategy = IncrementalReduceExitStrategy.of(reducer,
+				rowBounds);
+		exitStrategy.addResult(Arrays.<Object> asList(5, 1, 9), shard0);
+		exitStrategy.addResult(Arrays.<Object> asList(3, null, 9), shard1);
+		exitStrategy.addResult(Arrays.<Object> asList(7), shard2);
+		return exitStrategy.compileResults(null);
+	}
+
+	@Test
+	public void testRowCount() {
+		Assert.assertEquals(Arrays.<Object> asList(34), reduce(new RowCountReducer(),
+				RowBounds.DEFAULT));
+	}
+
+	@Test
+	public void testRowCountLong() {
+		IncrementalReduceExitStrategy<RowCountReducer.Count> exitStrategy = IncrementalReduceExitStrategy
+				.of(new RowCountReducer(), RowBounds.DEFAULT);
+		exitStrategy.addResult(Arrays.<Object> asList(3L), shard0);
+		exitStrategy.addResult(Arrays.<Object> asList(4L), shard1);
+		Assert.assertEquals(Arrays.<Object> asList(7L), exitStrategy.compileResults(null));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testRowCountIntOverflow() {
+		IncrementalReduceExitStrategy<RowCountReducer.Count> exitStrategy = IncrementalReduceExitStrategy
+				.of(new RowCountReducer(), RowBounds.DEFAULT);
+		exitStrategy.addResult(Arrays.<Object> asList(Integer.MAX_VALUE), shard0);
+		exitStrategy.addResult(Arrays.<Object> asList(1), shard1);
+		exitStrategy.compileResults(null);
+	}
+
+	@Test
+	public void testTopN() {
+		Comparator<Object> descending = new Comparator<Object>() {
+			public int compare(Object o1, Object o2) {
+				return ((Integer) o2).compareTo((Integer) o1);
+			}
+		};
+		Assert.assertEquals(Arrays.<Object> asList(9, 9, 7), reduce(new TopNReducer(descending, 3),
+				RowBounds.DEFAULT));
+		Assert.assertEquals(Arrays.<Object> asList(9, 7), reduce(new TopNReducer(descending, 3),
+				new RowBounds(1, 2)));
+	}
+
+	@Test
+	public void testDistinct() {
+		Assert.assertEquals(Arrays.<Object> asList(5, 1, 9, 3, 7), reduce(new DistinctReducer(),
+				RowBounds.DEFAULT));
+	}
+}
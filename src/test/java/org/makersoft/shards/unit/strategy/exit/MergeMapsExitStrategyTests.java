@@ -0,0 +1,92 @@
+/*
+ * @(#)MergeMapsExitStrategyTests.java 2026-10-18 下午5:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.util.Map;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.select.DuplicateKeyPolicy;
+import org.makersoft.shards.strategy.exit.impl.MergeMapsExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+
+/**
+ * Unit test for {@link MergeMapsExitStrategy}.
+ */
+public class MergeMapsExitStrategyTests {
+
+	private final Shard shard0 = new StubShard(0);
+	private final Shard shard1 = new StubShard(1);
+
+	private Map<Object, Object> map(Object... keysAndValues) {
+		Map<Object, Object> map = Maps.newLinkedHashMap();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			map.put(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return map;
+	}
+
+	private Map<Object, Object> merge(DuplicateKeyPolicy policy, RowBounds rowBounds) {
+		MergeMapsExitStrategy exitStrategy = new MergeMapsExitStrategy(policy, rowBounds);
+		exitStrategy.addResult(map("a", 1, "b", 1), shard0);
+		exitStrategy.addResult(map("b", 2, "c", 2), shard1);
+		return exitStrategy.compileResults(null);
+	}
+
+	@Test
+	public void testOverwrite() {
+		Assert.assertEquals(map("a", 1, "b", 2, "c", 2),
+				merge(DuplicateKeyPolicy.OVERWRITE, RowBounds.DEFAULT));
+	}
+
+	@Test
+	public void testKeepFirst() {
+		Assert.assertEquals(map("a", 1, "b", 1, "c", 2),
+				merge(DuplicateKeyPolicy.KEEP_FIRST, RowBounds.DEFAULT));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testFail() {
+		merge(DuplicateKeyPolicy.FAIL, RowBounds.DEFAULT);
+	}
+
+	@Test
+	public void testRowBounds() {
+		Map<Object, Object> result = merge(DuplicateKeyPolicy.OVERWRITE, new RowBounds(1, 1));
+		Assert.assertEquals(map("b", 2), result);
+	}
+
+	@Test
+	public void testMergesInShardIdOrderRegardlessOfArrival() {
+		for (DuplicateKeyPolicy policy : new DuplicateKeyPolicy[] { DuplicateKeyPolicy.OVERWRITE,
+				DuplicateKeyPolicy.KEEP_FIRST }) {
+			MergeMapsExitStrategy inOrder = new MergeMapsExitStrategy(policy, new RowBounds(1, 2));
+			inOrder.addResult(inOrder.partialMap(new ShardId(0), map("a", 0, "b", 0)), shard0);
+			inOrder.addResult(inOrder.partialMap(new ShardId(1), map("b", 1, "c", 1)), shard0);
+			inOrder.addResult(inOrder.partialMap(new ShardId(2), map("c", 2, "d", 2)), shard1);
+
+			MergeMapsExitStrategy reversed = new MergeMapsExitStrategy(policy, new RowBounds(1, 2));
+			reversed.addResult(reversed.partialMap(new ShardId(2), map("c", 2, "d", 2)), shard1);
+			reversed.addResult(reversed.partialMap(new ShardId(1), map("b", 1, "c", 1)), shard0);
+			reversed.addResult(reversed.partialMap(new ShardId(0), map("a", 0, "b", 0)), shard0);
+
+			Map<Object, Object> expected = inOrder.compileResults(null);
+			Map<Object, Object> actual = reversed.compileResults(null);
+			Assert.assertEquals(expected, actual);
+			Assert.assertEquals(Lists.newArrayList(expected.keySet()),
+					Lists.newArrayList(actual.keySet()));
+		}
+	}
+}
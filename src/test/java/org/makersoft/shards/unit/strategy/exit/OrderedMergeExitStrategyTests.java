@@ -0,0 +1,78 @@
+/*
+ * @(#)OrderedMergeExitStrategyTests.java 2026-10-18 下午6:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.select.Order;
+import org.makersoft.shards.strategy.exit.impl.OrderedMergeExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+import org.makersoft.shards.utils.Maps;
+
+/**
+ * Unit test for {@link OrderedMergeExitStrategy}.
+ */
+public class OrderedMergeExitStrategyTests {
+
+	private final Shard shard0 = new StubShard(0);
+	private final Shard shard1 = new StubShard(1);
+	private final Shard shard2 = new StubShard(2);
+
+	private static Map<String, Object> row(int age, String id) {
+		Map<String, Object> row = Maps.newHashMap();
+		row.put("age", age);
+		row.put("id", id);
+		return row;
+	}
+
+	private static List<Object> rows(Object... rows) {
+		return Lists.newArrayList(rows);
+	}
+
+	private List<Object> merge(RowBounds rowBounds) {
+		OrderedMergeExitStrategy exitStrategy = new OrderedMergeExitStrategy(Order.parse(
+				"age desc", "id"), rowBounds);
+		exitStrategy.addResult(rows(row(30, "a"), row(20, "c"), row(10, "a")), shard0);
+		exitStrategy.addResult(rows(row(25, "b"), row(20, "b")), shard1);
+		exitStrategy.addResult(rows(row(40, "z"), row(20, "a")), shard2);
+		return exitStrategy.compileResults(null);
+	}
+
+	@Test
+	public void testMerge() {
+		Assert.assertEquals(
+				rows(row(40, "z"), row(30, "a"), row(25, "b"), row(20, "a"), row(20, "b"),
+						row(20, "c"), row(10, "a")), merge(RowBounds.DEFAULT));
+	}
+
+	@Test
+	public void testMergeStopsWhenWindowIsFilled() {
+		Assert.assertEquals(rows(row(40, "z"), row(30, "a"), row(25, "b"), row(20, "a")),
+				merge(new RowBounds(1, 3)));
+	}
+
+	@Test
+	public void testNullsFirst() {
+		OrderedMergeExitStrategy exitStrategy = new OrderedMergeExitStrategy(Lists.newArrayList(Order.asc("age")),
+				RowBounds.DEFAULT);
+		Map<String, Object> nullAge = row(0, "n");
+		nullAge.put("age", null);
+		exitStrategy.addResult(rows(row(1, "a")), shard0);
+		exitStrategy.addResult(rows(nullAge, row(2, "b")), shard1);
+
+		Assert.assertEquals(rows(nullAge, row(1, "a"), row(2, "b")),
+				exitStrategy.compileResults(null));
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * @(#)StreamingResultHandlerExitStrategyTests.java 2026-10-19 上午10:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.exit;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.Shard;
+import org.makersoft.shards.ShardId;
+import org.makersoft.shards.ShardOperation;
+import org.makersoft.shards.strategy.access.ShardAccessStrategies;
+import org.makersoft.shards.strategy.access.ShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.ParallelShardAccessStrategy;
+import org.makersoft.shards.strategy.access.impl.SequentialShardAccessStrategy;
+import org.makersoft.shards.strategy.exit.impl.StreamingResultHandlerExitStrategy;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Unit test for {@link StreamingResultHandlerExitStrategy}.
+ */
+public class StreamingResultHandlerExitStrategyTests {
+
+	private static final int ROWS_PER_SHARD = 500;
+
+	private final ThreadPoolExecutor executor = new ThreadPoolExecutor(4, 4, 60,
+			TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>());
+
+	private final List<Shard> shards = Arrays.<Shard> asList(
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(0), new ShardId(1)))),
+			new StubShard(new HashSet<ShardId>(Arrays.asList(new ShardId(2), new ShardId(3)))));
+
+	// 各分区已经交给exit strategy的行数
+	private final AtomicInteger produced = new AtomicInteger();
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void testParallelRowsAreHandledOnCallerThread() {
+		final Set<Thread> threads = new HashSet<Thread>();
+		final List<Object> rows = Lists.newArrayList();
+		StreamingResultHandlerExitStrategy exitStrategy = new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						threads.add(Thread.currentThread());
+						rows.add(context.getResultObject());
+					}
+				}, RowBounds.DEFAULT, 8);
+
+		stream(new ParallelShardAccessStrategy(executor), exitStrategy, -1);
+
+		Assert.assertEquals(4 * ROWS_PER_SHARD, rows.size());
+		Assert.assertEquals(4 * ROWS_PER_SHARD, new HashSet<Object>(rows).size());
+		Assert.assertEquals(1, threads.size());
+		Assert.assertTrue(threads.contains(Thread.currentThread()));
+	}
+
+	@Test
+	public void testQueueIsBounded() {
+		final int capacity = 2;
+		final AtomicInteger maxBacklog = new AtomicInteger();
+		final AtomicInteger consumed = new AtomicInteger();
+		StreamingResultHandlerExitStrategy exitStrategy = new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						int backlog = produced.get() - consumed.incrementAndGet();
+						maxBacklog.set(Math.max(maxBacklog.get(), backlog));
+						try {
+							Thread.sleep(1);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+					}
+				}, RowBounds.DEFAULT, capacity);
+
+		stream(new ParallelShardAccessStrategy(executor),
+				exitStrategy, Arrays.<Shard> asList(new StubShard(0)), -1);
+
+		Assert.assertEquals(ROWS_PER_SHARD, consumed.get());
+		// 队列中的行加上分区线程正在放入的一行
+		Assert.assertTrue("backlog " + maxBacklog.get(), maxBacklog.get() <= capacity + 1);
+	}
+
+	@Test
+	public void testParallelRowBoundsAndStop() {
+		final List<Object> rows = Lists.newArrayList();
+		StreamingResultHandlerExitStrategy exitStrategy = new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						rows.add(context.getResultObject());
+					}
+				}, new RowBounds(10, 25), 8);
+
+		stream(new ParallelShardAccessStrategy(executor), exitStrategy, -1);
+		Assert.assertEquals(25, rows.size());
+		Assert.assertTrue(exitStrategy.isStopped());
+
+		rows.clear();
+		stream(new ParallelShardAccessStrategy(executor), new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						rows.add(context.getResultObject());
+						if (context.getResultCount() == 3) {
+							context.stop();
+						}
+					}
+				}, RowBounds.DEFAULT, 8), -1);
+		Assert.assertEquals(3, rows.size());
+		// 停止后各分区不再继续读取
+		Assert.assertTrue(produced.get() < 4 * ROWS_PER_SHARD);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testParallelFailureIsRethrown() {
+		stream(new ParallelShardAccessStrategy(executor), new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+					}
+				}, RowBounds.DEFAULT, 8), 2);
+	}
+
+	@Test
+	public void testSequentialRowsAreHandledDirectly() {
+		final AtomicInteger count = new AtomicInteger();
+		StreamingResultHandlerExitStrategy exitStrategy = new StreamingResultHandlerExitStrategy(
+				new ResultHandler() {
+					@Override
+					public void handleResult(ResultContext context) {
+						count.incrementAndGet();
+					}
+				}, RowBounds.DEFAULT, 1);
+
+		stream(new SequentialShardAccessStrategy(), exitStrategy, -1);
+
+		Assert.assertEquals(4 * ROWS_PER_SHARD, count.get());
+	}
+
+	private void stream(ShardAccessStrategy accessStrategy,
+			StreamingResultHandlerExitStrategy exitStrategy, int failOn) {
+		stream(accessStrategy, exitStrategy, shards, failOn);
+	}
+
+	private void stream(ShardAccessStrategy accessStrategy,
+			StreamingResultHandlerExitStrategy exitStrategy, List<Shard> shards, int failOn) {
+		produced.set(0);
+		exitStrategy.drain(ShardAccessStrategies.applyAsync(accessStrategy, shards,
+				rowsOperation(exitStrategy, failOn), exitStrategy, null));
+	}
+
+	/**
+	 * 模拟MyBatis逐行回调ResultHandler的分区查询
+	 */
+	private ShardOperation<Void> rowsOperation(final StreamingResultHandlerExitStrategy exitStrategy,
+			final int failOn) {
+		return new ShardOperation<Void>() {
+			public Void execute(SqlSession session, ShardId shardId) {
+				if (shardId.getId() == failOn) {
+					throw new IllegalStateException("shard " + failOn);
+				}
+				ResultHandler handler = exitStrategy.newShardResultHandler();
+				RowContext context = new RowContext();
+				for (int i = 0; i < ROWS_PER_SHARD && !context.isStopped(); i++) {
+					context.resultObject = shardId.getId() * ROWS_PER_SHARD + i;
+					context.resultCount++;
+					produced.incrementAndGet();
+					handler.handleResult(context);
+				}
+				return null;
+			}
+
+			public String getOperationName() {
+				return "rows";
+			}
+		};
+	}
+
+	private static class RowContext implements ResultContext {
+
+		private Object resultObject;
+
+		private int resultCount;
+
+		private boolean stopped;
+
+		@Override
+		public Object getResultObject() {
+			return resultObject;
+		}
+
+		@Override
+		public int getResultCount() {
+			return resultCount;
+		}
+
+		@Override
+		public boolean isStopped() {
+			return stopped;
+		}
+
+		@Override
+		public void stop() {
+			stopped = true;
+		}
+	}
+}
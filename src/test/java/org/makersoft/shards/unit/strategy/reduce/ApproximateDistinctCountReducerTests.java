@@ -0,0 +1,91 @@
+/*
+ * @(#)ApproximateDistinctCountReducerTests.java 2026-10-19 下午2:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.reduce;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.reduce.impl.ApproximateDistinctCountReducer;
+import org.makersoft.shards.strategy.reduce.impl.HyperLogLog;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Unit test for {@link ApproximateDistinctCountReducer} and {@link HyperLogLog}.
+ */
+public class ApproximateDistinctCountReducerTests {
+
+	@Test
+	public void testExactForSmallCardinality() {
+		IncrementalReduceExitStrategy<HyperLogLog> exitStrategy = IncrementalReduceExitStrategy
+				.of(new ApproximateDistinctCountReducer(), RowBounds.DEFAULT);
+		exitStrategy.addResult(Arrays.<Object> asList("a", "b", 1L), new StubShard(0));
+		exitStrategy.addResult(Arrays.<Object> asList("b", "c", 1L), new StubShard(1));
+
+		Assert.assertEquals(Arrays.<Object> asList(4L), exitStrategy.compileResults(null));
+	}
+
+	@Test
+	public void testExactIntegralTypes() {
+		IncrementalReduceExitStrategy<HyperLogLog> exitStrategy = IncrementalReduceExitStrategy
+				.of(new ApproximateDistinctCountReducer(), RowBounds.DEFAULT);
+		// 不同分区的驱动可能为同一列返回不同的整数类型
+		exitStrategy.addResult(Arrays.<Object> asList(1, 2L), new StubShard(0));
+		exitStrategy.addResult(Arrays.<Object> asList(1L, new BigDecimal("2"), BigInteger.ONE),
+				new StubShard(1));
+
+		Assert.assertEquals(Arrays.<Object> asList(2L), exitStrategy.compileResults(null));
+	}
+
+	@Test
+	public void testEstimateAcrossShards() {
+		int precision = 12;
+		// 40个分区, 相邻分区的值有一半重叠, 共有205000个不同值
+		IncrementalReduceExitStrategy<HyperLogLog> exitStrategy = IncrementalReduceExitStrategy
+				.of(new ApproximateDistinctCountReducer(precision, 100), RowBounds.DEFAULT);
+		for (int shard = 0; shard < 40; shard++) {
+			List<Object> values = Lists.newArrayListWithCapacity(10000);
+			for (int i = 0; i < 10000; i++) {
+				values.add("user_" + (shard * 5000 + i));
+			}
+			exitStrategy.addResult(values, new StubShard(shard));
+		}
+
+		long estimate = (Long) exitStrategy.compileResults(null).get(0);
+		// 3倍标准误差
+		double error = 3 * 1.04 / Math.sqrt(1 << precision);
+		Assert.assertEquals(205000, estimate, 205000 * error);
+	}
+
+	@Test
+	public void testMergeIsUnion() {
+		HyperLogLog left = new HyperLogLog(10, 0);
+		HyperLogLog right = new HyperLogLog(10, 0);
+		HyperLogLog all = new HyperLogLog(10, 0);
+		for (long i = 0; i < 50000; i++) {
+			(i % 2 == 0 ? left : right).add(i);
+			all.add(i);
+		}
+		left.merge(right);
+
+		Assert.assertFalse(left.isExact());
+		Assert.assertEquals(all.cardinality(), left.cardinality());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testMergeDifferentPrecision() {
+		new HyperLogLog(10, 0).merge(new HyperLogLog(12, 0));
+	}
+}
@@ -0,0 +1,82 @@
+/*
+ * @(#)QuantileReducerTests.java 2026-10-19 下午3:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.strategy.reduce;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.strategy.exit.impl.IncrementalReduceExitStrategy;
+import org.makersoft.shards.strategy.exit.impl.QuantileExitOperation;
+import org.makersoft.shards.strategy.reduce.impl.QuantileReducer;
+import org.makersoft.shards.strategy.reduce.impl.TDigest;
+import org.makersoft.shards.unit.StubShard;
+import org.makersoft.shards.utils.Lists;
+
+/**
+ * Unit test for {@link QuantileReducer} and {@link TDigest}.
+ */
+public class QuantileReducerTests {
+
+	private static final double[] QUANTILES = { 0.01, 0.5, 0.95, 0.99 };
+
+	@Test
+	public void testQuantilesAcrossShards() {
+		// 40个分区, 每个分区的延迟分布不同
+		Random random = new Random(20261019L);
+		List<Double> all = Lists.newArrayList();
+		IncrementalReduceExitStrategy<TDigest> exitStrategy = IncrementalReduceExitStrategy.of(
+				new QuantileReducer(QUANTILES), RowBounds.DEFAULT);
+		for (int shard = 0; shard < 40; shard++) {
+			List<Object> values = Lists.newArrayListWithCapacity(5000);
+			for (int i = 0; i < 5000; i++) {
+				double latency = Math.exp(random.nextGaussian() + shard % 4);
+				values.add(latency);
+				all.add(latency);
+			}
+			exitStrategy.addResult(values, new StubShard(shard));
+		}
+		Collections.sort(all);
+
+		List<Object> results = exitStrategy.compileResults(null);
+		for (int i = 0; i < QUANTILES.length; i++) {
+			double q = QUANTILES[i];
+			double rank = rank(all, (Double) results.get(i));
+			// 秩误差不超过2·q(1-q)/compression(合并后放宽一倍)
+			double bound = 2 * 2 * q * (1 - q) / TDigest.DEFAULT_COMPRESSION;
+			Assert.assertEquals("quantile " + q, q, rank, bound + 1.0 / all.size());
+		}
+	}
+
+	@Test
+	public void testMinMaxAreExact() {
+		List<Object> results = new QuantileExitOperation(0, 1).apply(Arrays.<Object> asList(3, 1,
+				null, 7, 5));
+
+		Assert.assertEquals(Arrays.<Object> asList(1.0, 7.0), results);
+	}
+
+	@Test
+	public void testEmpty() {
+		IncrementalReduceExitStrategy<TDigest> exitStrategy = IncrementalReduceExitStrategy.of(
+				new QuantileReducer(0.5), RowBounds.DEFAULT);
+
+		Assert.assertEquals(Arrays.<Object> asList((Object) null),
+				exitStrategy.compileResults(null));
+	}
+
+	private static double rank(List<Double> sorted, double value) {
+		int index = Collections.binarySearch(sorted, value);
+		return (index < 0 ? -index - 1 : index) / (double) sorted.size();
+	}
+}
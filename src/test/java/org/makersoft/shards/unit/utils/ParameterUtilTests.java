@@ -10,10 +10,12 @@ package org.makersoft.shards.unit.utils;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.ibatis.reflection.SystemMetaObject;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -85,6 +87,33 @@ public class ParameterUtilTests {
 		Assert.assertEquals(parameter.get("id"), map.get("id"));
 		Assert.assertEquals(parameter.get("name"), map.get("name"));
 
+		// 不修改调用者的Map, 回写的主键写入原Map
+		Assert.assertFalse(parameter.containsKey(PREFIX));
+		map.put("key", 2);
+		Assert.assertEquals(2, parameter.get("key"));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testGeneratedKeyWriteBack() throws Exception {
+		// useGeneratedKeys/selectKey通过MetaObject回写keyProperty
+		Map<String, Object> scalar = (Map<String, Object>) ParameterUtil.resolve(1, shardId);
+		SystemMetaObject.forObject(scalar).setValue("id", 2);
+		Assert.assertEquals(2, scalar.get("id"));
+		Assert.assertEquals(1, scalar.get("name"));
+
+		List<String> list = Arrays.asList("s1", "s2");
+		Map<String, Object> named = (Map<String, Object>) ParameterUtil.resolve(list, shardId);
+		SystemMetaObject.forObject(named).setValue("id", 3L);
+		Assert.assertEquals(3L, named.get("id"));
+		Assert.assertEquals(list, named.get("list"));
+		Assert.assertEquals(PREFIX_VALUE, named.get(PREFIX));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	@SuppressWarnings("unchecked")
+	public void testShardPrefixIsImmutable() throws Exception {
+		((Map<String, Object>) ParameterUtil.resolve(1, shardId)).put(PREFIX, "other_");
 	}
 
 	@Test
@@ -141,6 +170,15 @@ public class ParameterUtilTests {
 		Assert.assertEquals(user.getUsername(), map.get("username"));
 		Assert.assertEquals(user.getPassword(), map.get("password"));
 		Assert.assertEquals(user.getAge(), map.get("age"));
+
+		// 视图而不是复制: 读取的是Bean当前的属性值, 写操作写回Bean
+		user.setAge(21);
+		Assert.assertEquals(21, map.get("age"));
+		map.put("id", "generated");
+		Assert.assertEquals("generated", user.getId());
+
+		Assert.assertFalse(map.containsKey("unknown"));
+		Assert.assertNull(map.get("unknown"));
 	}
 
 	@Test
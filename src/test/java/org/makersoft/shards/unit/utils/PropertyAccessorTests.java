@@ -0,0 +1,95 @@
+/*
+ * @(#)PropertyAccessorTests.java 2026-10-19 下午4:00:00
+ *
+ * Copyright (c) 2011-2015 Makersoft.org all rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *
+ */
+package org.makersoft.shards.unit.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.makersoft.shards.MyBatisShardsException;
+import org.makersoft.shards.utils.PropertyAccessor;
+
+/**
+ * Unit test for {@link PropertyAccessor}.
+ */
+public class PropertyAccessorTests {
+
+	public static class Base {
+
+		private String secret = "base";
+
+		public boolean isActive() {
+			return true;
+		}
+	}
+
+	public static class Entity extends Base {
+
+		private final int age;
+
+		private final Entity parent;
+
+		public Entity(int age, Entity parent) {
+			this.age = age;
+			this.parent = parent;
+		}
+
+		public int getAge() {
+			return age;
+		}
+
+		public Entity getParent() {
+			return parent;
+		}
+
+		public String getBroken() {
+			throw new IllegalStateException("broken");
+		}
+	}
+
+	@Test
+	public void testBeanProperties() {
+		Entity entity = new Entity(20, new Entity(50, null));
+
+		Assert.assertEquals(20, PropertyAccessor.getValue(entity, "age"));
+		Assert.assertEquals(Boolean.TRUE, PropertyAccessor.getValue(entity, "active"));
+		Assert.assertEquals("base", PropertyAccessor.getValue(entity, "secret"));
+		Assert.assertEquals(50, PropertyAccessor.getValue(entity, "parent.age"));
+		Assert.assertNull(PropertyAccessor.getValue(entity, "parent.parent.age"));
+	}
+
+	@Test
+	public void testMapAndMixedRows() {
+		Map<String, Object> row = new HashMap<String, Object>();
+		row.put("age", 30);
+		row.put("parent", new Entity(60, null));
+
+		PropertyAccessor accessor = PropertyAccessor.forPath("age");
+		Assert.assertSame(accessor, PropertyAccessor.forPath("age"));
+		Assert.assertEquals(30, accessor.getValue(row));
+		Assert.assertEquals(20, accessor.getValue(new Entity(20, null)));
+		Assert.assertEquals(60, PropertyAccessor.getValue(row, "parent.age"));
+	}
+
+	@Test(expected = MyBatisShardsException.class)
+	public void testMissingProperty() {
+		PropertyAccessor.getValue(new Entity(20, null), "name");
+	}
+
+	@Test
+	public void testGetterException() {
+		try {
+			PropertyAccessor.getValue(new Entity(20, null), "broken");
+			Assert.fail();
+		} catch (MyBatisShardsException e) {
+			Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+		}
+	}
+}